@@ -0,0 +1,15 @@
+package com.example.eventservice.DTO.response;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+// A date range (both days included) in which a runner has no active event application
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FreeWindowResponse {
+    private LocalDate start;
+    private LocalDate end;
+}
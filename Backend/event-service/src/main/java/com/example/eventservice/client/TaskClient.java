@@ -4,14 +4,23 @@ import com.example.eventservice.DTO.response.TaskResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
 import java.util.List;
 
 @FeignClient(name = "task-service", path = "api/tasks")
 public interface TaskClient {
 
+    // task-service rejects larger batches; callers split their ids into chunks of this size
+    int MAX_BATCH_IDS = 500;
+
     // Get a single task by its ID (used when getting the full details of one task)
     @GetMapping("/event/{taskId}")
     TaskResponse getEventTaskById(@PathVariable("taskId") Long taskId);
+
+    // Several event tasks in one call; unknown ids are left out of the answer
+    @GetMapping("/event/batch")
+    List<TaskResponse> getEventTasksByIds(@RequestParam("ids") Collection<Long> ids);
+
     // Add a runner to an EventStaffingTask
     @PostMapping("/{taskId}/add-runner/{runnerId}")
     void addRunnerToEventTask(@PathVariable("taskId") Long taskId,
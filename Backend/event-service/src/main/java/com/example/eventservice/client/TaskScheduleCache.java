@@ -0,0 +1,117 @@
+package com.example.eventservice.client;
+
+import com.example.eventservice.DTO.response.TaskResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the dates and capacity of event tasks in front of {@link TaskClient}.
+ * <p>
+ * Applying to an event compares the new task with every other task the runner applied
+ * to; with this cache that costs at most one batch call for whatever is not cached yet.
+ * task-service calls {@link #invalidate} (through its outbox) whenever an event task is
+ * edited or deleted; the TTL only bounds how stale an entry can get if such a call is lost.
+ */
+@Component
+public class TaskScheduleCache {
+
+    /** What the overlap and capacity checks need from a task. */
+    public record TaskSchedule(LocalDate startDate, LocalDate endDate, int requiredPeople) {}
+
+    private record Entry(TaskSchedule schedule, long expiresAt) {}
+
+    private final TaskClient taskClient;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // bumped by every invalidation, so a batch fetched before it is not cached after it
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public TaskScheduleCache(TaskClient taskClient,
+                             @Value("${events.task-cache.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${events.task-cache.max-entries:50000}") int maxEntries) {
+        this(taskClient, ttlSeconds, maxEntries, System::nanoTime);
+    }
+
+    TaskScheduleCache(TaskClient taskClient, long ttlSeconds, int maxEntries, LongSupplier clock) {
+        this.taskClient = taskClient;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules of the given tasks, fetching all uncached ones with a single call (one per
+     * {@link TaskClient#MAX_BATCH_IDS} ids).
+     * Tasks task-service does not know (or that have no start date) are left out.
+     */
+    public Map<Long, TaskSchedule> getAll(Collection<Long> taskIds) {
+        long now = clock.getAsLong();
+        Map<Long, TaskSchedule> result = new HashMap<>();
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long id : taskIds) {
+            Entry entry = entries.get(id);
+            if (entry != null && now - entry.expiresAt() < 0) {
+                result.put(id, entry.schedule());
+            } else if (id != null) {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        long generation = invalidations.get();
+        List<TaskResponse> tasks = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(misses);
+        for (int from = 0; from < ids.size(); from += TaskClient.MAX_BATCH_IDS) {
+            List<TaskResponse> chunk = taskClient.getEventTasksByIds(
+                    ids.subList(from, Math.min(ids.size(), from + TaskClient.MAX_BATCH_IDS)));
+            if (chunk != null) {
+                tasks.addAll(chunk);
+            }
+        }
+        boolean cacheable = invalidations.get() == generation;
+        for (TaskResponse task : tasks) {
+            if (task.getTaskId() == null || task.getStartDate() == null) {
+                continue;
+            }
+            TaskSchedule schedule = new TaskSchedule(task.getStartDate(), task.getEndDate(), task.getRequiredPeople());
+            result.put(task.getTaskId(), schedule);
+            if (cacheable) {
+                store(task.getTaskId(), schedule);
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(Long taskId) {
+        invalidations.incrementAndGet();
+        entries.remove(taskId);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void store(Long taskId, TaskSchedule schedule) {
+        long now = clock.getAsLong();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+            if (entries.size() >= maxEntries) {
+                // still full of live entries; start over rather than grow without bound
+                entries.clear();
+            }
+        }
+        entries.put(taskId, new Entry(schedule, now + ttlNanos));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.eventservice.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * ddl-auto=update created event_application.status as a MySQL ENUM of the statuses that
+ * existed back then and never widens it, so WAITLISTED (or any later status) cannot be
+ * stored there. This turns the column into a VARCHAR once at startup, before the service
+ * takes requests; on a database where it already is one it does nothing.
+ */
+@Component
+public class ApplicationStatusColumnCheck {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the EntityManagerFactory parameter makes this run after Hibernate's schema update
+    @Autowired
+    public ApplicationStatusColumnCheck(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void widenStatusColumn() {
+        String type = jdbcTemplate.query(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'event_application' AND COLUMN_NAME = 'status'",
+                rs -> rs.next() ? rs.getString(1) : null);
+        if ("enum".equalsIgnoreCase(type)) {
+            jdbcTemplate.execute("ALTER TABLE event_application MODIFY status VARCHAR(32)");
+            System.err.println("event_application.status changed from ENUM to VARCHAR(32)");
+        }
+    }
+}
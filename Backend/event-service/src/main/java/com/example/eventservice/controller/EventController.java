@@ -2,14 +2,18 @@ package com.example.eventservice.controller;
 
 import com.example.eventservice.DTO.request.EventRequest;
 import com.example.eventservice.DTO.response.EventResponse;
+import com.example.eventservice.DTO.response.FreeWindowResponse;
 import com.example.eventservice.DTO.response.TaskResponse;
 import com.example.eventservice.model.ApplicationStatus;
 import com.example.eventservice.service.EventService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -27,8 +31,10 @@ public class EventController {
     // POST /api/events/apply
     @PostMapping("/apply")
     public ResponseEntity<String> applyToEvent(@RequestBody EventRequest request) {
-        boolean success = eventService.validateAndApply(request);
-        if (success) {
+        ApplicationStatus status = eventService.apply(request);
+        if (status == ApplicationStatus.WAITLISTED) {
+            return ResponseEntity.ok("Event is full; you were added to the waitlist.");
+        } else if (status != null) {
             return ResponseEntity.ok("Application submitted successfully.");
         } else {
             return ResponseEntity.badRequest().body("Failed to apply to event task.");
@@ -46,12 +52,24 @@ public class EventController {
             return ResponseEntity.badRequest().body("Failed to cancel application.");
         }
     }
-    // DELETE /api/events/cancel
+    // DELETE /api/events/remove
+    // task-service's outbox sends an Idempotency-Key: a redelivered removal finds nothing
+    // left to delete and must still succeed, or it would hold back the task's later events.
+    // Any other failure is a 500, which the outbox retries.
     @DeleteMapping("/remove")
-    public ResponseEntity<String> removeApplication(@RequestParam Long runnerId, @RequestParam Long taskId) {
-        boolean success = eventService.removeApplication(runnerId, taskId);
-        if(success) {
+    public ResponseEntity<String> removeApplication(@RequestParam Long runnerId, @RequestParam Long taskId,
+                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        EventService.Removal removal;
+        try {
+            removal = eventService.removeApplication(runnerId, taskId);
+        } catch (Exception e) {
+            System.err.println("Removing runner " + runnerId + " from task " + taskId + " failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to cancel application.");
+        }
+        if(removal == EventService.Removal.REMOVED) {
             return ResponseEntity.ok("Application cancelled successfully.");
+        }   else if (idempotencyKey != null) {
+            return ResponseEntity.ok("Application already removed.");
         }   else {
             return ResponseEntity.badRequest().body("Failed to cancel application.");
         }
@@ -63,6 +81,20 @@ public class EventController {
         return eventService.getTasksForRunner(runnerId);
     }
 
+    // GET /api/events/runner/{runnerId}/free-windows?from=2025-06-01&to=2025-06-30
+    @GetMapping("/runner/{runnerId}/free-windows")
+    public ResponseEntity<?> getFreeWindows(
+            @PathVariable Long runnerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            List<FreeWindowResponse> windows = eventService.getFreeWindows(runnerId, from, to);
+            return ResponseEntity.ok(windows);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
     // GET /api/events/task/{taskId}/applicants
     @GetMapping("/task/{taskId}/applicants")
     public List<EventResponse> getApplicantsForTask(@PathVariable Long taskId) {
@@ -100,8 +132,8 @@ public class EventController {
             @PathVariable Long id,
             @RequestParam ApplicationStatus status) {
         try {
-            eventService.updateStatusForAllRunners(id, status);
-            return ResponseEntity.ok("Status updated to " + status);
+            int changed = eventService.updateStatusForAllRunners(id, status);
+            return ResponseEntity.ok("Status updated to " + status + " for " + changed + " applications");
         } catch (EntityNotFoundException | IllegalStateException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", ex.getMessage()));
@@ -124,10 +156,17 @@ public class EventController {
         return ResponseEntity.ok(responses);
     }
 
+    // POST /api/events/task-cache/invalidate/{taskId} - task-service edited or deleted the task
+    @PostMapping("/task-cache/invalidate/{taskId}")
+    public ResponseEntity<Void> invalidateTaskCache(@PathVariable Long taskId) {
+        eventService.invalidateTaskCache(taskId);
+        return ResponseEntity.ok().build();
+    }
+
     @DeleteMapping("/delete/{taskId}")
     public ResponseEntity<String> deleteApplicationsForTask(@PathVariable Long taskId) {
-        eventService.deleteAllApplicationsForTask(taskId);
-        return ResponseEntity.ok("Applications deleted for task " + taskId);
+        int deleted = eventService.deleteAllApplicationsForTask(taskId);
+        return ResponseEntity.ok(deleted + " applications deleted for task " + taskId);
     }
 
 }
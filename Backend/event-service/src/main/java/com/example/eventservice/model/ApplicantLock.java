@@ -0,0 +1,27 @@
+package com.example.eventservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One row per applicant who ever applied. Every application and every change to one of
+ * the applicant's applications locks it, so the conflict check and the save of one
+ * applicant's applications serialize across all instances.
+ * <p>
+ * {@code scheduleVersion} is bumped by every change to the applicant's active
+ * applications, so an instance can tell whether its cached schedule is still current
+ * without reloading it.
+ */
+@Entity
+@Table(name = "applicant_lock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicantLock {
+
+    @Id
+    private Long applicantId;
+
+    @Column(nullable = false)
+    private long scheduleVersion;
+}
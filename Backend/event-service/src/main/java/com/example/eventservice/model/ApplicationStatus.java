@@ -2,6 +2,7 @@ package com.example.eventservice.model;
 
 public enum ApplicationStatus {
     PENDING,            // Applied but not yet approved
+    WAITLISTED,         // Applied while the event was full; promoted to PENDING in order when a seat frees up
     APPROVED,           // Chosen to participate
     WITHDRAWN,          // Approved but later canceled or didn't attend
     AWAITING_PAYMENT,   // Attended, waiting to get paid
@@ -3,8 +3,15 @@ package com.example.eventservice.model;
 import jakarta.persistence.*;
 
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
+// the per-task bulk statements and the applicant lookups filter on these
+@Table(indexes = {
+        @Index(name = "ix_event_application_task_status", columnList = "eventTask, status"),
+        @Index(name = "ix_event_application_applicant", columnList = "applicantId")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +24,11 @@ public class EventApplication {
     private Long applicantId;
     private String comment;
 
+    // VARCHAR rather than MySQL's native ENUM, so adding a status needs no column change
+    // (see ApplicationStatusColumnCheck for databases created before)
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 32)
     private ApplicationStatus status;
 
     private String profileResumeLink;
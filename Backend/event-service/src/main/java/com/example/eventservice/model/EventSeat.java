@@ -0,0 +1,41 @@
+package com.example.eventservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Seat counter of one event task. Every admission locks this row, so {@code taken} never
+ * exceeds the capacity no matter how many runners apply at once. Applications that hold
+ * a seat are those in {@link #SEATED}; the rest of the applicants wait as WAITLISTED.
+ */
+@Entity
+@Table(name = "event_seat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventSeat {
+
+    public static final Set<ApplicationStatus> SEATED = EnumSet.of(
+            ApplicationStatus.PENDING, ApplicationStatus.APPROVED,
+            ApplicationStatus.AWAITING_PAYMENT, ApplicationStatus.PAID);
+
+    // SEATED as stored in event_application.status, for native queries
+    public static final List<String> SEATED_NAMES = SEATED.stream().map(Enum::name).toList();
+
+    @Id
+    private Long taskId;
+
+    // requiredPeople of the task as of the last admission or promotion
+    private int capacity;
+
+    private int taken;
+
+    public static boolean holdsSeat(ApplicationStatus status) {
+        return status != null && SEATED.contains(status);
+    }
+}
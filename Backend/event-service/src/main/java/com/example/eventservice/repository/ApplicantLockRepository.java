@@ -0,0 +1,30 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.model.ApplicantLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface ApplicantLockRepository extends JpaRepository<ApplicantLock, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ApplicantLock l WHERE l.applicantId = :applicantId")
+    Optional<ApplicantLock> findForUpdate(@Param("applicantId") Long applicantId);
+
+    // Creates the row on the applicant's first application
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO applicant_lock (applicant_id, schedule_version) VALUES (:applicantId, 0)",
+            nativeQuery = true)
+    int openIfAbsent(@Param("applicantId") Long applicantId);
+
+    // Marks the cached schedules of these applicants stale on every instance
+    @Modifying
+    @Query("UPDATE ApplicantLock l SET l.scheduleVersion = l.scheduleVersion + 1 WHERE l.applicantId IN :applicantIds")
+    int bumpScheduleVersions(@Param("applicantIds") Collection<Long> applicantIds);
+}
@@ -1,10 +1,16 @@
 package com.example.eventservice.repository;
 
+import com.example.eventservice.model.ApplicationStatus;
 import com.example.eventservice.model.EventApplication;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,11 +22,33 @@ public interface EventApplicationRepository extends JpaRepository<EventApplicati
 
     List<EventApplication> findByEventTask(Long taskId);
 
-    List<EventApplication> findByApplicantId(Long runnerId);
+    @Query("SELECT DISTINCT e.applicantId FROM EventApplication e WHERE e.eventTask = :taskId")
+    List<Long> findApplicantIdsByEventTask(@Param("taskId") Long taskId);
+
+    // Re-read under the task's seat lock (taken first), so seat changes act on the current status
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM EventApplication e WHERE e.applicationId = :applicationId")
+    Optional<EventApplication> findForUpdate(@Param("applicationId") Long applicationId);
 
-    // Count how many accepted applications exist for a task
-    @Query("SELECT COUNT(e) FROM EventApplication e WHERE e.eventTask = :taskId AND e.status = 'APPROVED'")
-    long countAcceptedApplicationsByTaskId(@Param("taskId") Long taskId);
+    List<EventApplication> findByApplicantId(Long runnerId);
 
-    int deleteByEventTask(Long taskId); // Optional: used to mass-remove applications
+    // Seats held on a task that has no seat counter yet
+    long countByEventTaskAndStatusIn(Long taskId, Collection<ApplicationStatus> statuses);
+
+    // One DELETE for all applications of a task; returns how many were removed
+    @Modifying
+    @Query("DELETE FROM EventApplication e WHERE e.eventTask = :taskId")
+    int deleteByEventTask(@Param("taskId") Long taskId);
+
+    // One UPDATE for every application of the task in one of `from`; rows already in `status` are left alone
+    @Modifying
+    @Query("UPDATE EventApplication e SET e.status = :status " +
+            "WHERE e.eventTask = :taskId AND e.status IN :from AND e.status <> :status")
+    int updateStatusByEventTask(@Param("taskId") Long taskId,
+                                @Param("from") Collection<ApplicationStatus> from,
+                                @Param("status") ApplicationStatus status);
+
+    // Waitlist of a task, oldest application first
+    List<EventApplication> findByEventTaskAndStatusOrderByApplicationIdAsc(Long taskId, ApplicationStatus status,
+                                                                        Pageable pageable);
 }
@@ -0,0 +1,37 @@
+package com.example.eventservice.repository;
+
+import com.example.eventservice.model.EventSeat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface EventSeatRepository extends JpaRepository<EventSeat, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EventSeat s WHERE s.taskId = :taskId")
+    Optional<EventSeat> findForUpdate(@Param("taskId") Long taskId);
+
+    // Creates the counter on first admission; seats already held by existing applications count as taken.
+    // seated: the names of EventSeat.SEATED
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO event_seat (task_id, capacity, taken) " +
+            "SELECT :taskId, :capacity, COUNT(*) FROM event_application " +
+            "WHERE event_task = :taskId AND status IN :seated",
+            nativeQuery = true)
+    int openIfAbsent(@Param("taskId") Long taskId, @Param("capacity") int capacity,
+                     @Param("seated") Collection<String> seated);
+
+    // After a bulk status change: taken is whatever the task's applications now hold
+    @Modifying
+    @Query(value = "UPDATE event_seat SET taken = (SELECT COUNT(*) FROM event_application " +
+            "WHERE event_task = :taskId AND status IN :seated) " +
+            "WHERE task_id = :taskId",
+            nativeQuery = true)
+    int recount(@Param("taskId") Long taskId, @Param("seated") Collection<String> seated);
+}
@@ -0,0 +1,334 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.DTO.response.FreeWindowResponse;
+import com.example.eventservice.client.TaskScheduleCache;
+import com.example.eventservice.client.TaskScheduleCache.TaskSchedule;
+import com.example.eventservice.model.ApplicantLock;
+import com.example.eventservice.model.ApplicationStatus;
+import com.example.eventservice.model.EventApplication;
+import com.example.eventservice.repository.ApplicantLockRepository;
+import com.example.eventservice.repository.EventApplicationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-applicant {@link ScheduleIntervalTree} over the dates of their active (not WITHDRAWN)
+ * applications, used for the apply-time conflict check and the free-windows query.
+ * <p>
+ * An application locks the applicant's {@link ApplicantLock} row, checks the tree and
+ * saves the application in the same transaction, so two concurrent applications of one
+ * applicant cannot both pass, whichever instance serves them. Every change to the
+ * applicant's active applications bumps the row's schedule version: single applications
+ * (apply, cancel, remove, status change) under the same lock, bulk changes of a task and
+ * edited tasks with one UPDATE afterwards. A cached tree is tagged with the version it
+ * reflects, so an apply whose locked row still has that version checks the cached tree in
+ * O(log n); only a mismatch (a change made elsewhere) reloads the applicant's applications.
+ * A tree built before the lock is taken is used if the version did not move meanwhile,
+ * which keeps task-service calls for the schedule cache out of the lock.
+ * <p>
+ * Changes made through this instance patch its cached tree and move it to the new version
+ * once they commit. Trees also expire after a TTL, which bounds how stale the free-windows
+ * query can be after changes made on another instance. Trees are built without holding the
+ * per-applicant monitor, which only guards installing, patching, checking and reading them.
+ */
+@Component
+public class ApplicantScheduleIndex {
+
+    private static final int STRIPES = 64;
+
+    private static final Consumer<ScheduleIntervalTree> UNCHANGED = tree -> {};
+
+    private record Slot(ScheduleIntervalTree tree, long version, long expiresAt) {}
+
+    private record Check(ScheduleIntervalTree tree, long version, boolean cached, boolean free) {}
+
+    private record Change<T>(T result, long version) {}
+
+    private final EventApplicationRepository applicationRepo;
+    private final ApplicantLockRepository lockRepo;
+    private final TaskScheduleCache taskScheduleCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlNanos;
+    private final int maxApplicants;
+    private final LongSupplier clock;
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+    // applicants known to have a lock row; lets applications skip the open-if-absent statement
+    private final Set<Long> openLocks = ConcurrentHashMap.newKeySet();
+    // bumped by every patch and eviction, so a tree built before one is not cached after it
+    private final AtomicLong changes = new AtomicLong();
+
+    @Autowired
+    public ApplicantScheduleIndex(EventApplicationRepository applicationRepo,
+                                  ApplicantLockRepository lockRepo,
+                                  TaskScheduleCache taskScheduleCache,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${events.schedule-index.ttl-seconds:300}") long ttlSeconds,
+                                  @Value("${events.schedule-index.max-applicants:100000}") int maxApplicants) {
+        this(applicationRepo, lockRepo, taskScheduleCache, transactionTemplate, ttlSeconds, maxApplicants, System::nanoTime);
+    }
+
+    ApplicantScheduleIndex(EventApplicationRepository applicationRepo, ApplicantLockRepository lockRepo,
+                           TaskScheduleCache taskScheduleCache, TransactionTemplate transactionTemplate,
+                           long ttlSeconds, int maxApplicants, LongSupplier clock) {
+        this.applicationRepo = applicationRepo;
+        this.lockRepo = lockRepo;
+        this.taskScheduleCache = taskScheduleCache;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxApplicants = maxApplicants;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Runs {@code save} and records the task if it overlaps none of the applicant's
+     * active applications. Returns false (and saves nothing) on a conflict. {@code save}
+     * runs inside the transaction that holds the applicant's lock row.
+     */
+    public boolean applyIfFree(Long applicantId, Long taskId, TaskSchedule schedule, Runnable save) {
+        long generation = changes.get();
+        Slot prepared = null;
+        if (liveSlot(applicantId) == null) {
+            long version = currentVersion(applicantId);
+            prepared = new Slot(build(applicantId), version, 0L);
+        }
+        LocalDate start = schedule.startDate();
+        LocalDate end = schedule.endDate() != null ? schedule.endDate() : start;
+        Slot built = prepared;
+        Check check = transactionTemplate.execute(status -> {
+            ApplicantLock lock = lockApplicant(applicantId);
+            long version = lock.getScheduleVersion();
+            Check result = checkCached(applicantId, version, start, end);
+            if (result == null) {
+                // nothing cached, or the version moved since: read the applications under the lock
+                ScheduleIntervalTree tree = built != null && built.version() == version ? built.tree() : build(applicantId);
+                result = new Check(tree, version, false, !tree.overlapsAny(start, end));
+            }
+            if (result.free()) {
+                save.run();
+                lock.setScheduleVersion(version + 1);
+            }
+            return result;
+        });
+        if (check.cached()) {
+            if (check.free()) {
+                patch(applicantId, check.version(), check.version() + 1, tree -> tree.insert(taskId, start, end));
+            }
+        } else if (check.free()) {
+            check.tree().insert(taskId, start, end);
+            install(applicantId, check.tree(), check.version() + 1, generation);
+        } else {
+            install(applicantId, check.tree(), check.version(), generation);
+        }
+        return check.free();
+    }
+
+    /**
+     * Runs {@code delete} (cancel, remove or delete of the applicant's application for the
+     * task) under the applicant's lock row and drops the task from the cached tree once it
+     * commits. Returns what {@code delete} returned.
+     */
+    public <T> T release(Long applicantId, Long taskId, Supplier<T> delete) {
+        return locked(applicantId, delete, result -> tree -> tree.remove(taskId));
+    }
+
+    /**
+     * Runs a status change of the applicant's application for the task under the
+     * applicant's lock row. Moving to WITHDRAWN drops the task from the cached tree; moving
+     * out of it drops the cached tree, which is reloaded on the next apply.
+     */
+    public SeatAdmissionService.StatusChange changeStatus(Long applicantId, Long taskId,
+                                                          Supplier<SeatAdmissionService.StatusChange> change) {
+        return locked(applicantId, change, result -> {
+            if (result == null || result.application().getStatus() == result.oldStatus()) {
+                return UNCHANGED;
+            }
+            if (result.application().getStatus() == ApplicationStatus.WITHDRAWN) {
+                return tree -> tree.remove(taskId);
+            }
+            return result.oldStatus() == ApplicationStatus.WITHDRAWN ? null : UNCHANGED;
+        });
+    }
+
+    /**
+     * The applications of a task changed in bulk (deleted, withdrawn) or its dates changed:
+     * marks the given applicants' schedules stale on every instance and drops them here.
+     * Runs after the change committed, so at worst an apply in between sees a conflict that
+     * is already gone.
+     */
+    public void releaseTask(Collection<Long> applicantIds) {
+        if (applicantIds.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> lockRepo.bumpScheduleVersions(applicantIds));
+        applicantIds.forEach(this::evict);
+    }
+
+    /**
+     * Maximal date ranges within [from, to] not covered by any of the applicant's active
+     * applications, in date order.
+     */
+    public List<FreeWindowResponse> freeWindows(Long applicantId, LocalDate from, LocalDate to) {
+        List<FreeWindowResponse> windows = new ArrayList<>();
+        ScheduleIntervalTree tree = cachedTree(applicantId);
+        synchronized (lockFor(applicantId)) {
+            LocalDate[] cursor = {from};
+            tree.forEachMeeting(from, to, interval -> {
+                if (interval.start().isAfter(cursor[0])) {
+                    windows.add(new FreeWindowResponse(cursor[0], interval.start().minusDays(1)));
+                }
+                if (!interval.end().isBefore(cursor[0])) {
+                    cursor[0] = interval.end().plusDays(1);
+                }
+            });
+            if (!cursor[0].isAfter(to)) {
+                windows.add(new FreeWindowResponse(cursor[0], to));
+            }
+        }
+        return windows;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    // runs the change in one transaction with the lock row and a version bump, then patches
+    // the cached tree if it was at the version before; a null patch drops the tree
+    private <T> T locked(Long applicantId, Supplier<T> change,
+                         Function<T, Consumer<ScheduleIntervalTree>> patchFor) {
+        Change<T> done = transactionTemplate.execute(status -> {
+            ApplicantLock lock = lockApplicant(applicantId);
+            T result = change.get();
+            lock.setScheduleVersion(lock.getScheduleVersion() + 1);
+            return new Change<>(result, lock.getScheduleVersion());
+        });
+        patch(applicantId, done.version() - 1, done.version(), patchFor.apply(done.result()));
+        return done.result();
+    }
+
+    // the check on a cached tree that reflects the locked version, or null if there is none
+    private Check checkCached(Long applicantId, long version, LocalDate start, LocalDate end) {
+        synchronized (lockFor(applicantId)) {
+            Slot slot = liveSlot(applicantId);
+            if (slot == null || slot.version() != version) {
+                return null;
+            }
+            return new Check(slot.tree(), version, true, !slot.tree().overlapsAny(start, end));
+        }
+    }
+
+    private void patch(Long applicantId, long fromVersion, long toVersion, Consumer<ScheduleIntervalTree> patch) {
+        synchronized (lockFor(applicantId)) {
+            changes.incrementAndGet();
+            Slot slot = slots.get(applicantId);
+            if (slot == null) {
+                return;
+            }
+            if (patch == null || slot.version() != fromVersion) {
+                slots.remove(applicantId);
+                return;
+            }
+            patch.accept(slot.tree());
+            slots.put(applicantId, new Slot(slot.tree(), toVersion, slot.expiresAt()));
+        }
+    }
+
+    private void evict(Long applicantId) {
+        synchronized (lockFor(applicantId)) {
+            changes.incrementAndGet();
+            slots.remove(applicantId);
+        }
+    }
+
+    private Slot liveSlot(Long applicantId) {
+        Slot slot = slots.get(applicantId);
+        return slot != null && clock.getAsLong() - slot.expiresAt() < 0 ? slot : null;
+    }
+
+    private ScheduleIntervalTree cachedTree(Long applicantId) {
+        synchronized (lockFor(applicantId)) {
+            Slot slot = liveSlot(applicantId);
+            if (slot != null) {
+                return slot.tree();
+            }
+        }
+        long generation = changes.get();
+        long version = currentVersion(applicantId);
+        ScheduleIntervalTree tree = build(applicantId);
+        install(applicantId, tree, version, generation);
+        return tree;
+    }
+
+    // read before the applications, so a change committed in between leaves the tree tagged older
+    private long currentVersion(Long applicantId) {
+        return lockRepo.findById(applicantId).map(ApplicantLock::getScheduleVersion).orElse(0L);
+    }
+
+    // reads the database and the schedule cache; callers hold no monitor
+    private ScheduleIntervalTree build(Long applicantId) {
+        List<EventApplication> applications = applicationRepo.findByApplicantId(applicantId);
+        List<Long> taskIds = activeTaskIds(applications);
+        Map<Long, TaskSchedule> schedules = taskIds.isEmpty() ? Map.of() : taskScheduleCache.getAll(taskIds);
+        ScheduleIntervalTree tree = new ScheduleIntervalTree();
+        for (Long taskId : taskIds) {
+            TaskSchedule schedule = schedules.get(taskId);
+            if (schedule != null) {
+                tree.insert(taskId, schedule.startDate(), schedule.endDate());
+            }
+        }
+        return tree;
+    }
+
+    // caches the tree unless a patch or eviction happened since it was built
+    private void install(Long applicantId, ScheduleIntervalTree tree, long version, long generation) {
+        synchronized (lockFor(applicantId)) {
+            if (changes.get() != generation) {
+                slots.remove(applicantId);
+                return;
+            }
+            long now = clock.getAsLong();
+            if (slots.size() >= maxApplicants) {
+                slots.values().removeIf(s -> now - s.expiresAt() >= 0);
+                if (slots.size() >= maxApplicants) {
+                    // still full of live trees; start over rather than grow without bound
+                    slots.clear();
+                }
+            }
+            slots.put(applicantId, new Slot(tree, version, now + ttlNanos));
+        }
+    }
+
+    private static List<Long> activeTaskIds(List<EventApplication> applications) {
+        return applications.stream()
+                .filter(app -> app.getStatus() != ApplicationStatus.WITHDRAWN)
+                .map(EventApplication::getEventTask)
+                .toList();
+    }
+
+    private ApplicantLock lockApplicant(Long applicantId) {
+        if (!openLocks.contains(applicantId) && lockRepo.openIfAbsent(applicantId) == 0) {
+            // already there before this transaction, so safe to remember
+            openLocks.add(applicantId);
+        }
+        return lockRepo.findForUpdate(applicantId)
+                .orElseThrow(() -> new IllegalStateException("No lock row for applicant " + applicantId));
+    }
+
+    private Object lockFor(Long applicantId) {
+        return locks[(applicantId.hashCode() & 0x7fffffff) % STRIPES];
+    }
+}
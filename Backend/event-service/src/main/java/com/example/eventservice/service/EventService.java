@@ -2,47 +2,77 @@ package com.example.eventservice.service;
 
 import com.example.eventservice.DTO.request.EventRequest;
 import com.example.eventservice.DTO.response.EventResponse;
+import com.example.eventservice.DTO.response.FreeWindowResponse;
 import com.example.eventservice.DTO.response.TaskResponse;
 import com.example.eventservice.client.TaskClient;
+import com.example.eventservice.client.TaskScheduleCache;
+import com.example.eventservice.client.TaskScheduleCache.TaskSchedule;
 import com.example.eventservice.client.UserClient;
 import com.example.eventservice.model.ApplicationStatus;
 import com.example.eventservice.model.EventApplication;
 import com.example.eventservice.repository.EventApplicationRepository;
+import feign.FeignException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class EventService {
 
+    // a runner may only cancel before being accepted
+    private static final Set<ApplicationStatus> CANCELLABLE = EnumSet.of(ApplicationStatus.PENDING, ApplicationStatus.WAITLISTED);
+    private static final Set<ApplicationStatus> ANY_STATUS = EnumSet.allOf(ApplicationStatus.class);
+
     private final EventApplicationRepository applicationRepo;
     private final TaskClient taskClient;
     private final UserClient userClient;
+    private final TaskScheduleCache taskScheduleCache;
+    private final ApplicantScheduleIndex scheduleIndex;
+    private final SeatAdmissionService seatAdmission;
 
     @Autowired
-    public EventService(EventApplicationRepository applicationRepo, TaskClient taskClient, UserClient userClient) {
+    public EventService(EventApplicationRepository applicationRepo, TaskClient taskClient, UserClient userClient,
+                        TaskScheduleCache taskScheduleCache, ApplicantScheduleIndex scheduleIndex,
+                        SeatAdmissionService seatAdmission) {
         this.applicationRepo = applicationRepo;
         this.taskClient = taskClient;
         this.userClient = userClient;
+        this.taskScheduleCache = taskScheduleCache;
+        this.scheduleIndex = scheduleIndex;
+        this.seatAdmission = seatAdmission;
     }
 
     /**
      * Validates and processes a new event application.
-     * Ensures the task exists, the applicant hasn't applied before, and the required people limit isn't exceeded.
+     * Ensures the task exists, the applicant hasn't applied before and has no overlapping event.
+     * A full event puts the applicant on its waitlist (still counts as applied).
      */
     public boolean validateAndApply(EventRequest req) {
+        return apply(req) != null;
+    }
+
+    /**
+     * Same as {@link #validateAndApply} but tells how the application was stored:
+     * PENDING (got a seat), WAITLISTED, or null if it was rejected.
+     */
+    public ApplicationStatus apply(EventRequest req) {
         if (req.getTaskId() == null || req.getApplicantId() == null) {
-            return false;
+            return null;
         }
         try{
             // ✅ Check if user exists (optional cross-service validation)
             if(!userClient.existsById(req.getApplicantId())){
-                return false;
+                return null;
             }
         }catch (Exception e){
             System.err.println("Failed to check if user exits: "+e.getMessage());
@@ -52,61 +82,36 @@ public class EventService {
 
         // 🛑 Reject duplicate applications
         boolean alreadyApplied = applicationRepo.existsByApplicantIdAndEventTask(req.getApplicantId(), req.getTaskId());
-        if (alreadyApplied) return false;
-
-        // ✅ Confirm task exists
-        TaskResponse newTask = taskClient.getEventTaskById(req.getTaskId());
-        if (newTask == null) return false;
-
-        // 🧮 Check capacity
-        List<EventApplication> currentApplications = applicationRepo.findByEventTask(req.getTaskId());
-        if (currentApplications.size() >= newTask.getRequiredPeople()) return false;
-
-        // ⏳ Check time conflict with other applications
-        List<EventApplication> applicantApplications = applicationRepo.findByApplicantId(req.getApplicantId());
-
-        for (EventApplication app : applicantApplications) {
-            // Skip same task (already checked for duplicates above)
-            if (app.getEventTask().equals(req.getTaskId())) continue;
-
-            TaskResponse existingTask = taskClient.getEventTaskById(app.getEventTask());
-
-            if (existingTask == null) continue;
-
-            // Null-safe fallback
-            LocalDate newStart = newTask.getStartDate();
-            LocalDate newEnd = newTask.getEndDate() != null ? newTask.getEndDate() : newStart;
-
-            LocalDate existingStart = existingTask.getStartDate();
-            LocalDate existingEnd = existingTask.getEndDate() != null ? existingTask.getEndDate() : existingStart;
-
-            boolean overlap = (newStart.isBefore(existingEnd.plusDays(1)) && newEnd.isAfter(existingStart.minusDays(1)));
-
-            if (overlap) {
-                // 🛑 Found overlapping task
-                return false;
-            }
-        }
-        }catch (Exception e){
+        if (alreadyApplied) return null;
+
+        // ✅ Confirm task exists (schedule cache, at most one call to task-service)
+        TaskSchedule newTask = taskScheduleCache.getAll(List.of(req.getTaskId())).get(req.getTaskId());
+        if (newTask == null) return null;
+
+        // ⏳ Check time conflict under the applicant's lock row, against the cached schedule
+        // when its version matches the row and the stored applications otherwise; the save
+        // runs in that transaction, so it only happens if there is no overlap, whichever
+        // instance handles the other applications.
+        // 🧮 Capacity: the save takes a seat from the task's counter row or joins the waitlist
+        ApplicationStatus[] admitted = {null};
+        boolean free = scheduleIndex.applyIfFree(req.getApplicantId(), req.getTaskId(), newTask,
+                () -> admitted[0] = seatAdmission.admit(newApplication(req), newTask.requiredPeople()).getStatus());
+        return free ? admitted[0] : null;
+        }catch (FeignException e){
+            // without the task's dates and capacity the application can be neither checked
+            // nor seated; the runner can apply again once task-service answers
             System.err.println("Failed to retrieve task: "+e.getMessage());
+            return null;
         }
-        // ✅ Proceed to apply
-        applyToEventTask(req);
-        return true;
     }
 
-    /**
-     * Actually stores the application in the DB.
-     * Sets default status to PENDING.
-     */
-    public EventApplication applyToEventTask(EventRequest req) {
+    private EventApplication newApplication(EventRequest req) {
         EventApplication app = new EventApplication();
         app.setApplicantId(req.getApplicantId());
         app.setEventTask(req.getTaskId());
         app.setComment(req.getComment());
         app.setProfileResumeLink(req.getResumeLink());
-        app.setStatus(ApplicationStatus.PENDING); // ✅ Default state
-        return applicationRepo.save(app);
+        return app;
     }
 
     /**
@@ -116,33 +121,83 @@ public class EventService {
     public boolean cancelApplication(Long runnerId, Long taskId) {
         Optional<EventApplication> optionalApp = applicationRepo.findByApplicantIdAndEventTask(runnerId, taskId);
         if (optionalApp.isEmpty()) return false;
-        if(optionalApp.get().getStatus()!=ApplicationStatus.PENDING) return false;
-        applicationRepo.delete(optionalApp.get());
+        // the status is checked again under the seat lock; a freed seat goes to the first
+        // runner on the waitlist, and a concurrent cancel finds nothing left to delete
+        Long applicationId = optionalApp.get().getApplicationId();
+        if (scheduleIndex.release(runnerId, taskId,
+                () -> seatAdmission.delete(taskId, applicationId, CANCELLABLE)) == null) return false;
        // taskClient.removeRunnerFromEventTask(taskId, runnerId);
 
         return true;
     }
 
-    public boolean removeApplication(Long runnerId, Long taskId) {
+    public enum Removal { REMOVED, NOT_FOUND }
+
+    /**
+     * Removes the runner's application whatever its status. NOT_FOUND means there is no
+     * application of this runner for this task (never applied, or already removed, also by
+     * a concurrent removal); any other failure is thrown.
+     */
+    public Removal removeApplication(Long runnerId, Long taskId) {
         Optional<EventApplication> optionalApp = applicationRepo.findByApplicantIdAndEventTask(runnerId, taskId);
-        if (optionalApp.isEmpty()) return false;
+        if (optionalApp.isEmpty()) return Removal.NOT_FOUND;
        // if(optionalApp.get().getStatus()==ApplicationStatus.PAID) return false;
-        applicationRepo.delete(optionalApp.get());
+        // every status is deletable, so null can only mean the row is gone
+        Long applicationId = optionalApp.get().getApplicationId();
+        if (scheduleIndex.release(runnerId, taskId,
+                () -> seatAdmission.delete(taskId, applicationId, ANY_STATUS)) == null) return Removal.NOT_FOUND;
 
-        return true;
+        return Removal.REMOVED;
     }
 
     /**
      * Returns all event tasks a runner has applied to (excluding WITHDRAWN).
      */
     public List<TaskResponse> getTasksForRunner(Long runnerId) {
-        return applicationRepo.findByApplicantId(runnerId)
+        List<Long> taskIds = applicationRepo.findByApplicantId(runnerId)
                 .stream()
                 .filter(app -> app.getStatus() != ApplicationStatus.WITHDRAWN)
                 .map(EventApplication::getEventTask) // ✅ This is already the taskId (Long)
                 .distinct()
-                .map(taskClient::getEventTaskById)
                 .collect(Collectors.toList());
+        if (taskIds.isEmpty()) return List.of();
+
+        // one call per batch the task-service accepts, answered in application order
+        Map<Long, TaskResponse> tasks = new HashMap<>();
+        for (int from = 0; from < taskIds.size(); from += TaskClient.MAX_BATCH_IDS) {
+            taskClient.getEventTasksByIds(taskIds.subList(from, Math.min(taskIds.size(), from + TaskClient.MAX_BATCH_IDS)))
+                    .forEach(t -> tasks.putIfAbsent(t.getTaskId(), t));
+        }
+        return taskIds.stream()
+                .map(tasks::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // called by task-service (via its outbox) after an event task was edited or deleted
+    public void invalidateTaskCache(Long taskId) {
+        taskScheduleCache.invalidate(taskId);
+        scheduleIndex.releaseTask(applicationRepo.findApplicantIdsByEventTask(taskId));
+        // requiredPeople may have gone up; seat the waitlist accordingly
+        try {
+            TaskSchedule schedule = taskScheduleCache.getAll(List.of(taskId)).get(taskId);
+            if (schedule != null) {
+                seatAdmission.promote(taskId, schedule.requiredPeople());
+            }
+        } catch (FeignException e) {
+            System.err.println("Failed to refresh seats of task " + taskId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Date ranges within [from, to] in which the runner has no active application,
+     * served from the applicant's interval index.
+     */
+    public List<FreeWindowResponse> getFreeWindows(Long runnerId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return scheduleIndex.freeWindows(runnerId, from, to);
     }
     /**
      * Gets all applicants (with DTOs) for a specific task.
@@ -168,9 +223,12 @@ public class EventService {
 
         if (app.getStatus() == ApplicationStatus.APPROVED) return false; // Already approved
 
-        // ✅ Update status and save
-        app.setStatus(ApplicationStatus.APPROVED);
-        applicationRepo.save(app);
+        // ✅ Update status and save (approving a waitlisted runner takes a seat even if full)
+        Long taskId = app.getEventTask();
+        SeatAdmissionService.StatusChange change = scheduleIndex.changeStatus(app.getApplicantId(), taskId,
+                () -> seatAdmission.changeStatus(taskId, applicationId, ApplicationStatus.APPROVED));
+        if (change == null || change.oldStatus() == ApplicationStatus.APPROVED) return false; // removed or approved meanwhile
+        app = change.application();
 
         // 🔁 Notify task-service to assign runner
         try {
@@ -191,36 +249,47 @@ public class EventService {
             throw new IllegalStateException("Status already set to " + newStatus);
         }
 
-        app.setStatus(newStatus);
-        applicationRepo.save(app);
+        Long taskId = app.getEventTask();
+        SeatAdmissionService.StatusChange change = scheduleIndex.changeStatus(app.getApplicantId(), taskId,
+                () -> seatAdmission.changeStatus(taskId, applicationId, newStatus));
+        if (change == null) {
+            throw new EntityNotFoundException("Application not found");
+        }
+        if (change.oldStatus() == newStatus) {
+            throw new IllegalStateException("Status already set to " + newStatus);
+        }
     }
 
-     public void updateStatusForAllRunners(Long taskId, ApplicationStatus newStatus) {
-       List <EventApplication> apps = applicationRepo.findByEventTask(taskId);
-       for (EventApplication app : apps) {
-
-           if (app.getStatus() == newStatus) {
-               throw new IllegalStateException("Status already set to " + newStatus);
-           }
-
-           app.setStatus(newStatus);
-           applicationRepo.save(app);
-       }
+    /**
+     * Moves every participating (seated) application of the task to the new status in one
+     * statement. Idempotent: applications already in that status are skipped.
+     *
+     * @return the number of applications changed
+     */
+    public int updateStatusForAllRunners(Long taskId, ApplicationStatus newStatus) {
+        int changed = seatAdmission.updateStatusForTask(taskId, newStatus);
+        // WITHDRAWN applications do not block dates; the seated ones never were WITHDRAWN, so
+        // no other target status changes the applicants' schedules
+        if (changed > 0 && newStatus == ApplicationStatus.WITHDRAWN) {
+            scheduleIndex.releaseTask(applicationRepo.findApplicantIdsByEventTask(taskId));
+        }
+        return changed;
     }
     // delete all applications for a task
 
-    public void deleteAllApplicationsForTask(Long taskId) {
-        List<EventApplication> apps=applicationRepo.findByEventTask(taskId);
-        applicationRepo.deleteAll(apps);
-
+    public int deleteAllApplicationsForTask(Long taskId) {
+        // read before the delete, which leaves nothing to find the applicants by
+        List<Long> applicantIds = applicationRepo.findApplicantIdsByEventTask(taskId);
+        int deleted = seatAdmission.deleteAllForTask(taskId);
+        scheduleIndex.releaseTask(applicantIds);
+        return deleted;
     }
-    //retrieve remaining seats for an event
+    //retrieve remaining seats for an event: capacity from the schedule cache, taken seats from the counter
     public int getRemainingSeats(Long taskId) {
     try {
-        TaskResponse task = taskClient.getEventTaskById(taskId);
+        TaskSchedule task = taskScheduleCache.getAll(List.of(taskId)).get(taskId);
         if (task == null) return 0;
-        long acceptedCount = applicationRepo.countAcceptedApplicationsByTaskId(taskId);
-        return task.getRequiredPeople() - (int) acceptedCount;
+        return seatAdmission.remainingSeats(taskId, task.requiredPeople());
     }catch (Exception e){
         System.err.println(e.getMessage());
     }
@@ -0,0 +1,178 @@
+package com.example.eventservice.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Interval tree over the date ranges of one applicant's tasks.
+ * <p>
+ * A treap ordered by (start, taskId) where every node also keeps the latest end date in
+ * its subtree, so subtrees that end before a query range are skipped: finding a conflict
+ * is O(log n) and listing the k intervals that meet a range is O(k + log n). Ranges
+ * include both end days. Not thread-safe; {@link ApplicantScheduleIndex} guards each tree.
+ */
+class ScheduleIntervalTree {
+
+    record Interval(Long taskId, LocalDate start, LocalDate end) {
+
+        boolean meets(LocalDate from, LocalDate to) {
+            return !start.isAfter(to) && !end.isBefore(from);
+        }
+    }
+
+    private static final class Node {
+        final Interval interval;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        LocalDate maxEnd;
+        Node left;
+        Node right;
+
+        Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private Node root;
+    private final Map<Long, Interval> byTask = new HashMap<>();
+
+    int size() {
+        return byTask.size();
+    }
+
+    boolean contains(Long taskId) {
+        return byTask.containsKey(taskId);
+    }
+
+    // replaces the task's previous range, if any
+    void insert(Long taskId, LocalDate start, LocalDate end) {
+        remove(taskId);
+        Interval interval = new Interval(taskId, start, end != null ? end : start);
+        root = insert(root, new Node(interval));
+        byTask.put(taskId, interval);
+    }
+
+    void remove(Long taskId) {
+        Interval interval = byTask.remove(taskId);
+        if (interval != null) {
+            root = remove(root, interval);
+        }
+    }
+
+    boolean overlapsAny(LocalDate from, LocalDate to) {
+        Node node = root;
+        while (node != null) {
+            if (node.interval.meets(from, to)) {
+                return true;
+            }
+            // anything on the left that reaches `from` would overlap, since it starts earlier
+            if (node.left != null && !node.left.maxEnd.isBefore(from)) {
+                node = node.left;
+            } else if (node.interval.start().isAfter(to)) {
+                return false;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    // every interval meeting [from, to], in start order
+    void forEachMeeting(LocalDate from, LocalDate to, Consumer<Interval> action) {
+        visit(root, from, to, action);
+    }
+
+    private void visit(Node node, LocalDate from, LocalDate to, Consumer<Interval> action) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        visit(node.left, from, to, action);
+        if (node.interval.start().isAfter(to)) {
+            return;
+        }
+        if (node.interval.meets(from, to)) {
+            action.accept(node.interval);
+        }
+        visit(node.right, from, to, action);
+    }
+
+    private static int compare(Interval a, Interval b) {
+        int c = a.start().compareTo(b.start());
+        return c != 0 ? c : a.taskId().compareTo(b.taskId());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.interval, node.interval) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node remove(Node node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(interval, node.interval);
+        if (c < 0) {
+            node.left = remove(node.left, interval);
+        } else if (c > 0) {
+            node.right = remove(node.right, interval);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = remove(node.right, interval);
+        } else {
+            node = rotateLeft(node);
+            node.left = remove(node.left, interval);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        LocalDate max = node.interval.end();
+        if (node.left != null && node.left.maxEnd.isAfter(max)) {
+            max = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(max)) {
+            max = node.right.maxEnd;
+        }
+        node.maxEnd = max;
+    }
+}
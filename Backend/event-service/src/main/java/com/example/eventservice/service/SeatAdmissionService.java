@@ -0,0 +1,216 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.model.ApplicationStatus;
+import com.example.eventservice.model.EventApplication;
+import com.example.eventservice.model.EventSeat;
+import com.example.eventservice.repository.EventApplicationRepository;
+import com.example.eventservice.repository.EventSeatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admits applicants to an event task against its {@link EventSeat} counter.
+ * <p>
+ * Admission locks the task's seat row, takes a seat if one is left (PENDING) or puts the
+ * applicant on the waitlist (WAITLISTED), and saves the application in the same
+ * transaction, so capacity is exact under any number of concurrent applies and nothing
+ * has to load the task's application list. When a seated application goes away, its seat
+ * passes straight to the oldest waitlisted applicant; only if nobody waits is it freed.
+ * Every change to who holds a seat goes through here, and always locks the seat row
+ * before any application row, so the operations serialize per task without deadlocking.
+ * An admission, delete or status change of one application may already hold the
+ * applicant's lock row ({@link ApplicantScheduleIndex}), which nothing takes after a seat row.
+ * Deletes and status changes re-read the application under that lock and act on its
+ * current status, not on a copy the caller loaded earlier.
+ */
+@Service
+public class SeatAdmissionService {
+
+    // outcome of changeStatus: the application as saved and the status it had under the lock
+    public record StatusChange(EventApplication application, ApplicationStatus oldStatus) {}
+
+    private final EventSeatRepository seatRepo;
+    private final EventApplicationRepository applicationRepo;
+
+    // tasks known to have a seat row; lets admissions skip the open-if-absent statement
+    private final Set<Long> openSeats = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SeatAdmissionService(EventSeatRepository seatRepo, EventApplicationRepository applicationRepo) {
+        this.seatRepo = seatRepo;
+        this.applicationRepo = applicationRepo;
+    }
+
+    /**
+     * Saves a new application as PENDING if the task has a free seat, WAITLISTED otherwise.
+     *
+     * @param capacity the task's current requiredPeople
+     */
+    @Transactional
+    public EventApplication admit(EventApplication app, int capacity) {
+        EventSeat seat = lockSeat(app.getEventTask(), capacity);
+        seat.setCapacity(capacity);
+        if (seat.getTaken() < capacity) {
+            seat.setTaken(seat.getTaken() + 1);
+            app.setStatus(ApplicationStatus.PENDING);
+        } else {
+            app.setStatus(ApplicationStatus.WAITLISTED);
+        }
+        return applicationRepo.save(app);
+    }
+
+    /**
+     * Deletes one application if its current status is one of {@code deletable}; a seat it
+     * held goes to the waitlist. Of two concurrent deletes only the first finds the row.
+     *
+     * @return the deleted application, or null if it is gone or not deletable
+     */
+    @Transactional
+    public EventApplication delete(Long taskId, Long applicationId, Set<ApplicationStatus> deletable) {
+        Optional<EventSeat> seat = seatRepo.findForUpdate(taskId);
+        EventApplication app = lockApplication(taskId, applicationId);
+        if (app == null || !deletable.contains(app.getStatus())) {
+            return null;
+        }
+        applicationRepo.delete(app);
+        if (EventSeat.holdsSeat(app.getStatus())) {
+            seat.ifPresent(this::releaseSeat);
+        }
+        return app;
+    }
+
+    /**
+     * Saves a status change and moves the seat with it: leaving the seated statuses frees
+     * the seat (for the waitlist), entering them (e.g. the poster approves a waitlisted
+     * runner) takes one even if the event is full. Nothing changes if the application
+     * already has {@code newStatus}.
+     *
+     * @return the application and its previous status, or null if it no longer exists
+     */
+    @Transactional
+    public StatusChange changeStatus(Long taskId, Long applicationId, ApplicationStatus newStatus) {
+        Optional<EventSeat> seat = seatRepo.findForUpdate(taskId);
+        EventApplication app = lockApplication(taskId, applicationId);
+        if (app == null) {
+            return null;
+        }
+        ApplicationStatus oldStatus = app.getStatus();
+        if (oldStatus == newStatus) {
+            return new StatusChange(app, oldStatus);
+        }
+        app.setStatus(newStatus);
+        applicationRepo.save(app);
+
+        boolean held = EventSeat.holdsSeat(oldStatus);
+        boolean holds = EventSeat.holdsSeat(newStatus);
+        if (held && !holds) {
+            seat.ifPresent(this::releaseSeat);
+        } else if (!held && holds) {
+            seat.ifPresent(s -> s.setTaken(s.getTaken() + 1));
+        }
+        return new StatusChange(app, oldStatus);
+    }
+
+    // seats left on a task of the given capacity, from its counter row when it has one
+    @Transactional(readOnly = true)
+    public int remainingSeats(Long taskId, int capacity) {
+        int taken = seatRepo.findById(taskId)
+                .map(EventSeat::getTaken)
+                .orElseGet(() -> (int) applicationRepo.countByEventTaskAndStatusIn(taskId, EventSeat.SEATED));
+        return Math.max(0, capacity - taken);
+    }
+
+    /**
+     * Fills seats from the waitlist up to {@code capacity}, e.g. after the task's
+     * requiredPeople was raised. Returns the number of promoted applicants.
+     */
+    @Transactional
+    public int promote(Long taskId, int capacity) {
+        Optional<EventSeat> locked = seatRepo.findForUpdate(taskId);
+        if (locked.isEmpty()) {
+            return 0; // nobody was ever admitted through the counter, so nobody waits
+        }
+        EventSeat seat = locked.get();
+        seat.setCapacity(capacity);
+        int free = capacity - seat.getTaken();
+        if (free <= 0) {
+            return 0;
+        }
+        List<EventApplication> next = applicationRepo.findByEventTaskAndStatusOrderByApplicationIdAsc(
+                taskId, ApplicationStatus.WAITLISTED, PageRequest.of(0, free));
+        for (EventApplication app : next) {
+            app.setStatus(ApplicationStatus.PENDING);
+        }
+        applicationRepo.saveAll(next);
+        seat.setTaken(seat.getTaken() + next.size());
+        return next.size();
+    }
+
+    /**
+     * Moves every seated application of the task to {@code newStatus} with one UPDATE.
+     * Waitlisted and withdrawn runners did not take part and are left alone, as are rows
+     * already in the target status, so a repeated call changes nothing.
+     *
+     * @return the number of applications changed
+     */
+    @Transactional
+    public int updateStatusForTask(Long taskId, ApplicationStatus newStatus) {
+        // seat row first, the same lock order as admit()
+        boolean counted = seatRepo.findForUpdate(taskId).isPresent();
+        int changed = applicationRepo.updateStatusByEventTask(taskId, EventSeat.SEATED, newStatus);
+        if (counted && changed > 0 && !EventSeat.holdsSeat(newStatus)) {
+            seatRepo.recount(taskId, EventSeat.SEATED_NAMES);
+        }
+        return changed;
+    }
+
+    // deletes all applications of the task and its seat counter with one statement each
+    @Transactional
+    public int deleteAllForTask(Long taskId) {
+        seatRepo.findForUpdate(taskId);
+        int deleted = applicationRepo.deleteByEventTask(taskId);
+        seatRepo.deleteById(taskId);
+        openSeats.remove(taskId);
+        return deleted;
+    }
+
+    // caller holds the seat lock; a legacy task without a seat row is counted on its next admission
+    private void releaseSeat(EventSeat seat) {
+        Long taskId = seat.getTaskId();
+        // after the capacity was lowered the seat is not handed on until the event fits again
+        if (seat.getTaken() <= seat.getCapacity()) {
+            List<EventApplication> next = applicationRepo.findByEventTaskAndStatusOrderByApplicationIdAsc(
+                    taskId, ApplicationStatus.WAITLISTED, PageRequest.of(0, 1));
+            if (!next.isEmpty()) {
+                // the seat passes straight on, taken stays the same
+                next.get(0).setStatus(ApplicationStatus.PENDING);
+                applicationRepo.save(next.get(0));
+                return;
+            }
+        }
+        seat.setTaken(Math.max(0, seat.getTaken() - 1));
+    }
+
+    // only after the seat row is locked
+    private EventApplication lockApplication(Long taskId, Long applicationId) {
+        return applicationRepo.findForUpdate(applicationId)
+                .filter(app -> taskId.equals(app.getEventTask()))
+                .orElse(null);
+    }
+
+    private EventSeat lockSeat(Long taskId, int capacity) {
+        if (!openSeats.contains(taskId) && seatRepo.openIfAbsent(taskId, capacity, EventSeat.SEATED_NAMES) == 0) {
+            // already there before this transaction, so safe to remember
+            openSeats.add(taskId);
+        }
+        return seatRepo.findForUpdate(taskId)
+                .orElseThrow(() -> new IllegalStateException("No seat counter for task " + taskId));
+    }
+}
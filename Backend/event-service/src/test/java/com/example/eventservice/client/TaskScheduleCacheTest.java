@@ -0,0 +1,89 @@
+package com.example.eventservice.client;
+
+import com.example.eventservice.DTO.response.TaskResponse;
+import com.example.eventservice.client.TaskScheduleCache.TaskSchedule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskScheduleCacheTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Mock
+    private TaskClient taskClient;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private TaskScheduleCache cache() {
+        return new TaskScheduleCache(taskClient, 600, 1000, now::get);
+    }
+
+    private static TaskResponse task(long id, String start, String end) {
+        return TaskResponse.builder()
+                .taskId(id)
+                .startDate(LocalDate.parse(start))
+                .endDate(end == null ? null : LocalDate.parse(end))
+                .requiredPeople(3)
+                .build();
+    }
+
+    @Test
+    void testMissesAreFetchedWithOneCallAndThenCached() {
+        when(taskClient.getEventTasksByIds(anyCollection()))
+                .thenReturn(List.of(task(1, "2025-06-01", "2025-06-03"), task(2, "2025-06-10", null)));
+        TaskScheduleCache cache = cache();
+
+        Map<Long, TaskSchedule> first = cache.getAll(List.of(1L, 2L, 3L));
+        Map<Long, TaskSchedule> second = cache.getAll(List.of(1L, 2L));
+
+        assertEquals(Set.of(1L, 2L), first.keySet());
+        assertEquals(first, second);
+        verify(taskClient, times(1)).getEventTasksByIds(anyCollection());
+        verify(taskClient, never()).getEventTaskById(anyLong());
+    }
+
+    @Test
+    void testLargeMissSetIsFetchedInBatchesTheTaskServiceAccepts() {
+        when(taskClient.getEventTasksByIds(anyCollection())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            assertTrue(ids.size() <= TaskClient.MAX_BATCH_IDS);
+            return ids.stream().map(id -> task(id, "2025-06-01", null)).toList();
+        });
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().toList();
+
+        assertEquals(1200, cache().getAll(ids).size());
+        verify(taskClient, times(3)).getEventTasksByIds(anyCollection());
+    }
+
+    @Test
+    void testInvalidateAndExpiryRefetch() {
+        when(taskClient.getEventTasksByIds(anyCollection()))
+                .thenReturn(List.of(task(1, "2025-06-01", null)))
+                .thenReturn(List.of(task(1, "2025-07-01", null)))
+                .thenReturn(List.of(task(1, "2025-08-01", null)));
+        TaskScheduleCache cache = cache();
+
+        cache.getAll(List.of(1L));
+        cache.invalidate(1L);
+        assertEquals(LocalDate.parse("2025-07-01"), cache.getAll(List.of(1L)).get(1L).startDate());
+        now.addAndGet(601 * SECOND);
+        assertEquals(LocalDate.parse("2025-08-01"), cache.getAll(List.of(1L)).get(1L).startDate());
+
+        verify(taskClient, times(3)).getEventTasksByIds(anyCollection());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.DTO.response.FreeWindowResponse;
+import com.example.eventservice.client.TaskScheduleCache;
+import com.example.eventservice.client.TaskScheduleCache.TaskSchedule;
+import com.example.eventservice.model.ApplicantLock;
+import com.example.eventservice.model.ApplicationStatus;
+import com.example.eventservice.model.EventApplication;
+import com.example.eventservice.repository.ApplicantLockRepository;
+import com.example.eventservice.repository.EventApplicationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ScheduleIntervalTreeTest {
+
+    private static final LocalDate BASE = LocalDate.parse("2025-01-01");
+
+    @Test
+    void testMatchesBruteForceUnderRandomChanges() {
+        Random random = new Random(42);
+        ScheduleIntervalTree tree = new ScheduleIntervalTree();
+        Map<Long, LocalDate[]> expected = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            long taskId = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                tree.remove(taskId);
+                expected.remove(taskId);
+            } else {
+                LocalDate start = BASE.plusDays(random.nextInt(365));
+                LocalDate end = start.plusDays(random.nextInt(10));
+                tree.insert(taskId, start, end);
+                expected.put(taskId, new LocalDate[]{start, end});
+            }
+
+            LocalDate from = BASE.plusDays(random.nextInt(365));
+            LocalDate to = from.plusDays(random.nextInt(20));
+            Set<Long> meeting = new HashSet<>();
+            for (Map.Entry<Long, LocalDate[]> e : expected.entrySet()) {
+                if (!e.getValue()[0].isAfter(to) && !e.getValue()[1].isBefore(from)) {
+                    meeting.add(e.getKey());
+                }
+            }
+            Set<Long> visited = new HashSet<>();
+            tree.forEachMeeting(from, to, interval -> visited.add(interval.taskId()));
+
+            assertEquals(!meeting.isEmpty(), tree.overlapsAny(from, to));
+            assertEquals(meeting, visited);
+            assertEquals(expected.size(), tree.size());
+        }
+    }
+
+    private final EventApplicationRepository repo = mock(EventApplicationRepository.class);
+    private final ApplicantLockRepository lockRepo = mock(ApplicantLockRepository.class);
+    private final TaskScheduleCache cache = mock(TaskScheduleCache.class);
+    private final ApplicantLock lock = new ApplicantLock(7L, 0L);
+
+    private ApplicantScheduleIndex index() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(lockRepo.findById(7L)).thenReturn(Optional.of(lock));
+        when(lockRepo.findForUpdate(7L)).thenReturn(Optional.of(lock));
+        EventApplication existing = new EventApplication();
+        existing.setApplicantId(7L);
+        existing.setEventTask(1L);
+        existing.setStatus(ApplicationStatus.APPROVED);
+        when(repo.findByApplicantId(7L)).thenReturn(List.of(existing));
+        when(cache.getAll(anyCollection())).thenReturn(Map.of(1L, schedule("2025-06-10", "2025-06-12")));
+        return new ApplicantScheduleIndex(repo, lockRepo, cache, transactionTemplate, 300, 1000, System::nanoTime);
+    }
+
+    @Test
+    void testIndexRejectsOverlapAndListsFreeWindows() {
+        ApplicantScheduleIndex index = index();
+        List<Long> saved = new ArrayList<>();
+
+        assertFalse(index.applyIfFree(7L, 2L, schedule("2025-06-12", null), () -> saved.add(2L)));
+        assertTrue(index.applyIfFree(7L, 3L, schedule("2025-06-14", "2025-06-15"), () -> saved.add(3L)));
+        assertEquals(List.of(3L), saved);
+
+        List<FreeWindowResponse> windows = index.freeWindows(7L, LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-30"));
+        assertEquals(List.of(
+                new FreeWindowResponse(LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-09")),
+                new FreeWindowResponse(LocalDate.parse("2025-06-13"), LocalDate.parse("2025-06-13")),
+                new FreeWindowResponse(LocalDate.parse("2025-06-16"), LocalDate.parse("2025-06-30"))), windows);
+
+        index.release(7L, 1L, () -> true);
+        assertTrue(index.applyIfFree(7L, 2L, schedule("2025-06-12", null), () -> saved.add(2L)));
+        // loaded once; every later check ran on the cached tree, whose version matched the lock row
+        verify(repo, times(1)).findByApplicantId(7L);
+        assertEquals(3L, lock.getScheduleVersion());
+    }
+
+    @Test
+    void testChangeMadeElsewhereReloadsTheApplications() {
+        ApplicantScheduleIndex index = index();
+        assertFalse(index.applyIfFree(7L, 2L, schedule("2025-06-12", null), () -> {}));
+
+        // another instance withdrew the application and bumped the version
+        when(repo.findByApplicantId(7L)).thenReturn(List.of());
+        lock.setScheduleVersion(lock.getScheduleVersion() + 1);
+
+        assertTrue(index.applyIfFree(7L, 2L, schedule("2025-06-12", null), () -> {}));
+        verify(repo, times(2)).findByApplicantId(7L);
+    }
+
+    private static TaskSchedule schedule(String start, String end) {
+        return new TaskSchedule(LocalDate.parse(start), end == null ? null : LocalDate.parse(end), 5);
+    }
+}
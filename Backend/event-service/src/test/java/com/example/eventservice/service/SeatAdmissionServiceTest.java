@@ -0,0 +1,168 @@
+package com.example.eventservice.service;
+
+import com.example.eventservice.model.ApplicationStatus;
+import com.example.eventservice.model.EventApplication;
+import com.example.eventservice.model.EventSeat;
+import com.example.eventservice.repository.EventApplicationRepository;
+import com.example.eventservice.repository.EventSeatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatAdmissionServiceTest {
+
+    @Mock
+    private EventSeatRepository seatRepo;
+
+    @Mock
+    private EventApplicationRepository applicationRepo;
+
+    private SeatAdmissionService service;
+    private EventSeat seat;
+
+    @BeforeEach
+    void setUp() {
+        service = new SeatAdmissionService(seatRepo, applicationRepo);
+        seat = new EventSeat(5L, 2, 0);
+        lenient().when(seatRepo.findForUpdate(5L)).thenReturn(Optional.of(seat));
+        lenient().when(applicationRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void testAdmitsUpToCapacityThenWaitlists() {
+        assertEquals(ApplicationStatus.PENDING, service.admit(application(1L), 2).getStatus());
+        assertEquals(ApplicationStatus.PENDING, service.admit(application(2L), 2).getStatus());
+        assertEquals(ApplicationStatus.WAITLISTED, service.admit(application(3L), 2).getStatus());
+        assertEquals(2, seat.getTaken());
+        // the counter row only has to be opened once
+        verify(seatRepo, times(1)).openIfAbsent(5L, 2, EventSeat.SEATED_NAMES);
+    }
+
+    @Test
+    void testFreedSeatGoesToFirstWaitlisted() {
+        seat.setTaken(2);
+        EventApplication waiting = application(3L);
+        waiting.setStatus(ApplicationStatus.WAITLISTED);
+        when(applicationRepo.findByEventTaskAndStatusOrderByApplicationIdAsc(eq(5L), eq(ApplicationStatus.WAITLISTED), any()))
+                .thenReturn(List.of(waiting));
+        EventApplication leaving = stored(10L, 1L, ApplicationStatus.PENDING);
+
+        assertNotNull(service.delete(5L, 10L, EnumSet.allOf(ApplicationStatus.class)));
+
+        assertEquals(ApplicationStatus.PENDING, waiting.getStatus());
+        assertEquals(2, seat.getTaken());
+        verify(applicationRepo).delete(leaving);
+    }
+
+    @Test
+    void testSecondConcurrentCancelChangesNothing() {
+        seat.setTaken(2);
+        when(applicationRepo.findByEventTaskAndStatusOrderByApplicationIdAsc(eq(5L), eq(ApplicationStatus.WAITLISTED), any()))
+                .thenReturn(List.of());
+        EventApplication leaving = stored(10L, 1L, ApplicationStatus.PENDING);
+        // the second cancel got the seat lock after the first one committed the delete
+        when(applicationRepo.findForUpdate(10L)).thenReturn(Optional.of(leaving), Optional.empty());
+
+        assertNotNull(service.delete(5L, 10L, EnumSet.allOf(ApplicationStatus.class)));
+        assertNull(service.delete(5L, 10L, EnumSet.allOf(ApplicationStatus.class)));
+
+        assertEquals(1, seat.getTaken());
+        verify(applicationRepo, times(1)).delete(any());
+    }
+
+    @Test
+    void testDeleteActsOnTheStatusReadUnderTheLock() {
+        // the caller saw PENDING, but the poster approved the runner meanwhile
+        stored(10L, 1L, ApplicationStatus.APPROVED);
+
+        assertNull(service.delete(5L, 10L, EnumSet.of(ApplicationStatus.PENDING, ApplicationStatus.WAITLISTED)));
+
+        verify(applicationRepo, never()).delete(any());
+        assertEquals(0, seat.getTaken());
+    }
+
+    @Test
+    void testWithdrawWithEmptyWaitlistFreesSeat() {
+        seat.setTaken(2);
+        when(applicationRepo.findByEventTaskAndStatusOrderByApplicationIdAsc(eq(5L), eq(ApplicationStatus.WAITLISTED), any()))
+                .thenReturn(List.of());
+        stored(10L, 1L, ApplicationStatus.APPROVED);
+
+        SeatAdmissionService.StatusChange change = service.changeStatus(5L, 10L, ApplicationStatus.WITHDRAWN);
+
+        assertEquals(ApplicationStatus.APPROVED, change.oldStatus());
+        assertEquals(ApplicationStatus.WITHDRAWN, change.application().getStatus());
+        assertEquals(1, seat.getTaken());
+        // seat row before application row, like admit()
+        InOrder order = inOrder(seatRepo, applicationRepo);
+        order.verify(seatRepo).findForUpdate(5L);
+        order.verify(applicationRepo).findForUpdate(10L);
+    }
+
+    @Test
+    void testRepeatedStatusChangeMovesNoSeat() {
+        seat.setTaken(1);
+        stored(10L, 1L, ApplicationStatus.WAITLISTED);
+
+        service.changeStatus(5L, 10L, ApplicationStatus.APPROVED);
+        service.changeStatus(5L, 10L, ApplicationStatus.APPROVED);
+
+        assertEquals(2, seat.getTaken());
+        verify(applicationRepo, times(1)).save(any());
+    }
+
+    @Test
+    void testRaisedCapacityPromotesInOrder() {
+        seat.setTaken(2);
+        EventApplication first = application(3L);
+        EventApplication second = application(4L);
+        first.setStatus(ApplicationStatus.WAITLISTED);
+        second.setStatus(ApplicationStatus.WAITLISTED);
+        when(applicationRepo.findByEventTaskAndStatusOrderByApplicationIdAsc(eq(5L), eq(ApplicationStatus.WAITLISTED), any()))
+                .thenReturn(List.of(first, second));
+
+        assertEquals(2, service.promote(5L, 4));
+        assertEquals(4, seat.getTaken());
+        assertEquals(ApplicationStatus.PENDING, first.getStatus());
+        assertEquals(ApplicationStatus.PENDING, second.getStatus());
+    }
+
+    @Test
+    void testBulkStatusUpdateOnlyRecountsWhenSeatsAreFreed() {
+        when(applicationRepo.updateStatusByEventTask(5L, EventSeat.SEATED, ApplicationStatus.PAID)).thenReturn(40);
+        when(applicationRepo.updateStatusByEventTask(5L, EventSeat.SEATED, ApplicationStatus.WITHDRAWN)).thenReturn(3);
+
+        assertEquals(40, service.updateStatusForTask(5L, ApplicationStatus.PAID));
+        verify(seatRepo, never()).recount(eq(5L), any());
+
+        assertEquals(3, service.updateStatusForTask(5L, ApplicationStatus.WITHDRAWN));
+        verify(seatRepo).recount(5L, EventSeat.SEATED_NAMES);
+    }
+
+    private EventApplication stored(Long applicationId, Long applicantId, ApplicationStatus status) {
+        EventApplication app = application(applicantId);
+        app.setApplicationId(applicationId);
+        app.setStatus(status);
+        lenient().when(applicationRepo.findForUpdate(applicationId)).thenReturn(Optional.of(app));
+        return app;
+    }
+
+    private static EventApplication application(Long applicantId) {
+        EventApplication app = new EventApplication();
+        app.setApplicantId(applicantId);
+        app.setEventTask(5L);
+        return app;
+    }
+}
@@ -0,0 +1,16 @@
+package com.gigs.payment_service.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// user-service's view of a wallet, see UserClient#getBalances
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBalance {
+    private Long id;
+    private double balance;
+    // null when user-service does not keep a ledger
+    private Double openingBalance;
+}
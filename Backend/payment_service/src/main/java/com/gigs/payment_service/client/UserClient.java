@@ -4,23 +4,42 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "user-service")
 public interface UserClient {
 
+    // a repeated reference is ignored by user-service, so a retried release or refund pays once
     @PutMapping("api/user/{id}/add-balance")
     ResponseEntity<String> addAmount(
             @PathVariable("id") Long id,
-            @RequestParam("amount") double amount // <-- fix here
+            @RequestParam("amount") double amount, // <-- fix here
+            @RequestParam(value = "reference", required = false) String reference
     );
 
+    // a repeated reference is ignored by user-service, so a retried deduction charges once
     @PutMapping("api/user/{id}/deduct-balance")
     ResponseEntity<String> deductAmount(
             @PathVariable("id") Long id,
-            @RequestParam("amount") double amount // <-- fix here
+            @RequestParam("amount") double amount, // <-- fix here
+            @RequestParam(value = "reference", required = false) String reference
     );
+
+    // at most 1000 ids per call; unknown ids are left out of the answer
+    @PostMapping("api/user/balances")
+    List<UserBalance> getBalances(@RequestBody Collection<Long> ids);
+
+    // recipient id -> amount, credited all-or-nothing; a repeated reference is ignored per user
+    @PutMapping("api/user/add-balance/batch")
+    ResponseEntity<String> addAmounts(@RequestBody Map<Long, Double> amounts,
+                                      @RequestParam(value = "reference", required = false) String reference);
 }
 
 
@@ -1,24 +1,51 @@
 package com.gigs.payment_service.controller;
 
 import com.gigs.payment_service.dto.request.PaymentRequest;
+import com.gigs.payment_service.dto.response.EscrowExpiryStatsResponse;
+import com.gigs.payment_service.dto.response.PaymentHistoryPage;
+import com.gigs.payment_service.dto.response.ReconciliationReport;
+import com.gigs.payment_service.dto.response.SettlementStatsResponse;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.service.EscrowExpirySweeper;
+import com.gigs.payment_service.service.PaymentHistoryService;
+import com.gigs.payment_service.service.PaymentReconciliationJob;
 import com.gigs.payment_service.service.PaymentService;
+import com.gigs.payment_service.service.SettlementJob;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/payments")
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final EscrowExpirySweeper escrowExpirySweeper;
+    private final PaymentReconciliationJob reconciliationJob;
+    private final SettlementJob settlementJob;
+    private final PaymentHistoryService historyService;
 
     @Autowired
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, EscrowExpirySweeper escrowExpirySweeper,
+                             PaymentReconciliationJob reconciliationJob, SettlementJob settlementJob,
+                             PaymentHistoryService historyService) {
         this.paymentService = paymentService;
+        this.escrowExpirySweeper = escrowExpirySweeper;
+        this.reconciliationJob = reconciliationJob;
+        this.settlementJob = settlementJob;
+        this.historyService = historyService;
     }
 
     @PostMapping("/process")
-    public ResponseEntity<String> processPayment(@RequestBody PaymentRequest request) {
+    public ResponseEntity<String> processPayment(@RequestBody PaymentRequest request,
+                                                 @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (request.getIdempotencyKey() == null && idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
         boolean success = paymentService.processPayment(request);
         if (success) {
             return ResponseEntity.ok("Payment processed successfully.");
@@ -27,23 +54,122 @@ public class PaymentController {
         }
     }
 
+    // task-service's outbox retries 5xx and gives up on 4xx: a failed credit is 503 so the
+    // release is retried, a payment in the wrong state is 409 and a missing one 404
     @PostMapping("/release/{taskId}")
     public ResponseEntity<String> releasePayment(@PathVariable Long taskId,@RequestParam Long recipient) {
-        boolean success = paymentService.releasePayment(taskId,recipient);
-        if (success) {
-            return ResponseEntity.ok("Payment released successfully.");
-        } else {
-            return ResponseEntity.badRequest().body("Payment release failed.");
+        try {
+            boolean success = paymentService.releasePayment(taskId,recipient);
+            if (success) {
+                return ResponseEntity.ok("Payment released successfully.");
+            } else {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Payment cannot be released in its current state.");
+            }
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Release failed for task ID " + taskId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Payment release failed.");
         }
     }
 
+    // Bulk payout for a completed event task: every runner in one call
+    @PostMapping("/release-all/{taskId}")
+    public ResponseEntity<String> releaseAllPayments(@PathVariable Long taskId) {
+        try {
+            int released = paymentService.releaseAllPayments(taskId);
+            return ResponseEntity.ok("Released " + released + " payments.");
+        } catch (Exception e) {
+            System.err.println("Bulk release failed for task ID " + taskId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Payment release failed.");
+        }
+    }
+
+    // Payments a user made, newest first; follow nextCursor for older pages
+    @GetMapping("/history/payer/{userId}")
+    public ResponseEntity<?> getPayerHistory(@PathVariable Long userId,
+                                             @RequestParam(required = false) List<PaymentStatus> status,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int size) {
+        return history(PaymentHistoryService.Role.PAYER, userId, status, cursor, size);
+    }
+
+    // Payments a user received (or has in escrow), newest first
+    @GetMapping("/history/recipient/{userId}")
+    public ResponseEntity<?> getRecipientHistory(@PathVariable Long userId,
+                                                 @RequestParam(required = false) List<PaymentStatus> status,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        return history(PaymentHistoryService.Role.RECIPIENT, userId, status, cursor, size);
+    }
+
+    private ResponseEntity<?> history(PaymentHistoryService.Role role, Long userId, List<PaymentStatus> status,
+                                      String cursor, int size) {
+        try {
+            PaymentHistoryPage page = historyService.getHistory(role, userId, status, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // same status codes as release
     @PostMapping("/refund/{taskId}")
     public ResponseEntity<String> refundPayment(@PathVariable Long taskId,@RequestParam Long recipient) {
-        boolean success = paymentService.refundPayment(taskId,recipient);
-        if (success) {
-            return ResponseEntity.ok("Payment refunded successfully.");
-        } else {
-            return ResponseEntity.badRequest().body("Payment refund failed.");
+        try {
+            boolean success = paymentService.refundPayment(taskId,recipient);
+            if (success) {
+                return ResponseEntity.ok("Payment refunded successfully.");
+            } else {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Payment cannot be refunded in its current state.");
+            }
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Refund failed for task ID " + taskId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Payment refund failed.");
+        }
+    }
+
+    @GetMapping("/escrow-expiry/stats")
+    public ResponseEntity<EscrowExpiryStatsResponse> getEscrowExpiryStats() {
+        return ResponseEntity.ok(escrowExpirySweeper.getStats());
+    }
+
+    // runs one pass now, e.g. after changing the max age; ignored while a pass is running
+    @PostMapping("/escrow-expiry/run")
+    public ResponseEntity<String> runEscrowExpiry() {
+        if (!escrowExpirySweeper.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Escrow expiry is disabled.");
         }
+        int refunded = escrowExpirySweeper.sweep();
+        return ResponseEntity.ok("Refunded " + refunded + " expired payments.");
+    }
+
+    // Starts a reconciliation against user-service balances; poll the report for the result
+    @PostMapping("/reconciliation/run")
+    public ResponseEntity<String> runReconciliation() {
+        if (!reconciliationJob.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Reconciliation is already running.");
+        }
+        return ResponseEntity.accepted().body("Reconciliation started.");
+    }
+
+    @GetMapping("/reconciliation/report")
+    public ResponseEntity<ReconciliationReport> getReconciliationReport() {
+        ReconciliationReport report = reconciliationJob.getLastReport();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/settlement/stats")
+    public ResponseEntity<SettlementStatsResponse> getSettlementStats() {
+        return ResponseEntity.ok(settlementJob.getStats());
+    }
+
+    // settles now instead of waiting for the scheduled run
+    @PostMapping("/settlement/run")
+    public ResponseEntity<String> runSettlement() {
+        int settled = settlementJob.settle();
+        return ResponseEntity.ok("Settled " + settled + " payments.");
     }
 }
@@ -12,6 +12,10 @@ public class PaymentRequest {
     private long recipient;
     private long taskId;
     private long amount;
+    // same key = same payment; a retry with it is answered with the original result
+    private String idempotencyKey;
+    // signed by task-service; when valid, participants are not re-checked over HTTP
+    private String participantAssertion;
 
     public long getPayer() {
         return payer;
@@ -44,4 +48,20 @@ public class PaymentRequest {
     public void setAmount(long amount) {
         this.amount = amount;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getParticipantAssertion() {
+        return participantAssertion;
+    }
+
+    public void setParticipantAssertion(String participantAssertion) {
+        this.participantAssertion = participantAssertion;
+    }
 }
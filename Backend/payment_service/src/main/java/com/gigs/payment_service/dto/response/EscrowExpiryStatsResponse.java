@@ -0,0 +1,28 @@
+package com.gigs.payment_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EscrowExpiryStatsResponse {
+    private boolean enabled;
+    private boolean running;
+    private long runs;
+    private long scanned;
+    private long refunded;
+    private long refundedAmount;
+    private long failedPages;
+    private LocalDateTime lastRunStartedAt;
+    private LocalDateTime lastRunFinishedAt;
+    // keyset position of the run in progress (or the last one)
+    private String cursorStatus;
+    private LocalDateTime cursorCreatedAt;
+    private long cursorPaymentId;
+}
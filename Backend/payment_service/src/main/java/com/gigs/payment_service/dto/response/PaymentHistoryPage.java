@@ -0,0 +1,32 @@
+package com.gigs.payment_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentHistoryPage {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Totals {
+        private long count;
+        private long amount;
+    }
+
+    private List<PaymentResponse> payments;
+    // pass back as ?cursor= for the next (older) page; null on the last page
+    private String nextCursor;
+    // per status, over the payments of this page
+    private Map<String, Totals> pageTotals;
+    // per status, over everything from the newest payment down to the end of this page
+    private Map<String, Totals> runningTotals;
+}
@@ -1,9 +1,12 @@
 package com.gigs.payment_service.dto.response;
 
+import com.gigs.payment_service.model.Payment;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,6 +17,12 @@ public class PaymentResponse {
     private long taskId;
     private long amount;
     private String status;
+    private LocalDateTime createdAt;
+
+    public static PaymentResponse from(Payment payment) {
+        return new PaymentResponse(payment.getPaymentId(), payment.getPayer(), payment.getRecipient(),
+                payment.getTaskId(), payment.getAmount(), payment.getStatus().name(), payment.getCreatedAt());
+    }
 
     public long getPaymentId() {
         return paymentId;
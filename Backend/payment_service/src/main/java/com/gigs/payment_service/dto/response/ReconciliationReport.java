@@ -0,0 +1,41 @@
+package com.gigs.payment_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Discrepancy {
+        private long userId;
+        private double openingBalance;
+        private long paymentsNet;
+        private double expectedBalance;
+        private double actualBalance;
+        private double difference;
+    }
+
+    private String status;              // RUNNING, DONE or FAILED
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long paymentsScanned;
+    private long reservedSkipped;       // in-flight payments, payer may or may not be charged yet
+    private long usersChecked;
+    private long usersMissing;          // referenced by payments but unknown to user-service
+    private long usersWithoutOpening;   // user-service has no ledger, cannot compute expected
+    private long discrepancyCount;
+    private double totalDifference;
+    private List<Discrepancy> discrepancies;    // first ones only, see maxReported
+    private String error;
+}
@@ -0,0 +1,26 @@
+package com.gigs.payment_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementStatsResponse {
+    private String payoutMode;
+    private boolean running;
+    private long runs;
+    private long paymentsSettled;       // balance writes immediate mode would have made
+    private long recipientsCredited;    // balance writes actually made
+    private long creditCalls;           // batched user-service calls
+    private long amountSettled;
+    private long failedPages;
+    private double writeReduction;      // 1 - recipientsCredited / paymentsSettled
+    private LocalDateTime lastRunStartedAt;
+    private LocalDateTime lastRunFinishedAt;
+}
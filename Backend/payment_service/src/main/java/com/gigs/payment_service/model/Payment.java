@@ -6,13 +6,23 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Inheritance (strategy = InheritanceType.JOINED)
+@Table(name = "payment",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "ux_payment_task_recipient", columnNames = {"task_id", "recipient"}),
+                @UniqueConstraint(name = "ux_payment_idempotency_key", columnNames = {"idempotency_key"})
+        },
+        indexes = @Index(name = "ix_payment_status_created", columnList = "status, created_at"))
 public class Payment {
 
+    // batch references of the escrow expiry sweep start with this
+    public static final String EXPIRY_BATCH_PREFIX = "escrow-expiry:";
+
     @Id
     @GeneratedValue(strategy=GenerationType.IDENTITY)
     private long paymentId;
@@ -23,6 +33,20 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentStatus status=PaymentStatus.PENDING;
+    @Column(length = 100)
+    private String idempotencyKey;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    // user-service reference of the settlement or expiry batch this row was stamped into
+    @Column(length = 64)
+    private String batchReference;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
     public long getPaymentId() {
         return paymentId;
     }
@@ -71,4 +95,33 @@ public class Payment {
         this.status = status;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getBatchReference() {
+        return batchReference;
+    }
+
+    public void setBatchReference(String batchReference) {
+        this.batchReference = batchReference;
+    }
+
+    // stamped by the escrow expiry sweep, which will refund it; it can no longer be released
+    public boolean isClaimedByExpiry() {
+        return batchReference != null && batchReference.startsWith(EXPIRY_BATCH_PREFIX);
+    }
+
 }
@@ -1,8 +1,10 @@
 package com.gigs.payment_service.model;
 
 public enum PaymentStatus {
+    RESERVED,   // row claimed for an idempotency key, payer not charged yet
     PENDING,
     COMPLETED,
+    AWAITING_SETTLEMENT,   // released, recipient is credited by the next settlement run
     FAILED,
     RELEASED,
     HELD,
@@ -3,28 +3,53 @@ package com.gigs.payment_service.processor;
 import com.gigs.payment_service.client.TaskClient;
 import com.gigs.payment_service.client.UserClient;
 import com.gigs.payment_service.dto.request.PaymentRequest;
-import com.gigs.payment_service.dto.response.PaymentResponse;
 import com.gigs.payment_service.model.Payment;
 import com.gigs.payment_service.model.PaymentStatus;
 import com.gigs.payment_service.repository.PaymentRepository;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.config.Task;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class EscrowPaymentProcessor implements PaymentProcessor {
 
+    private static final EnumSet<PaymentStatus> REUSABLE = EnumSet.of(PaymentStatus.REFUNDED, PaymentStatus.FAILED);
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int STALE_PAGE_SIZE = 100;
 
     TaskClient taskClient;
     UserClient userClient;
     PaymentRepository paymentRepo;
+    IdempotencyKeyCache recentKeys;
+    ParticipantAssertionVerifier assertionVerifier;
+
+    @Value("${payments.payout.mode:IMMEDIATE}")
+    PayoutMode payoutMode = PayoutMode.IMMEDIATE;
+
+    // well past the Feign timeouts, so the request that reserved the row is no longer running
+    @Value("${payments.reservation.stale-after-seconds:300}")
+    long staleReservationSeconds = 300;
 
     @Autowired
-    public EscrowPaymentProcessor(TaskClient taskClient, UserClient userClient,PaymentRepository paymentRepo) {
+    public EscrowPaymentProcessor(TaskClient taskClient, UserClient userClient,PaymentRepository paymentRepo,
+                                  IdempotencyKeyCache recentKeys, ParticipantAssertionVerifier assertionVerifier) {
         this.taskClient = taskClient;
         this.userClient = userClient;
         this.paymentRepo = paymentRepo;
+        this.recentKeys = recentKeys;
+        this.assertionVerifier = assertionVerifier;
     }
     public boolean validatePayment(PaymentRequest paymentRequest) {
         if (paymentRequest == null) {
@@ -37,13 +62,19 @@ public class EscrowPaymentProcessor implements PaymentProcessor {
             return false;
         }
         
-//        //34an lw already l task processes fa n avoid duplication w kda
-//        if (paymentRepo.findByTaskId(paymentRequest.getTaskId()) != null) {
-//            System.err.println("An escrow payment already exists for this task ID: " + paymentRequest.getTaskId());
-//            return false;
-//        }
-
         if(paymentRequest.getPayer()==paymentRequest.getRecipient()) return false;
+
+        // signed by task-service: no need to ask it again. A bad or expired assertion is
+        // rejected rather than re-checked, the caller can sign a fresh one.
+        if (paymentRequest.getParticipantAssertion() != null && assertionVerifier.isEnabled()) {
+            if (!assertionVerifier.verify(paymentRequest.getParticipantAssertion(), paymentRequest.getTaskId(),
+                    paymentRequest.getPayer(), paymentRequest.getRecipient())) {
+                System.err.println("Invalid participant assertion for task ID: " + paymentRequest.getTaskId());
+                return false;
+            }
+            return true;
+        }
+
         try{
         ResponseEntity<Boolean> flag=taskClient.verifyParticipantsAndStatus(paymentRequest.getTaskId(), paymentRequest.getPayer(), paymentRequest.getRecipient());
             if (!flag.getStatusCode().is2xxSuccessful() || Boolean.FALSE.equals(flag.getBody())) {
@@ -57,78 +88,322 @@ public class EscrowPaymentProcessor implements PaymentProcessor {
 
         return  true;
     }
+    /**
+     * With an idempotency key the payment row is claimed (RESERVED) before the payer is
+     * charged, so a retry or a concurrent duplicate finds it instead of charging again. The
+     * deduction carries the key as its reference, so even a retry after a timed-out but
+     * successful deduction is only charged once by user-service.
+     */
     @Override
     public boolean processPayment(PaymentRequest payment) {
+        String key = payment == null ? null : payment.getIdempotencyKey();
+        if (key == null || key.isBlank()) {
+            return processWithoutKey(payment);
+        }
+        if (recentKeys.contains(key)) {
+            return true;
+        }
+        Payment existing = paymentRepo.findByIdempotencyKey(key);
+        if (existing != null) {
+            return replay(existing);
+        }
+        if (!validatePayment(payment)) {
+            return false;
+        }
+
+        Payment reserved;
+        try {
+            reserved = claim(payment, PaymentStatus.RESERVED, key);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request with the same key (or for the same recipient) got there first
+            Payment winner = paymentRepo.findByIdempotencyKey(key);
+            return winner != null && replay(winner);
+        }
+        if (reserved == null) {
+            return false;
+        }
+
+        try {
+            userClient.deductAmount(payment.getPayer(), payment.getAmount(), deductionReference(reserved));
+        } catch (Exception e) {
+            System.err.println("Error while deducting amount from task poster with ID: " + payment.getPayer());
+            // free the key; a retry re-reserves and, thanks to the reference, cannot charge twice
+            reserved.setStatus(PaymentStatus.FAILED);
+            reserved.setIdempotencyKey(null);
+            paymentRepo.save(reserved);
+            return false;
+        }
+        reserved.setStatus(PaymentStatus.PENDING);
+        paymentRepo.save(reserved);
+        recentKeys.add(key);
+        return true;
+    }
+
+    private boolean replay(Payment existing) {
+        if (existing.getStatus() == PaymentStatus.RESERVED) {
+            if (isStale(existing)) {
+                return finishReservation(existing);
+            }
+            System.err.println("Payment with idempotency key " + existing.getIdempotencyKey() + " is still in progress.");
+            return false;
+        }
+        recentKeys.add(existing.getIdempotencyKey());
+        return true;
+    }
+
+    /**
+     * Finishes reservations whose request died between claiming the row and finalizing it,
+     * e.g. a crash, or a deduction that timed out but went through. Keyed rows are also
+     * finished when their key is retried (see replay), keyless ones only here.
+     */
+    @Scheduled(fixedDelayString = "${payments.reservation.sweep-interval-ms:60000}")
+    public void finishStaleReservations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(staleReservationSeconds);
+        List<Payment> stale = paymentRepo.findAgedPage(PaymentStatus.RESERVED, cutoff, START, 0L,
+                PageRequest.of(0, STALE_PAGE_SIZE));
+        for (Payment p : stale) {
+            try {
+                finishReservation(p);
+            } catch (Exception e) {
+                System.err.println("Could not finish reserved payment " + p.getPaymentId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean isStale(Payment p) {
+        return p.getCreatedAt() != null
+                && p.getCreatedAt().isBefore(LocalDateTime.now().minusSeconds(staleReservationSeconds));
+    }
+
+    // repeats the deduction with the row's original reference, so the payer is charged at
+    // most once whether or not the first attempt went through, then finalizes the row
+    boolean finishReservation(Payment p) {
+        try {
+            userClient.deductAmount(p.getPayer(), p.getAmount(), deductionReference(p));
+        } catch (Exception e) {
+            System.err.println("Error while deducting amount for reserved payment " + p.getPaymentId());
+            // same as a failed first attempt: the key is freed for a retry
+            paymentRepo.finishReservation(p.getPaymentId(), PaymentStatus.RESERVED, PaymentStatus.FAILED, null);
+            return false;
+        }
+        if (paymentRepo.finishReservation(p.getPaymentId(), PaymentStatus.RESERVED, PaymentStatus.PENDING,
+                p.getIdempotencyKey()) == 0) {
+            return false;
+        }
+        if (p.getIdempotencyKey() != null) {
+            recentKeys.add(p.getIdempotencyKey());
+        }
+        return true;
+    }
+
+    /**
+     * There is one payment row per (task, recipient), and it is written here, before the
+     * payer is charged. A new row is inserted and flushed, so a concurrent duplicate fails
+     * on the unique index (DataIntegrityViolationException) instead of after the deduction.
+     * A refunded or failed row is reused when the runner is hired again, through a
+     * conditional update only one request can win. Returns null when the recipient already
+     * has a live payment or another request took the row first.
+     */
+    private Payment claim(PaymentRequest request, PaymentStatus status, String key) {
+        Payment p = paymentRepo.findByTaskIdAndRecipient(request.getTaskId(), request.getRecipient());
+        LocalDateTime now = LocalDateTime.now();
+        if (p == null) {
+            p = new Payment();
+            p.setTaskId(request.getTaskId());
+            p.setRecipient(request.getRecipient());
+            p.setPayer(request.getPayer());
+            p.setAmount(request.getAmount());
+            p.setStatus(status);
+            p.setIdempotencyKey(key);
+            p.setCreatedAt(now);
+            return paymentRepo.saveAndFlush(p);
+        }
+        if (!REUSABLE.contains(p.getStatus())
+                || paymentRepo.reclaim(p.getPaymentId(), REUSABLE, status, request.getPayer(),
+                        request.getAmount(), key, now) == 0) {
+            System.err.println("An escrow payment already exists for task ID: " + request.getTaskId()
+                    + " and recipient ID: " + request.getRecipient());
+            return null;
+        }
+        p.setPayer(request.getPayer());
+        p.setAmount(request.getAmount());
+        p.setStatus(status);
+        p.setIdempotencyKey(key);
+        p.setCreatedAt(now);
+        // a batch of the row's previous life must not be reused for this one's refund
+        p.setBatchReference(null);
+        return p;
+    }
+
+    private boolean processWithoutKey(PaymentRequest payment) {
         if(validatePayment(payment)){
+            Payment p;
+            try {
+                p = claim(payment, PaymentStatus.RESERVED, null);
+            } catch (DataIntegrityViolationException e) {
+                System.err.println("A concurrent payment for task ID: " + payment.getTaskId()
+                        + " and recipient ID: " + payment.getRecipient() + " got there first.");
+                return false;
+            }
+            if (p == null) {
+                return false;
+            }
             try{
-                userClient.deductAmount(payment.getPayer(), payment.getAmount());
-                Payment p = new Payment();
-                p.setAmount(payment.getAmount());
-                p.setPayer(payment.getPayer());
-                p.setRecipient(payment.getRecipient());
-                p.setTaskId(payment.getTaskId());
-                p.setStatus(PaymentStatus.PENDING);
-                paymentRepo.save(p);
-                return true;
-
+                userClient.deductAmount(payment.getPayer(), payment.getAmount(), deductionReference(p));
             }catch(Exception e){
                 System.err.println("Error while deducting amount from task poster with ID: " + payment.getPayer());
+                p.setStatus(PaymentStatus.FAILED);
+                paymentRepo.save(p);
                 return false;
             }
-
+            p.setStatus(PaymentStatus.PENDING);
+            paymentRepo.save(p);
+            return true;
         }
         return false;
     }
+
+    // "payment:" + key as before; keyless rows use the row's id and claim time instead
+    static String deductionReference(Payment p) {
+        return p.getIdempotencyKey() != null
+                ? "payment:" + p.getIdempotencyKey()
+                : "payment:" + p.getPaymentId() + ":" + p.getCreatedAt();
+    }
+    /**
+     * The row is read under lock and keeps it across the credit, so a concurrent release,
+     * refund or bulk release of the same payment waits and then finds the new status. A
+     * payment that is already released counts as success without paying again, so a
+     * redelivered release (e.g. from task-service's outbox) is harmless.
+     * <p>
+     * Returns false when the payment is in a state that cannot be released. A missing
+     * payment throws EntityNotFoundException; a failed credit is rethrown and rolls back,
+     * so the payment stays releasable and the caller can retry.
+     */
     @Override
+    @Transactional
     public boolean releasePayment(Long taskId, Long recipient) {
-        Payment payment = paymentRepo.findByTaskIdAndRecipient(taskId, recipient);
+        Payment payment = paymentRepo.findForRelease(taskId, recipient);
         if (payment == null) {
-            System.err.println("No payment found for task ID: " + taskId + " and recipient ID: " + recipient);
-            return false;
+            throw new EntityNotFoundException("No payment found for task ID: " + taskId + " and recipient ID: " + recipient);
         }
 
+        if (payment.getStatus() == PaymentStatus.COMPLETED || payment.getStatus() == PaymentStatus.AWAITING_SETTLEMENT) {
+            System.err.println("Payment for task ID: " + taskId + " and recipient ID: " + recipient + " is already released.");
+            return true;
+        }
         if (payment.getStatus() != PaymentStatus.PENDING && payment.getStatus() != PaymentStatus.HELD) {
             System.err.println("Payment is not in PENDING or HELD state. Cannot release again.");
             return false;
         }
+        if (payment.isClaimedByExpiry()) {
+            System.err.println("Payment for task ID: " + taskId + " and recipient ID: " + recipient + " is being refunded as expired.");
+            return false;
+        }
+
+        if (payoutMode == PayoutMode.SETTLEMENT) {
+            payment.setStatus(PaymentStatus.AWAITING_SETTLEMENT);
+            paymentRepo.save(payment);
+            return true;
+        }
 
         try {
             // Transfer the amount to the recipient
-            userClient.addAmount(payment.getRecipient(), payment.getAmount());
+            userClient.addAmount(payment.getRecipient(), payment.getAmount(), creditReference("release", payment));
+        } catch (RuntimeException e) {
+            System.err.println("Error while transferring amount to recipient with ID: " + payment.getRecipient());
+            throw e;
+        }
+
+        // Update the payment status
+        payment.setStatus(PaymentStatus.COMPLETED);
+        paymentRepo.save(payment);
+        return true;
+    }
 
-            // Update the payment status
+    /**
+     * Releases every PENDING/HELD payment of the task and credits all recipients with a
+     * single user-service call. Returns how many payments were released (0 when there is
+     * nothing left to release, so repeating the call is harmless). If the credit fails the
+     * transaction rolls back and every payment stays releasable.
+     */
+    @Override
+    @Transactional
+    public int releaseAllPayments(Long taskId) {
+        List<Payment> payments = paymentRepo.findByTaskIdAndStatusIn(
+                taskId, EnumSet.of(PaymentStatus.PENDING, PaymentStatus.HELD)).stream()
+                // claimed by the escrow expiry sweep, which refunds them
+                .filter(p -> !p.isClaimedByExpiry())
+                .toList();
+        if (payments.isEmpty()) {
+            return 0;
+        }
+
+        if (payoutMode == PayoutMode.SETTLEMENT) {
+            for (Payment payment : payments) {
+                payment.setStatus(PaymentStatus.AWAITING_SETTLEMENT);
+            }
+            paymentRepo.saveAll(payments);
+            return payments.size();
+        }
+
+        // one entry per recipient, in case a runner holds more than one payment
+        Map<Long, Double> credits = new LinkedHashMap<>();
+        for (Payment payment : payments) {
+            credits.merge(payment.getRecipient(), (double) payment.getAmount(), Double::sum);
+        }
+
+        // user-service appends the recipient id; a recipient is paid at most once per task, so a
+        // retry after an unclear failure is ignored per user
+        ResponseEntity<String> response = userClient.addAmounts(credits, "release-all:" + taskId);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Crediting recipients failed: " + response.getBody());
+        }
+
+        for (Payment payment : payments) {
             payment.setStatus(PaymentStatus.COMPLETED);
-            paymentRepo.save(payment);
-            return true;
-        } catch (Exception e) {
-            System.err.println("Error while transferring amount to recipient with ID: " + payment.getRecipient());
-            return false;
         }
+        paymentRepo.saveAll(payments);
+        return payments.size();
     }
 
+    // locked like releasePayment, so a payment is never both released and refunded; a
+    // repeated refund succeeds without paying again. Missing payments and failed credits
+    // are thrown as in releasePayment.
     @Override
+    @Transactional
     public boolean refundPayment(Long taskId, Long recipient) {
-        Payment payment = paymentRepo.findByTaskIdAndRecipient(taskId, recipient);
+        Payment payment = paymentRepo.findForRelease(taskId, recipient);
         if (payment == null) {
-            System.err.println("No payment found for task ID: " + taskId);
-            return false;
+            throw new EntityNotFoundException("No payment found for task ID: " + taskId + " and recipient ID: " + recipient);
         }
 
+        if (payment.getStatus() == PaymentStatus.REFUNDED) {
+            System.err.println("Payment for task ID: " + taskId + " is already refunded.");
+            return true;
+        }
         if (payment.getStatus() != PaymentStatus.PENDING && payment.getStatus() != PaymentStatus.HELD) {
             System.err.println("Payment is not in PENDING or HELD state. Cannot refund again.");
             return false;
         }
-        try{
-            userClient.addAmount(payment.getPayer(), payment.getAmount());
-            payment.setStatus(PaymentStatus.REFUNDED);
-            paymentRepo.save(payment);
+        if (payment.isClaimedByExpiry()) {
+            // the sweep credits the payer under its batch reference; paying here too would refund twice
+            System.err.println("Payment for task ID: " + taskId + " is already being refunded as expired.");
             return true;
-
-        }catch(Exception e){
+        }
+        try{
+            userClient.addAmount(payment.getPayer(), payment.getAmount(), creditReference("refund", payment));
+        }catch(RuntimeException e){
             System.err.println("Error while refunding amount to task poster with ID: " + payment.getPayer());
-            return false;
+            throw e;
         }
+        payment.setStatus(PaymentStatus.REFUNDED);
+        paymentRepo.save(payment);
+        return true;
+    }
 
+    // a reused row gets a new createdAt in claim(), so each life of the row has its own reference
+    private static String creditReference(String action, Payment payment) {
+        return action + ":" + payment.getPaymentId() + ":" + payment.getCreatedAt();
     }
 }
 
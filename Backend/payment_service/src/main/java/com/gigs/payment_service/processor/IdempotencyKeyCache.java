@@ -0,0 +1,36 @@
+package com.gigs.payment_service.processor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Idempotency keys of payments that were recently processed successfully, so a retried
+ * request is answered without touching the database. The unique column on
+ * {@code payment.idempotency_key} stays the source of truth; this only saves the lookup.
+ */
+@Component
+public class IdempotencyKeyCache {
+
+    private final Map<String, Boolean> keys;
+
+    public IdempotencyKeyCache(@Value("${payments.idempotency.cache-size:10000}") int maxEntries) {
+        // access-ordered, evicts the least recently used key
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String key) {
+        return keys.get(key) != null;
+    }
+
+    public synchronized void add(String key) {
+        keys.put(key, Boolean.TRUE);
+    }
+}
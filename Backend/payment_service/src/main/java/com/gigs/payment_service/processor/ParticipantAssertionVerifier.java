@@ -0,0 +1,89 @@
+package com.gigs.payment_service.processor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Checks the participant assertion task-service signs into a PaymentRequest
+ * ({@code STATUS.expiresAtEpochSeconds.hmac}, HMAC-SHA256 over
+ * {@code taskId|payer|recipient|STATUS|expiresAt} with the shared
+ * {@code payments.assertion.secret}). A valid assertion replaces the
+ * verify-participants call back into task-service.
+ * <p>
+ * There is no built-in key: with {@code payments.assertion.secret} unset every payment
+ * is checked through the callback, and a key shorter than {@link #MIN_SECRET_BYTES} stops
+ * the service from starting rather than accepting guessable signatures.
+ */
+@Component
+public class ParticipantAssertionVerifier {
+
+    // task states in which escrow may still be taken
+    private static final Set<String> PAYABLE_STATUSES = Set.of("OPEN", "IN_PROGRESS");
+
+    static final int MIN_SECRET_BYTES = 32;
+
+    private final byte[] secret;
+    private final Clock clock;
+
+    @Autowired
+    public ParticipantAssertionVerifier(@Value("${payments.assertion.secret:}") String secret) {
+        this(secret, Clock.systemUTC());
+    }
+
+    ParticipantAssertionVerifier(String secret, Clock clock) {
+        this.secret = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (this.secret.length > 0 && this.secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("payments.assertion.secret must be at least " + MIN_SECRET_BYTES
+                    + " bytes, or unset to disable signed assertions");
+        }
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return secret.length > 0;
+    }
+
+    public boolean verify(String assertion, long taskId, long payer, long recipient) {
+        if (!isEnabled() || assertion == null) {
+            return false;
+        }
+        String[] parts = assertion.split("\\.");
+        if (parts.length != 3 || !PAYABLE_STATUSES.contains(parts[0])) {
+            return false;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (clock.instant().getEpochSecond() > expiresAt) {
+            return false;
+        }
+        String payload = taskId + "|" + payer + "|" + recipient + "|" + parts[0] + "|" + expiresAt;
+        return MessageDigest.isEqual(
+                hmac(payload).getBytes(StandardCharsets.US_ASCII),
+                parts[2].getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String hmac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
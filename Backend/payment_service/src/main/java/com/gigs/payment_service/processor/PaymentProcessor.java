@@ -7,4 +7,5 @@ public interface PaymentProcessor {
     public boolean processPayment(PaymentRequest payment);
     public boolean refundPayment(Long taskId, Long recipient);
     public boolean releasePayment(Long taskId, Long recipient);
+    public int releaseAllPayments(Long taskId);
 }
@@ -0,0 +1,11 @@
+package com.gigs.payment_service.processor;
+
+/**
+ * How released escrow reaches the recipient ({@code payments.payout.mode}).
+ */
+public enum PayoutMode {
+    // credit the recipient in user-service as part of the release
+    IMMEDIATE,
+    // mark the payment AWAITING_SETTLEMENT; SettlementJob credits each recipient once per run
+    SETTLEMENT
+}
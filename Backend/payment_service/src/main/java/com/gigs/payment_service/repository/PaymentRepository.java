@@ -1,9 +1,163 @@
 package com.gigs.payment_service.repository;
 
 import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Payment findByTaskIdAndRecipient(Long taskId, Long recipient);
     Payment findByTaskId(Long taskId);
+    Payment findByIdempotencyKey(String idempotencyKey);
+
+    // rows stay locked until the bulk release commits; a single release or refund waits on
+    // the same lock (findForRelease) and then sees the status the bulk release wrote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Payment> findByTaskIdAndStatusIn(Long taskId, Collection<PaymentStatus> statuses);
+
+    // Takes over a refunded or failed row for a new hire. Only one of several concurrent
+    // requests sees 1; the others get 0 and must not charge the payer.
+    @Transactional
+    @Modifying
+    @Query("""
+      update Payment p set p.status = :status, p.payer = :payer, p.amount = :amount,
+        p.idempotencyKey = :key, p.createdAt = :createdAt, p.batchReference = null
+      where p.paymentId = :paymentId and p.status in :reusable
+    """)
+    int reclaim(@Param("paymentId") long paymentId,
+                @Param("reusable") Collection<PaymentStatus> reusable,
+                @Param("status") PaymentStatus status,
+                @Param("payer") long payer,
+                @Param("amount") long amount,
+                @Param("key") String key,
+                @Param("createdAt") LocalDateTime createdAt);
+
+    // Finalizes a RESERVED row; 0 when its own request finalized it meanwhile
+    @Transactional
+    @Modifying
+    @Query("""
+      update Payment p set p.status = :status, p.idempotencyKey = :key
+      where p.paymentId = :paymentId and p.status = :reserved
+    """)
+    int finishReservation(@Param("paymentId") long paymentId,
+                          @Param("reserved") PaymentStatus reserved,
+                          @Param("status") PaymentStatus status,
+                          @Param("key") String key);
+
+    // single release and refund: the row stays locked across the credit until the new status commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Payment p where p.taskId = :taskId and p.recipient = :recipient")
+    Payment findForRelease(@Param("taskId") Long taskId, @Param("recipient") Long recipient);
+
+    // keyset page over ix_payment_status_created: rows after the (createdAt, paymentId) cursor
+    @Query("""
+      select p from Payment p
+      where p.status = :status and p.createdAt < :cutoff
+        and (p.createdAt > :afterCreatedAt or (p.createdAt = :afterCreatedAt and p.paymentId > :afterId))
+      order by p.createdAt, p.paymentId
+    """)
+    List<Payment> findAgedPage(@Param("status") PaymentStatus status,
+                               @Param("cutoff") LocalDateTime cutoff,
+                               @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                               @Param("afterId") long afterId,
+                               Pageable pageable);
+
+    // Reconciliation walks user ids in windows; these find the next id that has payments
+    @Query("select min(p.payer) from Payment p where p.payer >= :from")
+    Long findNextPayer(@Param("from") long from);
+
+    @Query("select min(p.recipient) from Payment p where p.recipient >= :from")
+    Long findNextRecipient(@Param("from") long from);
+
+    // Forward-only streams over one id window (MySQL streams rows when the fetch size is MIN_VALUE).
+    // Rows are [userId, amount, status]; must be consumed inside a transaction and closed.
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select p.payer, p.amount, p.status from Payment p where p.payer >= :from and p.payer < :to")
+    Stream<Object[]> streamByPayerRange(@Param("from") long from, @Param("to") long to);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select p.recipient, p.amount, p.status from Payment p where p.recipient >= :from and p.recipient < :to")
+    Stream<Object[]> streamByRecipientRange(@Param("from") long from, @Param("to") long to);
+
+    // Settlement walks recipients with released payments in id order (ix_payment_status_recipient)
+    @Query("""
+      select distinct p.recipient from Payment p
+      where p.status = :status and p.recipient > :afterRecipient
+      order by p.recipient
+    """)
+    List<Long> findRecipientsWithStatus(@Param("status") PaymentStatus status,
+                                        @Param("afterRecipient") long afterRecipient,
+                                        Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Payment> findByRecipientInAndStatus(Collection<Long> recipients, PaymentStatus status);
+
+    // History pages, newest first, after a (createdAt, paymentId) cursor. Served by the
+    // (payer|recipient, created_at, payment_id, status, amount) indexes from V5.
+    @Query("""
+      select p from Payment p
+      where p.payer = :userId and p.status in :statuses
+        and (p.createdAt < :beforeCreatedAt or (p.createdAt = :beforeCreatedAt and p.paymentId < :beforeId))
+      order by p.createdAt desc, p.paymentId desc
+    """)
+    List<Payment> findPayerHistory(@Param("userId") long userId,
+                                   @Param("statuses") Collection<PaymentStatus> statuses,
+                                   @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                   @Param("beforeId") long beforeId,
+                                   Pageable pageable);
+
+    @Query("""
+      select p from Payment p
+      where p.recipient = :userId and p.status in :statuses
+        and (p.createdAt < :beforeCreatedAt or (p.createdAt = :beforeCreatedAt and p.paymentId < :beforeId))
+      order by p.createdAt desc, p.paymentId desc
+    """)
+    List<Payment> findRecipientHistory(@Param("userId") long userId,
+                                       @Param("statuses") Collection<PaymentStatus> statuses,
+                                       @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                       @Param("beforeId") long beforeId,
+                                       Pageable pageable);
+
+    // [status, count, sum(amount)] of the user's payments from the newest down to the cursor
+    // (inclusive); an index-only range scan on the same indexes
+    @Query("""
+      select p.status, count(p), sum(p.amount) from Payment p
+      where p.payer = :userId and p.status in :statuses
+        and (p.createdAt > :fromCreatedAt or (p.createdAt = :fromCreatedAt and p.paymentId >= :fromId))
+      group by p.status
+    """)
+    List<Object[]> sumPayerHistorySince(@Param("userId") long userId,
+                                        @Param("statuses") Collection<PaymentStatus> statuses,
+                                        @Param("fromCreatedAt") LocalDateTime fromCreatedAt,
+                                        @Param("fromId") long fromId);
+
+    @Query("""
+      select p.status, count(p), sum(p.amount) from Payment p
+      where p.recipient = :userId and p.status in :statuses
+        and (p.createdAt > :fromCreatedAt or (p.createdAt = :fromCreatedAt and p.paymentId >= :fromId))
+      group by p.status
+    """)
+    List<Object[]> sumRecipientHistorySince(@Param("userId") long userId,
+                                            @Param("statuses") Collection<PaymentStatus> statuses,
+                                            @Param("fromCreatedAt") LocalDateTime fromCreatedAt,
+                                            @Param("fromId") long fromId);
+
+    // re-reads a page under lock; rows released or refunded meanwhile drop out
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Payment> findByPaymentIdInAndStatusIn(Collection<Long> paymentIds, Collection<PaymentStatus> statuses);
 }
@@ -0,0 +1,160 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.dto.response.EscrowExpiryStatsResponse;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Refunds PENDING/HELD escrow that has been sitting longer than the configured age.
+ * <p>
+ * Aged rows are walked per status in (created_at, payment_id) keyset pages over the
+ * status + creation-time index. The rows of a page that are still PENDING/HELD are stamped
+ * with a batch reference, every payer is credited with one batched user-service call per
+ * batch and the rows are marked REFUNDED (see {@link StampedBatchCredit}). A stamped row is
+ * claimed for the refund: the payment processor no longer releases it. A page whose credit
+ * fails is counted and the walk moves past it; the next run picks it up again and repeats
+ * the reference stored on the rows, so a credit that went through is not repeated.
+ * <p>
+ * Off by default: escrow on a long-running task is legitimately old, so the age has to
+ * be chosen per deployment.
+ */
+@Service
+public class EscrowExpirySweeper {
+
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final EnumSet<PaymentStatus> EXPIRABLE = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.HELD);
+
+    private final PaymentRepository paymentRepo;
+    private final StampedBatchCredit batchCredit;
+
+    @Value("${payments.escrow.expiry.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${payments.escrow.expiry.max-age-days:30}")
+    private long maxAgeDays = 30;
+
+    @Value("${payments.escrow.expiry.page-size:200}")
+    private int pageSize = 200;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong refunded = new AtomicLong();
+    private final AtomicLong refundedAmount = new AtomicLong();
+    private final AtomicLong failedPages = new AtomicLong();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunFinishedAt;
+    private volatile PaymentStatus cursorStatus;
+    private volatile LocalDateTime cursorCreatedAt;
+    private volatile long cursorPaymentId;
+
+    public EscrowExpirySweeper(PaymentRepository paymentRepo, UserClient userClient,
+                               TransactionTemplate transactionTemplate) {
+        this.paymentRepo = paymentRepo;
+        this.batchCredit = new StampedBatchCredit(paymentRepo, userClient, transactionTemplate,
+                Payment.EXPIRY_BATCH_PREFIX, Payment::getPayer, PaymentStatus.REFUNDED);
+    }
+
+    @Scheduled(fixedDelayString = "${payments.escrow.expiry.interval-ms:3600000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * Runs one full pass and returns how many payments were refunded. A second call while
+     * a pass is running returns 0 immediately.
+     */
+    public int sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            runs.incrementAndGet();
+            lastRunStartedAt = LocalDateTime.now();
+            LocalDateTime cutoff = lastRunStartedAt.minusDays(maxAgeDays);
+            for (PaymentStatus status : EXPIRABLE) {
+                total += sweep(status, cutoff);
+            }
+            if (total > 0) {
+                System.out.println("Escrow expiry refunded " + total + " payments older than " + cutoff);
+            }
+        } finally {
+            lastRunFinishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+        return total;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public EscrowExpiryStatsResponse getStats() {
+        return EscrowExpiryStatsResponse.builder()
+                .enabled(enabled)
+                .running(running.get())
+                .runs(runs.get())
+                .scanned(scanned.get())
+                .refunded(refunded.get())
+                .refundedAmount(refundedAmount.get())
+                .failedPages(failedPages.get())
+                .lastRunStartedAt(lastRunStartedAt)
+                .lastRunFinishedAt(lastRunFinishedAt)
+                .cursorStatus(cursorStatus == null ? null : cursorStatus.name())
+                .cursorCreatedAt(cursorCreatedAt)
+                .cursorPaymentId(cursorPaymentId)
+                .build();
+    }
+
+    private int sweep(PaymentStatus status, LocalDateTime cutoff) {
+        int total = 0;
+        LocalDateTime afterCreatedAt = START;
+        long afterId = 0L;
+        while (true) {
+            List<Payment> page = paymentRepo.findAgedPage(
+                    status, cutoff, afterCreatedAt, afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                return total;
+            }
+            scanned.addAndGet(page.size());
+            total += refundPage(page.stream().map(Payment::getPaymentId).collect(Collectors.toList()));
+
+            Payment last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getPaymentId();
+            cursorStatus = status;
+            cursorCreatedAt = afterCreatedAt;
+            cursorPaymentId = afterId;
+        }
+    }
+
+    private int refundPage(List<Long> paymentIds) {
+        StampedBatchCredit.Result result = batchCredit.credit(() ->
+                paymentRepo.findByPaymentIdInAndStatusIn(paymentIds, EXPIRABLE));
+        refunded.addAndGet(result.payments());
+        refundedAmount.addAndGet(result.amount());
+        if (result.failure() != null) {
+            failedPages.incrementAndGet();
+            System.err.println("Escrow expiry page " + paymentIds.get(0) + ".." + paymentIds.get(paymentIds.size() - 1)
+                    + " failed: " + result.failure().getMessage());
+        }
+        return result.payments();
+    }
+}
@@ -0,0 +1,146 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.dto.response.PaymentHistoryPage;
+import com.gigs.payment_service.dto.response.PaymentResponse;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * A user's payments as payer or as recipient, newest first, in keyset pages.
+ * <p>
+ * The cursor is the (createdAt, paymentId) of the last row returned, so every page is a
+ * range scan starting at the cursor whatever its depth. It also carries the running totals
+ * so far, and the next page adds its own rows to them instead of re-aggregating everything
+ * above it; the totals therefore cover the rows as they were when each page was read.
+ * Cursors from before the totals were carried are still accepted: their totals are summed
+ * once from the newest payment down to the cursor.
+ */
+@Service
+public class PaymentHistoryService {
+
+    public enum Role { PAYER, RECIPIENT }
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // sorts after every real row, used when no cursor is given
+    private static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // createdAt_paymentId_STATUS~count~amount.STATUS~count~amount, all URL-safe
+    private static final String PART = "_";
+    private static final String ENTRY = ".";
+    private static final String FIELD = "~";
+
+    private final PaymentRepository paymentRepo;
+
+    public PaymentHistoryService(PaymentRepository paymentRepo) {
+        this.paymentRepo = paymentRepo;
+    }
+
+    @Transactional(readOnly = true)
+    public PaymentHistoryPage getHistory(Role role, long userId, Collection<PaymentStatus> statuses,
+                                         String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Collection<PaymentStatus> filter = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(PaymentStatus.class) : statuses;
+        LocalDateTime beforeCreatedAt = NEWEST;
+        long beforeId = Long.MAX_VALUE;
+        Map<String, PaymentHistoryPage.Totals> runningTotals = new TreeMap<>();
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(PART, -1);
+            try {
+                if (parts.length < 2 || parts.length > 3) {
+                    throw new IllegalArgumentException();
+                }
+                beforeCreatedAt = LocalDateTime.parse(parts[0]);
+                beforeId = Long.parseLong(parts[1]);
+                if (parts.length == 3) {
+                    runningTotals = decodeTotals(parts[2]);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            if (parts.length == 2) {
+                runningTotals = sumDownTo(role, userId, filter, beforeCreatedAt, beforeId);
+            }
+        }
+
+        // one extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Payment> rows = role == Role.PAYER
+                ? paymentRepo.findPayerHistory(userId, filter, beforeCreatedAt, beforeId, page)
+                : paymentRepo.findRecipientHistory(userId, filter, beforeCreatedAt, beforeId, page);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        Map<String, PaymentHistoryPage.Totals> pageTotals = new TreeMap<>();
+        for (Payment p : rows) {
+            add(pageTotals, p.getStatus().name(), 1, p.getAmount());
+            add(runningTotals, p.getStatus().name(), 1, p.getAmount());
+        }
+
+        Payment last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        return PaymentHistoryPage.builder()
+                .payments(rows.stream().map(PaymentResponse::from).collect(Collectors.toList()))
+                .nextCursor(hasMore ? last.getCreatedAt() + PART + last.getPaymentId() + PART + encodeTotals(runningTotals) : null)
+                .pageTotals(pageTotals)
+                .runningTotals(runningTotals)
+                .build();
+    }
+
+    // legacy cursors only: everything from the newest payment down to the cursor row
+    private Map<String, PaymentHistoryPage.Totals> sumDownTo(Role role, long userId, Collection<PaymentStatus> filter,
+                                                             LocalDateTime createdAt, long paymentId) {
+        List<Object[]> sums = role == Role.PAYER
+                ? paymentRepo.sumPayerHistorySince(userId, filter, createdAt, paymentId)
+                : paymentRepo.sumRecipientHistorySince(userId, filter, createdAt, paymentId);
+        Map<String, PaymentHistoryPage.Totals> totals = new TreeMap<>();
+        for (Object[] row : sums) {
+            add(totals, ((PaymentStatus) row[0]).name(),
+                    ((Number) row[1]).longValue(), row[2] == null ? 0 : ((Number) row[2]).longValue());
+        }
+        return totals;
+    }
+
+    private static void add(Map<String, PaymentHistoryPage.Totals> totals, String status, long count, long amount) {
+        PaymentHistoryPage.Totals t = totals.computeIfAbsent(status, s -> new PaymentHistoryPage.Totals(0, 0));
+        t.setCount(t.getCount() + count);
+        t.setAmount(t.getAmount() + amount);
+    }
+
+    private static String encodeTotals(Map<String, PaymentHistoryPage.Totals> totals) {
+        return totals.entrySet().stream()
+                .map(e -> e.getKey() + FIELD + e.getValue().getCount() + FIELD + e.getValue().getAmount())
+                .collect(Collectors.joining(ENTRY));
+    }
+
+    private static Map<String, PaymentHistoryPage.Totals> decodeTotals(String encoded) {
+        Map<String, PaymentHistoryPage.Totals> totals = new TreeMap<>();
+        if (encoded.isEmpty()) {
+            return totals;
+        }
+        for (String entry : encoded.split("\\" + ENTRY)) {
+            String[] fields = entry.split(FIELD);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            add(totals, PaymentStatus.valueOf(fields[0]).name(), Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+        }
+        return totals;
+    }
+}
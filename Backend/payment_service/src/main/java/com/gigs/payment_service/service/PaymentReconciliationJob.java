@@ -0,0 +1,193 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserBalance;
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.dto.response.ReconciliationReport;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Checks every user's balance in user-service against the payments recorded here.
+ * <p>
+ * For a user, the payments say: balance = opening balance − everything they paid into
+ * escrow that was not refunded + everything released to them. The job walks user ids in
+ * fixed windows; for each window it streams the payments by payer and by recipient over
+ * forward-only cursors, sums them per user in a primitive map, fetches the balances of
+ * those users in batches and compares. Only one window is ever held in memory and the
+ * report keeps the first {@code maxReported} discrepancies, so memory does not grow with
+ * the table.
+ * <p>
+ * Users whose balance changed before user-service kept a ledger have those changes in
+ * their opening balance and will show the older payments as a difference.
+ */
+@Service
+public class PaymentReconciliationJob {
+
+    private static final int USER_BATCH = 1000;
+    private static final double TOLERANCE = 0.005;
+
+    private final PaymentRepository paymentRepo;
+    private final UserClient userClient;
+    private final TransactionTemplate readOnlyTx;
+
+    @Value("${payments.reconciliation.window-size:50000}")
+    private long windowSize = 50_000;
+
+    @Value("${payments.reconciliation.max-reported:1000}")
+    private int maxReported = 1000;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReport lastReport;
+
+    public PaymentReconciliationJob(PaymentRepository paymentRepo, UserClient userClient,
+                                    TransactionTemplate transactionTemplate) {
+        this.paymentRepo = paymentRepo;
+        this.userClient = userClient;
+        this.readOnlyTx = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * Starts a run on a background thread. Returns false if one is already running.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                runNow();
+            } finally {
+                running.set(false);
+            }
+        }, "payment-reconciliation");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    // the caller is responsible for not running two at once
+    ReconciliationReport runNow() {
+        ReconciliationReport report = ReconciliationReport.builder()
+                .status("RUNNING")
+                .startedAt(LocalDateTime.now())
+                .discrepancies(new ArrayList<>())
+                .build();
+        lastReport = report;
+        LongLongMap net = new LongLongMap(1024);
+        try {
+            long from = 1;
+            Long next;
+            while ((next = nextUserId(from)) != null) {
+                long windowStart = next;
+                long windowEnd = windowStart + windowSize;
+                net.clear();
+                readOnlyTx.executeWithoutResult(tx -> scanWindow(windowStart, windowEnd, net, report));
+                compareWindow(net, report);
+                from = windowEnd;
+            }
+            report.setStatus("DONE");
+        } catch (Exception e) {
+            report.setStatus("FAILED");
+            report.setError(e.getMessage());
+            System.err.println("Payment reconciliation failed: " + e.getMessage());
+        } finally {
+            report.setFinishedAt(LocalDateTime.now());
+        }
+        System.out.println("Payment reconciliation " + report.getStatus() + ": " + report.getUsersChecked()
+                + " users, " + report.getDiscrepancyCount() + " discrepancies");
+        return report;
+    }
+
+    private Long nextUserId(long from) {
+        Long payer = paymentRepo.findNextPayer(from);
+        Long recipient = paymentRepo.findNextRecipient(from);
+        if (payer == null) {
+            return recipient;
+        }
+        return recipient == null ? payer : Math.min(payer, recipient);
+    }
+
+    private void scanWindow(long from, long to, LongLongMap net, ReconciliationReport report) {
+        long scanned = 0;
+        long reserved = 0;
+        try (Stream<Object[]> rows = paymentRepo.streamByPayerRange(from, to)) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                scanned++;
+                long payer = (Long) row[0];
+                long amount = (Long) row[1];
+                switch ((PaymentStatus) row[2]) {
+                    // charged and not given back
+                    case PENDING, HELD, COMPLETED, RELEASED, AWAITING_SETTLEMENT -> net.addTo(payer, -amount);
+                    case RESERVED -> {
+                        net.addTo(payer, 0);
+                        reserved++;
+                    }
+                    // refunded or never charged, but the user is still checked
+                    default -> net.addTo(payer, 0);
+                }
+            }
+        }
+        try (Stream<Object[]> rows = paymentRepo.streamByRecipientRange(from, to)) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                PaymentStatus status = (PaymentStatus) row[2];
+                boolean paidOut = status == PaymentStatus.COMPLETED || status == PaymentStatus.RELEASED;
+                net.addTo((Long) row[0], paidOut ? (Long) row[1] : 0L);
+            }
+        }
+        // payer rows are counted once; every payment has exactly one payer
+        report.setPaymentsScanned(report.getPaymentsScanned() + scanned);
+        report.setReservedSkipped(report.getReservedSkipped() + reserved);
+    }
+
+    private void compareWindow(LongLongMap net, ReconciliationReport report) {
+        List<Long> batch = new ArrayList<>(USER_BATCH);
+        net.forEach((userId, amount) -> {
+            batch.add(userId);
+            if (batch.size() == USER_BATCH) {
+                compareBatch(batch, net, report);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            compareBatch(batch, net, report);
+        }
+    }
+
+    private void compareBatch(List<Long> userIds, LongLongMap net, ReconciliationReport report) {
+        List<UserBalance> balances = userClient.getBalances(userIds);
+        report.setUsersMissing(report.getUsersMissing() + userIds.size() - balances.size());
+        for (UserBalance balance : balances) {
+            report.setUsersChecked(report.getUsersChecked() + 1);
+            if (balance.getOpeningBalance() == null) {
+                report.setUsersWithoutOpening(report.getUsersWithoutOpening() + 1);
+                continue;
+            }
+            long paymentsNet = net.get(balance.getId());
+            double expected = balance.getOpeningBalance() + paymentsNet;
+            double difference = balance.getBalance() - expected;
+            if (Math.abs(difference) <= TOLERANCE) {
+                continue;
+            }
+            report.setDiscrepancyCount(report.getDiscrepancyCount() + 1);
+            report.setTotalDifference(report.getTotalDifference() + difference);
+            if (report.getDiscrepancies().size() < maxReported) {
+                report.getDiscrepancies().add(new ReconciliationReport.Discrepancy(balance.getId(),
+                        balance.getOpeningBalance(), paymentsNet, expected, balance.getBalance(), difference));
+            }
+        }
+    }
+}
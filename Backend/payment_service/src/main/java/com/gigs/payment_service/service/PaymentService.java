@@ -24,6 +24,10 @@ public class PaymentService {
         return paymentProcessor.releasePayment(taskId,recipient);
     }
 
+    public int releaseAllPayments(Long taskId) {
+        return paymentProcessor.releaseAllPayments(taskId);
+    }
+
     public boolean refundPayment(Long taskId, Long recipient) {
         return paymentProcessor.refundPayment(taskId,recipient);
     }
@@ -0,0 +1,133 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.dto.response.SettlementStatsResponse;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.processor.PayoutMode;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pays out released escrow in SETTLEMENT payout mode.
+ * <p>
+ * Releases only mark payments AWAITING_SETTLEMENT. Each run walks the recipients that have
+ * such payments in pages; per page it sums their rows per recipient and makes one batched
+ * user-service credit, so a runner who finished twenty small tasks gets one balance write
+ * instead of twenty. A failed page is retried next run.
+ * <p>
+ * The credit's reference is a batch id stamped on the rows and committed before the call
+ * (see {@link StampedBatchCredit}). A retried page finds the batch on its rows and sends the
+ * same reference again, so a credit that went through before the failure is not paid
+ * twice, even if other payments have joined the page since.
+ */
+@Service
+public class SettlementJob {
+
+    private static final String BATCH_PREFIX = "settlement:";
+
+    private final PaymentRepository paymentRepo;
+    private final StampedBatchCredit batchCredit;
+
+    @Value("${payments.payout.mode:IMMEDIATE}")
+    private PayoutMode payoutMode = PayoutMode.IMMEDIATE;
+
+    @Value("${payments.settlement.page-size:500}")
+    private int pageSize = 500;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong paymentsSettled = new AtomicLong();
+    private final AtomicLong recipientsCredited = new AtomicLong();
+    private final AtomicLong creditCalls = new AtomicLong();
+    private final AtomicLong amountSettled = new AtomicLong();
+    private final AtomicLong failedPages = new AtomicLong();
+    private volatile LocalDateTime lastRunStartedAt;
+    private volatile LocalDateTime lastRunFinishedAt;
+
+    public SettlementJob(PaymentRepository paymentRepo, UserClient userClient,
+                         TransactionTemplate transactionTemplate) {
+        this.paymentRepo = paymentRepo;
+        this.batchCredit = new StampedBatchCredit(paymentRepo, userClient, transactionTemplate,
+                BATCH_PREFIX, Payment::getRecipient, PaymentStatus.COMPLETED);
+    }
+
+    // also runs after switching back to IMMEDIATE, so nothing is left unsettled
+    @Scheduled(cron = "${payments.settlement.cron:0 0 2 * * *}")
+    public void scheduledSettle() {
+        settle();
+    }
+
+    /**
+     * Settles everything currently awaiting settlement and returns the number of payments
+     * settled. Returns 0 straight away if a run is already in progress.
+     */
+    public int settle() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int total = 0;
+        try {
+            runs.incrementAndGet();
+            lastRunStartedAt = LocalDateTime.now();
+            long afterRecipient = 0L;
+            while (true) {
+                List<Long> recipients = paymentRepo.findRecipientsWithStatus(
+                        PaymentStatus.AWAITING_SETTLEMENT, afterRecipient, PageRequest.of(0, pageSize));
+                if (recipients.isEmpty()) {
+                    break;
+                }
+                total += settlePage(recipients);
+                afterRecipient = recipients.get(recipients.size() - 1);
+            }
+            if (total > 0) {
+                System.out.println("Settlement paid out " + total + " payments");
+            }
+        } finally {
+            lastRunFinishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+        return total;
+    }
+
+    public SettlementStatsResponse getStats() {
+        long settled = paymentsSettled.get();
+        return SettlementStatsResponse.builder()
+                .payoutMode(payoutMode.name())
+                .running(running.get())
+                .runs(runs.get())
+                .paymentsSettled(settled)
+                .recipientsCredited(recipientsCredited.get())
+                .creditCalls(creditCalls.get())
+                .amountSettled(amountSettled.get())
+                .failedPages(failedPages.get())
+                .writeReduction(settled == 0 ? 0.0 : 1.0 - (double) recipientsCredited.get() / settled)
+                .lastRunStartedAt(lastRunStartedAt)
+                .lastRunFinishedAt(lastRunFinishedAt)
+                .build();
+    }
+
+    private int settlePage(List<Long> recipients) {
+        StampedBatchCredit.Result result = batchCredit.credit(() ->
+                paymentRepo.findByRecipientInAndStatus(recipients, PaymentStatus.AWAITING_SETTLEMENT));
+        paymentsSettled.addAndGet(result.payments());
+        recipientsCredited.addAndGet(result.recipients());
+        creditCalls.addAndGet(result.calls());
+        amountSettled.addAndGet(result.amount());
+        if (result.failure() != null) {
+            failedPages.incrementAndGet();
+            System.err.println("Settlement page starting at recipient " + recipients.get(0) + " failed: "
+                    + result.failure().getMessage());
+        }
+        return result.payments();
+    }
+}
@@ -0,0 +1,117 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Credits a page of payments with one batched user-service call per batch reference, for
+ * the settlement job and the escrow expiry sweep.
+ * <p>
+ * Three steps, none of which holds a row lock across the remote call:
+ * <ol>
+ *   <li>the page is read under lock, rows without a batch of this kind are stamped with a
+ *       new one, and the transaction commits;</li>
+ *   <li>each batch on the page (the new one and any left by an earlier failed attempt) is
+ *       credited under its reference, outside any transaction;</li>
+ *   <li>after each successful credit a short transaction re-reads the page under lock and
+ *       moves the rows of that batch to the final status.</li>
+ * </ol>
+ * A page that fails at step 2 or 3 keeps its stamps, and the next attempt sends the same
+ * reference again; user-service ignores a reference it already credited. Callers must
+ * make sure a stamped row cannot change status by other means until it is finished.
+ */
+class StampedBatchCredit {
+
+    record Result(int payments, int recipients, long amount, int calls, Exception failure) {}
+
+    private final PaymentRepository paymentRepo;
+    private final UserClient userClient;
+    private final TransactionTemplate transactionTemplate;
+    private final String prefix;
+    private final ToLongFunction<Payment> creditee;
+    private final PaymentStatus done;
+
+    StampedBatchCredit(PaymentRepository paymentRepo, UserClient userClient, TransactionTemplate transactionTemplate,
+                       String prefix, ToLongFunction<Payment> creditee, PaymentStatus done) {
+        this.paymentRepo = paymentRepo;
+        this.userClient = userClient;
+        this.transactionTemplate = transactionTemplate;
+        this.prefix = prefix;
+        this.creditee = creditee;
+        this.done = done;
+    }
+
+    /**
+     * @param lockPage reads the page's rows that are still eligible, with PESSIMISTIC_WRITE
+     * @return what was credited; {@code failure} is set when a batch failed, the batches
+     *         before it stay credited and finished
+     */
+    Result credit(Supplier<List<Payment>> lockPage) {
+        int payments = 0;
+        int recipients = 0;
+        long amount = 0;
+        int calls = 0;
+        try {
+            Map<String, Map<Long, Double>> batches = transactionTemplate.execute(tx -> stamp(lockPage.get()));
+            if (batches == null) {
+                return new Result(0, 0, 0, 0, null);
+            }
+            for (Map.Entry<String, Map<Long, Double>> batch : batches.entrySet()) {
+                ResponseEntity<String> response = userClient.addAmounts(batch.getValue(), batch.getKey());
+                calls++;
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new IllegalStateException("Credit of batch " + batch.getKey() + " failed: " + response.getBody());
+                }
+                List<Payment> finished = transactionTemplate.execute(tx -> finish(lockPage.get(), batch.getKey()));
+                if (finished != null) {
+                    payments += finished.size();
+                    amount += finished.stream().mapToLong(Payment::getAmount).sum();
+                }
+                recipients += batch.getValue().size();
+            }
+            return new Result(payments, recipients, amount, calls, null);
+        } catch (Exception e) {
+            return new Result(payments, recipients, amount, calls, e);
+        }
+    }
+
+    // rows of an earlier failed attempt keep their batch; returns reference -> creditee -> amount
+    private Map<String, Map<Long, Double>> stamp(List<Payment> rows) {
+        String batch = prefix + UUID.randomUUID();
+        List<Payment> unstamped = rows.stream().filter(p -> !isStamped(p)).toList();
+        if (!unstamped.isEmpty()) {
+            unstamped.forEach(p -> p.setBatchReference(batch));
+            paymentRepo.saveAll(unstamped);
+        }
+        Map<String, Map<Long, Double>> batches = new TreeMap<>();
+        for (Payment payment : rows) {
+            batches.computeIfAbsent(payment.getBatchReference(), k -> new TreeMap<>())
+                    .merge(creditee.applyAsLong(payment), (double) payment.getAmount(), Double::sum);
+        }
+        return batches;
+    }
+
+    private List<Payment> finish(List<Payment> rows, String batch) {
+        List<Payment> finished = rows.stream()
+                .filter(p -> batch.equals(p.getBatchReference()))
+                .toList();
+        finished.forEach(p -> p.setStatus(done));
+        paymentRepo.saveAll(finished);
+        return finished;
+    }
+
+    private boolean isStamped(Payment payment) {
+        return payment.getBatchReference() != null && payment.getBatchReference().startsWith(prefix);
+    }
+}
@@ -0,0 +1,11 @@
+-- The payment table as ddl-auto created it before migrations were introduced.
+-- Databases that already have it are baselined at this version and skip this script.
+CREATE TABLE IF NOT EXISTS payment (
+    payment_id BIGINT NOT NULL AUTO_INCREMENT,
+    payer      BIGINT NOT NULL,
+    recipient  BIGINT NOT NULL,
+    task_id    BIGINT NOT NULL,
+    amount     BIGINT NOT NULL,
+    status     ENUM ('PENDING','COMPLETED','FAILED','RELEASED','HELD','REFUNDED') NOT NULL,
+    PRIMARY KEY (payment_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,17 @@
+-- status becomes a plain VARCHAR so new PaymentStatus values do not need a column rewrite.
+-- idempotency_key backs duplicate detection in processPayment; created_at feeds the
+-- status + age scans (escrow expiry, reconciliation).
+ALTER TABLE payment
+    MODIFY status VARCHAR(32) NOT NULL,
+    ADD COLUMN idempotency_key VARCHAR(100) NULL,
+    ADD COLUMN created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+-- One escrow row per (task, recipient): release and refund look it up by this pair, and
+-- findByTaskIdAndStatusIn uses the task_id prefix. Rows duplicated by earlier retries
+-- must be merged by hand before this runs; the migration fails rather than guess.
+CREATE UNIQUE INDEX ux_payment_task_recipient ON payment (task_id, recipient);
+
+-- MySQL allows any number of NULLs, so payments made without a key are unaffected.
+CREATE UNIQUE INDEX ux_payment_idempotency_key ON payment (idempotency_key);
+
+CREATE INDEX ix_payment_status_created ON payment (status, created_at);
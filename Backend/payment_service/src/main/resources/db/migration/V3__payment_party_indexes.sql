@@ -0,0 +1,3 @@
+-- Reconciliation walks payments by payer and by recipient id range.
+CREATE INDEX ix_payment_payer ON payment (payer);
+CREATE INDEX ix_payment_recipient ON payment (recipient);
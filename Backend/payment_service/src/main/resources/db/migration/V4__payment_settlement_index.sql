@@ -0,0 +1,2 @@
+-- Settlement finds recipients with AWAITING_SETTLEMENT payments in recipient order.
+CREATE INDEX ix_payment_status_recipient ON payment (status, recipient);
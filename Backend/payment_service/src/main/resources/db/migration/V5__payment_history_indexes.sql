@@ -0,0 +1,7 @@
+-- Per-user history: the leading columns serve newest-first keyset pages, status and amount
+-- make the running-total queries index-only. They also cover the payer/recipient range
+-- scans of reconciliation, so the single-column indexes from V3 go.
+CREATE INDEX ix_payment_payer_history ON payment (payer, created_at, payment_id, status, amount);
+CREATE INDEX ix_payment_recipient_history ON payment (recipient, created_at, payment_id, status, amount);
+DROP INDEX ix_payment_payer ON payment;
+DROP INDEX ix_payment_recipient ON payment;
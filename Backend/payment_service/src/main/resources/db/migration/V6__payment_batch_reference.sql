@@ -0,0 +1,3 @@
+-- Settlement and escrow expiry stamp the rows of a page with a batch reference in its own
+-- transaction before crediting user-service, so a retried page repeats the same reference.
+ALTER TABLE payment ADD COLUMN batch_reference VARCHAR(64) NULL;
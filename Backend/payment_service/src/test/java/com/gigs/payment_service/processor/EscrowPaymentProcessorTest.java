@@ -0,0 +1,278 @@
+package com.gigs.payment_service.processor;
+
+import com.gigs.payment_service.client.TaskClient;
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.dto.request.PaymentRequest;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EscrowPaymentProcessorTest {
+
+    private TaskClient taskClient;
+    private UserClient userClient;
+    private PaymentRepository paymentRepo;
+    private EscrowPaymentProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        taskClient = mock(TaskClient.class);
+        userClient = mock(UserClient.class);
+        paymentRepo = mock(PaymentRepository.class);
+        processor = new EscrowPaymentProcessor(taskClient, userClient, paymentRepo, new IdempotencyKeyCache(100),
+                new ParticipantAssertionVerifier(""));
+
+        when(taskClient.verifyParticipantsAndStatus(anyLong(), anyLong(), anyLong()))
+                .thenReturn(ResponseEntity.ok(true));
+        when(paymentRepo.saveAndFlush(any(Payment.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(userClient.deductAmount(anyLong(), anyDouble(), any())).thenReturn(ResponseEntity.ok("ok"));
+    }
+
+    @Test
+    void testRetryWithSameKeyChargesOnce() {
+        PaymentRequest request = request("task-1:accept");
+
+        assertTrue(processor.processPayment(request));
+        assertTrue(processor.processPayment(request));
+
+        verify(userClient, times(1)).deductAmount(10L, 500.0, "payment:task-1:accept");
+    }
+
+    @Test
+    void testKeyAlreadyStoredIsAnsweredFromDatabase() {
+        Payment stored = new Payment();
+        stored.setIdempotencyKey("task-2:accept");
+        stored.setStatus(PaymentStatus.PENDING);
+        when(paymentRepo.findByIdempotencyKey("task-2:accept")).thenReturn(stored);
+
+        assertTrue(processor.processPayment(request("task-2:accept")));
+
+        verifyNoInteractions(userClient);
+        verify(paymentRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testConcurrentDuplicateDoesNotCharge() {
+        Payment inFlight = new Payment();
+        inFlight.setIdempotencyKey("task-3:accept");
+        inFlight.setStatus(PaymentStatus.RESERVED);
+        when(paymentRepo.saveAndFlush(any(Payment.class))).thenThrow(new DataIntegrityViolationException("dup"));
+        when(paymentRepo.findByIdempotencyKey("task-3:accept")).thenReturn(null, inFlight);
+
+        assertFalse(processor.processPayment(request("task-3:accept")));
+
+        verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void testStaleReservationIsFinishedWithTheSameReference() {
+        Payment stuck = new Payment();
+        stuck.setPaymentId(9L);
+        stuck.setPayer(10L);
+        stuck.setAmount(500L);
+        stuck.setIdempotencyKey("task-7:accept");
+        stuck.setStatus(PaymentStatus.RESERVED);
+        stuck.setCreatedAt(LocalDateTime.now().minusHours(1));
+        when(paymentRepo.findByIdempotencyKey("task-7:accept")).thenReturn(stuck);
+        when(paymentRepo.finishReservation(9L, PaymentStatus.RESERVED, PaymentStatus.PENDING, "task-7:accept"))
+                .thenReturn(1);
+
+        assertTrue(processor.processPayment(request("task-7:accept")));
+
+        verify(userClient).deductAmount(10L, 500.0, "payment:task-7:accept");
+    }
+
+    @Test
+    void testFreshReservationIsStillInProgress() {
+        Payment inFlight = new Payment();
+        inFlight.setIdempotencyKey("task-8:accept");
+        inFlight.setStatus(PaymentStatus.RESERVED);
+        inFlight.setCreatedAt(LocalDateTime.now());
+        when(paymentRepo.findByIdempotencyKey("task-8:accept")).thenReturn(inFlight);
+
+        assertFalse(processor.processPayment(request("task-8:accept")));
+
+        verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void testFailedDeductionFreesTheKey() {
+        when(userClient.deductAmount(anyLong(), anyDouble(), any())).thenThrow(new RuntimeException("timeout"));
+
+        assertFalse(processor.processPayment(request("task-4:accept")));
+
+        verify(paymentRepo).save(argThat(p -> p.getStatus() == PaymentStatus.FAILED && p.getIdempotencyKey() == null));
+    }
+
+    @Test
+    void testLiveEscrowForSameRecipientIsRejected() {
+        Payment live = new Payment();
+        live.setStatus(PaymentStatus.PENDING);
+        when(paymentRepo.findByTaskIdAndRecipient(1L, 20L)).thenReturn(live);
+
+        assertFalse(processor.processPayment(request("task-1:runner-20:b")));
+        assertFalse(processor.processPayment(request(null)));
+
+        verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void testRefundedRowIsReusedForRehire() {
+        Payment refunded = new Payment();
+        refunded.setPaymentId(7L);
+        refunded.setTaskId(1L);
+        refunded.setRecipient(20L);
+        refunded.setAmount(300L);
+        refunded.setStatus(PaymentStatus.REFUNDED);
+        when(paymentRepo.findByTaskIdAndRecipient(1L, 20L)).thenReturn(refunded);
+        when(paymentRepo.reclaim(eq(7L), any(), eq(PaymentStatus.RESERVED), eq(10L), eq(500L), any(), any()))
+                .thenReturn(1);
+
+        assertTrue(processor.processPayment(request("task-1:runner-20:c")));
+
+        verify(paymentRepo).save(argThat(p -> p.getPaymentId() == 7L
+                && p.getStatus() == PaymentStatus.PENDING && p.getAmount() == 500L));
+    }
+
+    @Test
+    void testRowTakenOverConcurrentlyIsNotCharged() {
+        Payment refunded = new Payment();
+        refunded.setPaymentId(7L);
+        refunded.setStatus(PaymentStatus.REFUNDED);
+        when(paymentRepo.findByTaskIdAndRecipient(1L, 20L)).thenReturn(refunded);
+        when(paymentRepo.reclaim(anyLong(), any(), any(), anyLong(), anyLong(), any(), any())).thenReturn(0);
+
+        assertFalse(processor.processPayment(request("task-1:runner-20:d")));
+        assertFalse(processor.processPayment(request(null)));
+
+        verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void testPaymentWithoutKeyIsClaimedBeforeCharging() {
+        when(paymentRepo.saveAndFlush(any(Payment.class)))
+                .thenAnswer(inv -> inv.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("ux_payment_task_recipient"));
+
+        assertTrue(processor.processPayment(request(null)));
+        assertFalse(processor.processPayment(request(null)));
+
+        InOrder inOrder = inOrder(paymentRepo, userClient);
+        inOrder.verify(paymentRepo).saveAndFlush(any(Payment.class));
+        inOrder.verify(userClient).deductAmount(eq(10L), eq(500.0), startsWith("payment:"));
+        verify(userClient, times(1)).deductAmount(anyLong(), anyDouble(), any());
+    }
+
+    @Test
+    void testSignedAssertionSkipsTaskServiceCallback() {
+        processor = new EscrowPaymentProcessor(taskClient, userClient, paymentRepo, new IdempotencyKeyCache(100),
+                new ParticipantAssertionVerifier("a-test-secret-of-at-least-32-bytes") {
+                    @Override
+                    public boolean verify(String assertion, long taskId, long payer, long recipient) {
+                        return "good".equals(assertion);
+                    }
+                });
+        PaymentRequest signed = request("task-5:accept");
+        signed.setParticipantAssertion("good");
+        PaymentRequest forged = request("task-6:accept");
+        forged.setParticipantAssertion("bad");
+
+        assertTrue(processor.processPayment(signed));
+        assertFalse(processor.processPayment(forged));
+
+        verifyNoInteractions(taskClient);
+    }
+
+    @Test
+    void testSettlementModeReleaseDefersTheCredit() {
+        processor.payoutMode = PayoutMode.SETTLEMENT;
+        Payment held = new Payment();
+        held.setRecipient(20L);
+        held.setAmount(500L);
+        held.setStatus(PaymentStatus.PENDING);
+        when(paymentRepo.findForRelease(1L, 20L)).thenReturn(held);
+
+        assertTrue(processor.releasePayment(1L, 20L));
+
+        assertEquals(PaymentStatus.AWAITING_SETTLEMENT, held.getStatus());
+        verifyNoInteractions(userClient);
+    }
+
+    @Test
+    void testRepeatedReleasePaysOnlyOnceWithReference() {
+        Payment held = new Payment();
+        held.setPaymentId(7L);
+        held.setPayer(10L);
+        held.setRecipient(20L);
+        held.setAmount(500L);
+        held.setStatus(PaymentStatus.HELD);
+        when(paymentRepo.findForRelease(1L, 20L)).thenReturn(held);
+        when(userClient.addAmount(anyLong(), anyDouble(), any())).thenReturn(ResponseEntity.ok("ok"));
+
+        assertTrue(processor.releasePayment(1L, 20L));
+        // a redelivered release succeeds without paying again; a released payment cannot be refunded
+        assertTrue(processor.releasePayment(1L, 20L));
+        assertFalse(processor.refundPayment(1L, 20L));
+
+        verify(userClient, times(1)).addAmount(eq(20L), eq(500.0), startsWith("release:7:"));
+        verify(userClient, never()).addAmount(eq(10L), anyDouble(), any());
+        assertEquals(PaymentStatus.COMPLETED, held.getStatus());
+    }
+
+    @Test
+    void testFailedCreditIsThrownAndLeavesThePaymentReleasable() {
+        Payment held = new Payment();
+        held.setPaymentId(7L);
+        held.setRecipient(20L);
+        held.setAmount(500L);
+        held.setStatus(PaymentStatus.PENDING);
+        when(paymentRepo.findForRelease(1L, 20L)).thenReturn(held);
+        when(userClient.addAmount(anyLong(), anyDouble(), any())).thenThrow(new RuntimeException("timeout"));
+
+        // the controller answers 503, so task-service's outbox retries instead of giving up
+        assertThrows(RuntimeException.class, () -> processor.releasePayment(1L, 20L));
+
+        assertEquals(PaymentStatus.PENDING, held.getStatus());
+        verify(paymentRepo, never()).save(any());
+    }
+
+    @Test
+    void testPaymentClaimedByTheExpirySweepIsNeitherReleasedNorRefundedAgain() {
+        Payment held = new Payment();
+        held.setPaymentId(7L);
+        held.setRecipient(20L);
+        held.setAmount(500L);
+        held.setStatus(PaymentStatus.HELD);
+        held.setBatchReference(Payment.EXPIRY_BATCH_PREFIX + "b1");
+        when(paymentRepo.findForRelease(1L, 20L)).thenReturn(held);
+
+        assertFalse(processor.releasePayment(1L, 20L));
+        // the sweep refunds it under its batch reference
+        assertTrue(processor.refundPayment(1L, 20L));
+
+        verifyNoInteractions(userClient);
+        assertEquals(PaymentStatus.HELD, held.getStatus());
+    }
+
+    @Test
+    void testMissingPaymentIsNotFound() {
+        assertThrows(EntityNotFoundException.class, () -> processor.releasePayment(1L, 20L));
+        assertThrows(EntityNotFoundException.class, () -> processor.refundPayment(1L, 20L));
+    }
+
+    private PaymentRequest request(String key) {
+        return new PaymentRequest(10L, 20L, 1L, 500L, key, null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.gigs.payment_service.processor;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tokens are built here exactly the way task-service's ParticipantAssertionSigner builds
+ * them, so a change to the format on either side breaks this test.
+ */
+class ParticipantAssertionVerifierTest {
+
+    private static final String SECRET = "test-secret-that-is-at-least-32-bytes";
+    private static final long NOW = 1_700_000_000L;
+
+    private final ParticipantAssertionVerifier verifier = new ParticipantAssertionVerifier(
+            SECRET, Clock.fixed(Instant.ofEpochSecond(NOW), ZoneOffset.UTC));
+
+    @Test
+    void testValidAssertionIsAccepted() throws Exception {
+        assertTrue(verifier.verify(sign(1, 10, 20, "IN_PROGRESS", NOW + 60, SECRET), 1, 10, 20));
+        assertTrue(verifier.verify(sign(1, 10, 20, "OPEN", NOW, SECRET), 1, 10, 20));
+    }
+
+    @Test
+    void testTamperedOrForeignAssertionIsRejected() throws Exception {
+        String token = sign(1, 10, 20, "IN_PROGRESS", NOW + 60, SECRET);
+
+        assertFalse(verifier.verify(token, 1, 10, 21));      // different recipient
+        assertFalse(verifier.verify(token, 2, 10, 20));      // different task
+        assertFalse(verifier.verify(token.replace("IN_PROGRESS", "OPEN"), 1, 10, 20));
+        assertFalse(verifier.verify(sign(1, 10, 20, "IN_PROGRESS", NOW + 60, "other"), 1, 10, 20));
+        assertFalse(verifier.verify("garbage", 1, 10, 20));
+        assertFalse(verifier.verify(null, 1, 10, 20));
+    }
+
+    @Test
+    void testExpiredOrUnpayableAssertionIsRejected() throws Exception {
+        assertFalse(verifier.verify(sign(1, 10, 20, "IN_PROGRESS", NOW - 1, SECRET), 1, 10, 20));
+        assertFalse(verifier.verify(sign(1, 10, 20, "COMPLETED", NOW + 60, SECRET), 1, 10, 20));
+    }
+
+    @Test
+    void testWithoutSecretNothingVerifies() throws Exception {
+        ParticipantAssertionVerifier disabled = new ParticipantAssertionVerifier("");
+
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.verify(sign(1, 10, 20, "OPEN", Long.MAX_VALUE, ""), 1, 10, 20));
+    }
+
+    @Test
+    void testShortSecretFailsInsteadOfSigning() {
+        assertThrows(IllegalStateException.class, () -> new ParticipantAssertionVerifier("dev-only-assertion-secret"));
+    }
+
+    private static String sign(long taskId, long payer, long recipient, String status, long expiresAt,
+                               String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.isEmpty() ? new byte[1] : secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String payload = taskId + "|" + payer + "|" + recipient + "|" + status + "|" + expiresAt;
+        return status + "." + expiresAt + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EscrowExpirySweeperTest {
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private PaymentRepository paymentRepo;
+    private UserClient userClient;
+    private EscrowExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepo = mock(PaymentRepository.class);
+        userClient = mock(UserClient.class);
+        sweeper = new EscrowExpirySweeper(paymentRepo, userClient,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(paymentRepo.findAgedPage(any(), any(), any(), anyLong(), any())).thenReturn(List.of());
+        when(userClient.addAmounts(any(), any())).thenReturn(ResponseEntity.ok("ok"));
+    }
+
+    @Test
+    void testEachPageIsOneBatchedCreditPerPayer() {
+        Payment a = payment(1, 100, 40), b = payment(2, 100, 60), c = payment(3, 200, 10);
+        when(paymentRepo.findAgedPage(eq(PaymentStatus.PENDING), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(a, b), List.of(c), List.of());
+        when(paymentRepo.findByPaymentIdInAndStatusIn(eq(List.of(1L, 2L)), any())).thenReturn(List.of(a, b));
+        when(paymentRepo.findByPaymentIdInAndStatusIn(eq(List.of(3L)), any())).thenReturn(List.of(c));
+
+        assertEquals(3, sweeper.sweep());
+
+        verify(userClient).addAmounts(eq(Map.of(100L, 100.0)), anyString());
+        verify(userClient).addAmounts(eq(Map.of(200L, 10.0)), anyString());
+        // second page starts after the last row of the first
+        verify(paymentRepo).findAgedPage(eq(PaymentStatus.PENDING), any(), eq(OLD), eq(2L), any());
+        assertEquals(PaymentStatus.REFUNDED, a.getStatus());
+        assertEquals(3, sweeper.getStats().getRefunded());
+        assertEquals(110, sweeper.getStats().getRefundedAmount());
+    }
+
+    @Test
+    void testFailedPageIsSkippedAndCounted() {
+        Payment a = payment(1, 100, 40), b = payment(2, 200, 60);
+        when(paymentRepo.findAgedPage(eq(PaymentStatus.HELD), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(a), List.of(b), List.of());
+        when(paymentRepo.findByPaymentIdInAndStatusIn(eq(List.of(1L)), any())).thenReturn(List.of(a));
+        when(paymentRepo.findByPaymentIdInAndStatusIn(eq(List.of(2L)), any())).thenReturn(List.of(b));
+        when(userClient.addAmounts(eq(Map.of(100L, 40.0)), any())).thenThrow(new RuntimeException("down"));
+
+        assertEquals(1, sweeper.sweep());
+
+        assertEquals(1, sweeper.getStats().getFailedPages());
+        assertEquals(2, sweeper.getStats().getScanned());
+        assertEquals(PaymentStatus.REFUNDED, b.getStatus());
+    }
+
+    @Test
+    void testRetriedPageRepeatsItsBatchReference() {
+        Payment a = payment(1, 100, 40);
+        when(paymentRepo.findAgedPage(eq(PaymentStatus.PENDING), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(a), List.of(), List.of(a), List.of());
+        when(paymentRepo.findByPaymentIdInAndStatusIn(eq(List.of(1L)), any())).thenReturn(List.of(a));
+        when(userClient.addAmounts(any(), any()))
+                .thenThrow(new RuntimeException("read timed out"))
+                .thenReturn(ResponseEntity.ok("ok"));
+
+        assertEquals(0, sweeper.sweep());
+        assertEquals(1, sweeper.sweep());
+
+        ArgumentCaptor<String> references = ArgumentCaptor.forClass(String.class);
+        verify(userClient, times(2)).addAmounts(eq(Map.of(100L, 40.0)), references.capture());
+        assertEquals(references.getAllValues().get(0), references.getAllValues().get(1));
+        assertEquals(PaymentStatus.REFUNDED, a.getStatus());
+    }
+
+    @Test
+    void testRowsSettledMeanwhileAreLeftAlone() {
+        Payment a = payment(1, 100, 40);
+        when(paymentRepo.findAgedPage(eq(PaymentStatus.PENDING), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(a), List.of());
+        when(paymentRepo.findByPaymentIdInAndStatusIn(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, sweeper.sweep());
+
+        verifyNoInteractions(userClient);
+    }
+
+    private Payment payment(long id, long payer, long amount) {
+        Payment p = new Payment();
+        p.setPaymentId(id);
+        p.setPayer(payer);
+        p.setAmount(amount);
+        p.setStatus(PaymentStatus.PENDING);
+        p.setCreatedAt(OLD);
+        return p;
+    }
+}
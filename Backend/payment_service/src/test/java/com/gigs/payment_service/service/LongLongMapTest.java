@@ -0,0 +1,36 @@
+package com.gigs.payment_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongLongMapTest {
+
+    @Test
+    void testMatchesHashMapThroughGrowthAndClear() {
+        LongLongMap map = new LongLongMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(20_000);
+            long delta = random.nextInt(1000) - 500;
+            map.addTo(key, delta);
+            expected.merge(key, delta, Long::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Long, Long> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0L, map.get(1));
+        map.addTo(7, 3);
+        assertEquals(3L, map.get(7));
+    }
+}
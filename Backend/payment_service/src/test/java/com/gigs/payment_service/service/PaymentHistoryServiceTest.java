@@ -0,0 +1,84 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.dto.response.PaymentHistoryPage;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentHistoryServiceTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 3, 1, 12, 0, 0, 123_456_000);
+
+    private final PaymentRepository paymentRepo = mock(PaymentRepository.class);
+    private final PaymentHistoryService service = new PaymentHistoryService(paymentRepo);
+
+    @Test
+    void testPageCursorAndTotals() {
+        when(paymentRepo.findPayerHistory(eq(5L), any(), any(), anyLong(), any())).thenReturn(List.of(
+                payment(30, T.plusMinutes(2), 100, PaymentStatus.COMPLETED),
+                payment(20, T.plusMinutes(1), 50, PaymentStatus.PENDING),
+                payment(10, T, 25, PaymentStatus.COMPLETED)));   // the extra row
+
+        PaymentHistoryPage page = service.getHistory(PaymentHistoryService.Role.PAYER, 5L, null, null, 2);
+
+        assertEquals(2, page.getPayments().size());
+        assertEquals(T.plusMinutes(1) + "_20_COMPLETED~1~100.PENDING~1~50", page.getNextCursor());
+        assertEquals(100L, page.getPageTotals().get("COMPLETED").getAmount());
+        assertEquals(1L, page.getRunningTotals().get("PENDING").getCount());
+        verify(paymentRepo, never()).sumPayerHistorySince(anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void testRunningTotalsAreCarriedInTheCursor() {
+        when(paymentRepo.findPayerHistory(eq(5L), any(), eq(T.plusMinutes(1)), eq(20L), any())).thenReturn(List.of(
+                payment(10, T, 25, PaymentStatus.COMPLETED)));
+
+        PaymentHistoryPage page = service.getHistory(PaymentHistoryService.Role.PAYER, 5L, null,
+                T.plusMinutes(1) + "_20_COMPLETED~1~100.PENDING~1~50", 2);
+
+        assertEquals(2L, page.getRunningTotals().get("COMPLETED").getCount());
+        assertEquals(125L, page.getRunningTotals().get("COMPLETED").getAmount());
+        assertEquals(50L, page.getRunningTotals().get("PENDING").getAmount());
+        assertEquals(25L, page.getPageTotals().get("COMPLETED").getAmount());
+        verify(paymentRepo, never()).sumPayerHistorySince(anyLong(), any(), any(), anyLong());
+        assertThrows(IllegalArgumentException.class, () -> service.getHistory(
+                PaymentHistoryService.Role.PAYER, 5L, null, T + "_20_BOGUS~1~1", 2));
+    }
+
+    @Test
+    void testCursorIsDecodedAndLastPageHasNoCursor() {
+        when(paymentRepo.findRecipientHistory(anyLong(), any(), any(), anyLong(), any()))
+                .thenReturn(List.of(payment(10, T, 25, PaymentStatus.COMPLETED)));
+
+        PaymentHistoryPage page = service.getHistory(PaymentHistoryService.Role.RECIPIENT, 5L,
+                List.of(PaymentStatus.COMPLETED), T.plusMinutes(1) + "_20", 2);
+
+        verify(paymentRepo).findRecipientHistory(eq(5L), eq(List.of(PaymentStatus.COMPLETED)),
+                eq(T.plusMinutes(1)), eq(20L), any());
+        // a cursor without totals has them summed once
+        verify(paymentRepo).sumRecipientHistorySince(eq(5L), eq(List.of(PaymentStatus.COMPLETED)),
+                eq(T.plusMinutes(1)), eq(20L));
+        assertNull(page.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> service.getHistory(
+                PaymentHistoryService.Role.PAYER, 5L, null, "nonsense", 2));
+        assertThrows(IllegalArgumentException.class, () -> service.getHistory(
+                PaymentHistoryService.Role.PAYER, 5L, null, null, 1000));
+    }
+
+    private Payment payment(long id, LocalDateTime createdAt, long amount, PaymentStatus status) {
+        Payment p = new Payment();
+        p.setPaymentId(id);
+        p.setCreatedAt(createdAt);
+        p.setAmount(amount);
+        p.setStatus(status);
+        return p;
+    }
+}
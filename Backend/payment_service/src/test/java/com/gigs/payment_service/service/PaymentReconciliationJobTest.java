@@ -0,0 +1,59 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserBalance;
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.dto.response.ReconciliationReport;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentReconciliationJobTest {
+
+    @Test
+    void testReportsOnlyUsersWhoseBalanceDoesNotAddUp() {
+        PaymentRepository paymentRepo = mock(PaymentRepository.class);
+        UserClient userClient = mock(UserClient.class);
+        when(paymentRepo.findNextPayer(1L)).thenReturn(1L);
+        when(paymentRepo.findNextRecipient(1L)).thenReturn(2L);
+        // user 1 paid 100 to 2 (released) and 50 to 3 (refunded); user 3 pays 30 into escrow
+        when(paymentRepo.streamByPayerRange(anyLong(), anyLong())).thenReturn(Stream.of(
+                new Object[]{1L, 100L, PaymentStatus.COMPLETED},
+                new Object[]{1L, 50L, PaymentStatus.REFUNDED},
+                new Object[]{3L, 30L, PaymentStatus.PENDING},
+                new Object[]{3L, 5L, PaymentStatus.RESERVED}));
+        when(paymentRepo.streamByRecipientRange(anyLong(), anyLong())).thenReturn(Stream.of(
+                new Object[]{2L, 100L, PaymentStatus.COMPLETED},
+                new Object[]{3L, 50L, PaymentStatus.REFUNDED},
+                new Object[]{4L, 30L, PaymentStatus.PENDING}));
+        when(userClient.getBalances(any())).thenReturn(List.of(
+                new UserBalance(1L, 4900.0, 5000.0),
+                new UserBalance(2L, 5100.0, 5000.0),
+                new UserBalance(3L, 5000.0, 5000.0),   // should be 4970
+                new UserBalance(4L, 5000.0, null)));
+
+        PaymentReconciliationJob job = new PaymentReconciliationJob(paymentRepo, userClient,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReconciliationReport report = job.runNow();
+
+        assertEquals("DONE", report.getStatus());
+        assertEquals(4, report.getPaymentsScanned());
+        assertEquals(1, report.getReservedSkipped());
+        assertEquals(4, report.getUsersChecked());
+        assertEquals(1, report.getUsersWithoutOpening());
+        assertEquals(1, report.getDiscrepancyCount());
+        ReconciliationReport.Discrepancy d = report.getDiscrepancies().get(0);
+        assertEquals(3L, d.getUserId());
+        assertEquals(4970.0, d.getExpectedBalance(), 0.0001);
+        assertEquals(30.0, d.getDifference(), 0.0001);
+        verify(userClient, times(1)).getBalances(any());
+    }
+}
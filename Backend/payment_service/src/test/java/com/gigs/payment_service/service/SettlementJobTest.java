@@ -0,0 +1,112 @@
+package com.gigs.payment_service.service;
+
+import com.gigs.payment_service.client.UserClient;
+import com.gigs.payment_service.model.Payment;
+import com.gigs.payment_service.model.PaymentStatus;
+import com.gigs.payment_service.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SettlementJobTest {
+
+    @Test
+    void testEachRecipientIsCreditedOncePerRun() {
+        PaymentRepository paymentRepo = mock(PaymentRepository.class);
+        UserClient userClient = mock(UserClient.class);
+        when(userClient.addAmounts(any(), any())).thenReturn(ResponseEntity.ok("ok"));
+        List<Payment> payments = List.of(payment(1, 7, 10), payment(2, 7, 15), payment(3, 7, 5), payment(4, 9, 20));
+        when(paymentRepo.findRecipientsWithStatus(eq(PaymentStatus.AWAITING_SETTLEMENT), eq(0L), any()))
+                .thenReturn(List.of(7L, 9L));
+        when(paymentRepo.findRecipientsWithStatus(eq(PaymentStatus.AWAITING_SETTLEMENT), eq(9L), any()))
+                .thenReturn(List.of());
+        when(paymentRepo.findByRecipientInAndStatus(List.of(7L, 9L), PaymentStatus.AWAITING_SETTLEMENT))
+                .thenReturn(payments);
+
+        SettlementJob job = new SettlementJob(paymentRepo, userClient,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        assertEquals(4, job.settle());
+
+        verify(userClient, times(1)).addAmounts(eq(Map.of(7L, 30.0, 9L, 20.0)), startsWith("settlement:"));
+        payments.forEach(p -> assertEquals(PaymentStatus.COMPLETED, p.getStatus()));
+        assertEquals(4, job.getStats().getPaymentsSettled());
+        assertEquals(2, job.getStats().getRecipientsCredited());
+        assertEquals(0.5, job.getStats().getWriteReduction(), 0.0001);
+    }
+
+    @Test
+    void testRetriedPageRepeatsItsBatchReference() {
+        PaymentRepository paymentRepo = mock(PaymentRepository.class);
+        UserClient userClient = mock(UserClient.class);
+        // the first credit reaches user-service but the answer is lost
+        when(userClient.addAmounts(any(), any()))
+                .thenThrow(new RuntimeException("read timed out"))
+                .thenReturn(ResponseEntity.ok("ok"));
+        List<Payment> payments = List.of(payment(1, 7, 10), payment(2, 9, 20));
+        when(paymentRepo.findRecipientsWithStatus(eq(PaymentStatus.AWAITING_SETTLEMENT), eq(0L), any()))
+                .thenReturn(List.of(7L, 9L));
+        when(paymentRepo.findRecipientsWithStatus(eq(PaymentStatus.AWAITING_SETTLEMENT), eq(9L), any()))
+                .thenReturn(List.of());
+        when(paymentRepo.findByRecipientInAndStatus(List.of(7L, 9L), PaymentStatus.AWAITING_SETTLEMENT))
+                .thenReturn(payments);
+
+        SettlementJob job = new SettlementJob(paymentRepo, userClient,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        assertEquals(0, job.settle());
+        assertEquals(2, job.settle());
+
+        ArgumentCaptor<String> references = ArgumentCaptor.forClass(String.class);
+        verify(userClient, times(2)).addAmounts(any(), references.capture());
+        assertTrue(references.getAllValues().get(0).startsWith("settlement:"));
+        assertEquals(references.getAllValues().get(0), references.getAllValues().get(1));
+        assertEquals(1, job.getStats().getFailedPages());
+    }
+
+    @Test
+    void testCreditIsMadeBetweenTheStampAndTheStatusTransactions() {
+        PaymentRepository paymentRepo = mock(PaymentRepository.class);
+        UserClient userClient = mock(UserClient.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(userClient.addAmounts(any(), any())).thenReturn(ResponseEntity.ok("ok"));
+        List<Payment> payments = List.of(payment(1, 7, 10));
+        when(paymentRepo.findRecipientsWithStatus(eq(PaymentStatus.AWAITING_SETTLEMENT), eq(0L), any()))
+                .thenReturn(List.of(7L));
+        when(paymentRepo.findRecipientsWithStatus(eq(PaymentStatus.AWAITING_SETTLEMENT), eq(7L), any()))
+                .thenReturn(List.of());
+        when(paymentRepo.findByRecipientInAndStatus(List.of(7L), PaymentStatus.AWAITING_SETTLEMENT))
+                .thenReturn(payments);
+
+        new SettlementJob(paymentRepo, userClient, new TransactionTemplate(transactionManager)).settle();
+
+        // the row locks of the stamp are released before the remote call, the status is set after it
+        InOrder order = inOrder(transactionManager, userClient);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(transactionManager).commit(any());
+        order.verify(userClient).addAmounts(any(), startsWith("settlement:"));
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(transactionManager).commit(any());
+        assertEquals(PaymentStatus.COMPLETED, payments.get(0).getStatus());
+    }
+
+    private Payment payment(long id, long recipient, long amount) {
+        Payment p = new Payment();
+        p.setPaymentId(id);
+        p.setRecipient(recipient);
+        p.setAmount(amount);
+        p.setStatus(PaymentStatus.AWAITING_SETTLEMENT);
+        return p;
+    }
+}
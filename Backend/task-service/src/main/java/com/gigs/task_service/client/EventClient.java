@@ -4,6 +4,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -22,5 +23,8 @@ public interface EventClient {
 
     @DeleteMapping("api/events/remove")
     public void removeApplication(@RequestParam Long runnerId, @RequestParam Long taskId);
+
+    @PostMapping("api/events/task-cache/invalidate/{taskId}")
+    void invalidateTaskCache(@PathVariable Long taskId);
 }
 
@@ -3,8 +3,12 @@ package com.gigs.task_service.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
+import java.util.Map;
+
 @FeignClient(
         name = "user-service"
 )
@@ -15,4 +19,9 @@ public interface UserClient {
     )
     Boolean existsById(@RequestParam long id);
 
+    @PostMapping(
+            value    = "/api/user/existsByIds"
+    )
+    Map<Long, Boolean> existsByIds(@RequestBody Collection<Long> ids);
+
 }
@@ -0,0 +1,125 @@
+package com.gigs.task_service.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches user-service existence answers in front of {@link UserClient}.
+ * <p>
+ * Users are never hard-deleted, so a positive answer is kept for a long TTL. A negative
+ * answer is kept only briefly, because the id may belong to a user who is signing up
+ * right now. Misses for several ids are fetched with one {@code existsByIds} call.
+ */
+@Component
+public class UserExistenceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExistenceCache.class);
+
+    private record Entry(boolean exists, long expiresAt) {}
+
+    private final UserClient userClient;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserExistenceCache(UserClient userClient,
+                              @Value("${users.exists-cache.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${users.exists-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                              @Value("${users.exists-cache.max-entries:100000}") int maxEntries) {
+        this(userClient, ttlSeconds, negativeTtlSeconds, maxEntries, System::nanoTime);
+    }
+
+    UserExistenceCache(UserClient userClient, long ttlSeconds, long negativeTtlSeconds,
+                       int maxEntries, LongSupplier clock) {
+        this.userClient = userClient;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.negativeTtlNanos = negativeTtlSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public boolean exists(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        Boolean cached = lookup(userId, clock.getAsLong());
+        if (cached != null) {
+            return cached;
+        }
+        boolean exists = Boolean.TRUE.equals(userClient.existsById(userId));
+        store(userId, exists);
+        return exists;
+    }
+
+    /**
+     * Loads every uncached id with a single round trip, so the {@link #exists} checks
+     * that follow are all cache hits.
+     */
+    public void prefetch(Long... userIds) {
+        long now = clock.getAsLong();
+        Set<Long> misses = new LinkedHashSet<>();
+        for (Long id : userIds) {
+            if (id != null && lookup(id, now) == null) {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return;
+        }
+        if (misses.size() == 1) {
+            exists(misses.iterator().next());
+            return;
+        }
+        try {
+            Map<Long, Boolean> answers = userClient.existsByIds(misses);
+            for (Long id : misses) {
+                store(id, answers != null && Boolean.TRUE.equals(answers.get(id)));
+            }
+        } catch (Exception e) {
+            // leave them uncached; exists() will ask one by one
+            logger.warn("Batch user lookup failed, falling back to single lookups: {}", e.getMessage());
+        }
+    }
+
+    public void invalidate(Long userId) {
+        entries.remove(userId);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Boolean lookup(Long userId, long now) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.expiresAt() >= 0) {
+            entries.remove(userId, entry);
+            return null;
+        }
+        return entry.exists();
+    }
+
+    private void store(Long userId, boolean exists) {
+        long now = clock.getAsLong();
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+            if (entries.size() >= maxEntries) {
+                // still full of live entries; start over rather than grow without bound
+                entries.clear();
+            }
+        }
+        entries.put(userId, new Entry(exists, now + (exists ? ttlNanos : negativeTtlNanos)));
+    }
+}
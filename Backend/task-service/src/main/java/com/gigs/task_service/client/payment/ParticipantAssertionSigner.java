@@ -0,0 +1,71 @@
+package com.gigs.task_service.client.payment;
+
+import com.gigs.task_service.model.TaskStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.util.Base64;
+
+/**
+ * Signs "task-service vouches that (taskId, payer, recipient) are the participants and the
+ * task is in this status" for payment-service, so it does not have to call back into
+ * task-service to check. The token is {@code STATUS.expiresAtEpochSeconds.hmac}, where the
+ * HMAC-SHA256 covers {@code taskId|payer|recipient|STATUS|expiresAt}. The secret is shared
+ * with payment-service ({@code payments.assertion.secret}); there is no default, and a
+ * key shorter than {@link #MIN_SECRET_BYTES} stops the service from starting.
+ */
+@Component
+public class ParticipantAssertionSigner {
+
+    static final int MIN_SECRET_BYTES = 32;
+
+    private final byte[] secret;
+    private final long ttlSeconds;
+    private final Clock clock;
+
+    @Autowired
+    public ParticipantAssertionSigner(@Value("${payments.assertion.secret:}") String secret,
+                                      @Value("${payments.assertion.ttl-seconds:60}") long ttlSeconds) {
+        this(secret, ttlSeconds, Clock.systemUTC());
+    }
+
+    ParticipantAssertionSigner(String secret, long ttlSeconds, Clock clock) {
+        this.secret = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (this.secret.length > 0 && this.secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("payments.assertion.secret must be at least " + MIN_SECRET_BYTES
+                    + " bytes, or unset to disable signed assertions");
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns null when no secret is configured; payment-service then falls back to asking
+     * task-service.
+     */
+    public String sign(long taskId, long payer, long recipient, TaskStatus status) {
+        if (secret.length == 0) {
+            return null;
+        }
+        long expiresAt = clock.instant().getEpochSecond() + ttlSeconds;
+        String payload = taskId + "|" + payer + "|" + recipient + "|" + status.name() + "|" + expiresAt;
+        return status.name() + "." + expiresAt + "." + hmac(payload);
+    }
+
+    private String hmac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
@@ -14,6 +14,10 @@ public interface PaymentClient {
     @PostMapping(value = "/api/payments/release/{taskId}")
     ResponseEntity<String> releasePayment(@PathVariable("taskId") Long taskId, @RequestParam Long recipient);
 
+    // releases every escrowed payment of the task in one call
+    @PostMapping(value = "/api/payments/release-all/{taskId}")
+    ResponseEntity<String> releaseAllPayments(@PathVariable("taskId") Long taskId);
+
     @PostMapping(value = "/api/payments/refund/{taskId}")
     ResponseEntity<String> refundPayment(@PathVariable("taskId") Long taskId, @RequestParam Long recipient);
 }
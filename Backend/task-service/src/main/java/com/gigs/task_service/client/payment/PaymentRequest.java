@@ -12,5 +12,13 @@ public class PaymentRequest {
     private long recipient;
     private long taskId;
     private long amount;
+    // payment-service answers a repeated key with the original result instead of charging again
+    private String idempotencyKey;
+    // signed proof of participants and task status, checked by payment-service without calling back
+    private String participantAssertion;
+
+    public PaymentRequest(long payer, long recipient, long taskId, long amount, String idempotencyKey) {
+        this(payer, recipient, taskId, amount, idempotencyKey, null);
+    }
 }
 
@@ -0,0 +1,34 @@
+package com.gigs.task_service.config;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the {@code Idempotency-Key} header to Feign calls made by the outbox relay.
+ * The relay sets the key of the event it is delivering for the duration of the call;
+ * any other Feign call on other threads is left untouched.
+ */
+@Component
+public class OutboxIdempotencyKeyInterceptor implements RequestInterceptor {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final ThreadLocal<String> CURRENT_KEY = new ThreadLocal<>();
+
+    public static void set(String key) {
+        CURRENT_KEY.set(key);
+    }
+
+    public static void clear() {
+        CURRENT_KEY.remove();
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        String key = CURRENT_KEY.get();
+        if (key != null && !template.headers().containsKey(HEADER)) {
+            template.header(HEADER, key);
+        }
+    }
+}
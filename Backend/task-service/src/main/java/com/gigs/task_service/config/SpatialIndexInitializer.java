@@ -0,0 +1,67 @@
+package com.gigs.task_service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the spatial column and index used by the nearby-task search.
+ * <p>
+ * {@code ddl-auto=update} cannot create SPATIAL indexes, so the column is added here
+ * once the JPA schema exists. {@code geo_point} is a STORED generated column derived
+ * from {@code latitude}/{@code longitude}, so every insert and update keeps it in sync
+ * without any changes to the entity.
+ */
+@Component
+public class SpatialIndexInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpatialIndexInitializer.class);
+
+    private static final String INDEX_NAME = "idx_task_geo_point";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${tasks.nearby.spatial-index.enabled:true}")
+    private boolean enabled;
+
+    public SpatialIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Integer columns = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM information_schema.COLUMNS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'task' AND COLUMN_NAME = 'geo_point'
+                    """, Integer.class);
+            if (columns == null || columns == 0) {
+                logger.info("Adding geo_point column to task table");
+                // SRID 4326 uses latitude-first axis order in MySQL
+                jdbcTemplate.execute("""
+                        ALTER TABLE task ADD COLUMN geo_point POINT SRID 4326
+                        GENERATED ALWAYS AS (ST_SRID(POINT(latitude, longitude), 4326)) STORED NOT NULL
+                        """);
+            }
+
+            Integer indexes = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM information_schema.STATISTICS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'task' AND INDEX_NAME = ?
+                    """, Integer.class, INDEX_NAME);
+            if (indexes == null || indexes == 0) {
+                logger.info("Creating spatial index {} on task(geo_point)", INDEX_NAME);
+                jdbcTemplate.execute("CREATE SPATIAL INDEX " + INDEX_NAME + " ON task (geo_point)");
+            }
+        } catch (Exception e) {
+            // Non-MySQL databases (e.g. tests) do not support the spatial DDL
+            logger.warn("Could not initialise spatial index for nearby search: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.gigs.task_service.controller;
+
+import com.gigs.task_service.dto.response.NotificationStatsResponse;
+import com.gigs.task_service.service.NotificationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/tasks/notifications")
+public class NotificationStatsController {
+
+    private final NotificationService notificationService;
+
+    public NotificationStatsController(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    // queue depth, drop rate and dispatch latency of the async notification dispatcher
+    @GetMapping("/stats")
+    public ResponseEntity<NotificationStatsResponse> getStats() {
+        return ResponseEntity.ok(notificationService.getStats());
+    }
+}
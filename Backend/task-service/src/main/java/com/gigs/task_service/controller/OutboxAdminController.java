@@ -0,0 +1,64 @@
+package com.gigs.task_service.controller;
+
+import com.gigs.task_service.dto.response.ErrorResponse;
+import com.gigs.task_service.dto.response.OutboxEventResponse;
+import com.gigs.task_service.service.OutboxRelay;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+// Resolves outbox events that FAILED; until then they hold back the later events of their task
+@RestController
+@RequestMapping("/api/tasks/outbox")
+public class OutboxAdminController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final OutboxRelay outboxRelay;
+
+    public OutboxAdminController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+
+    // GET /api/tasks/outbox/failed?afterId=0&limit=100
+    @GetMapping("/failed")
+    public ResponseEntity<?> getFailed(@RequestParam(defaultValue = "0") long afterId,
+                                       @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse("limit must be between 1 and " + MAX_LIMIT));
+        }
+        List<OutboxEventResponse> events = outboxRelay.findFailed(afterId, limit).stream()
+                .map(OutboxEventResponse::of)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(events);
+    }
+
+    // delivers the event again with a fresh attempt budget
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<?> retry(@PathVariable long id) {
+        try {
+            return outboxRelay.retryFailed(id)
+                    ? ResponseEntity.ok("Outbox event " + id + " requeued.")
+                    : ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Outbox event " + id + " is not FAILED"));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    // drops the event without applying it, so the task's later events go out
+    @PostMapping("/{id}/skip")
+    public ResponseEntity<?> skip(@PathVariable long id) {
+        try {
+            return outboxRelay.skipFailed(id)
+                    ? ResponseEntity.ok("Outbox event " + id + " skipped.")
+                    : ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Outbox event " + id + " is not FAILED"));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+}
@@ -1,21 +1,28 @@
 package com.gigs.task_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gigs.task_service.dto.request.TaskDynamicPriceRequest;
 import com.gigs.task_service.dto.request.TaskRequest;
 import com.gigs.task_service.dto.response.ErrorResponse;
 import com.gigs.task_service.dto.response.EventStaffingTaskResponse;
+import com.gigs.task_service.dto.response.NearbyTaskPageResponse;
 import com.gigs.task_service.dto.response.RegularTaskResponse;
+import com.gigs.task_service.dto.response.TaskPageResponse;
 import com.gigs.task_service.dto.response.TaskResponse;
-import com.gigs.task_service.model.Task;
 import com.gigs.task_service.model.TaskStatus;
 import com.gigs.task_service.service.TaskService;
 import jakarta.validation.Valid;
 import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -25,19 +32,57 @@ import java.util.NoSuchElementException;
 @CrossOrigin(origins = "http://localhost:5173")
 public class TaskController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, ObjectMapper objectMapper) {
         this.taskService = taskService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Task>> getAllTasks() {
-        List<Task> tasks = taskService.getAllTasks();
+    public ResponseEntity<List<TaskResponse>> getAllTasks() {
+        List<TaskResponse> tasks = taskService.getAllTasks();
         return ResponseEntity.ok(tasks);
     }
 
+    // Same resource as /all for clients sending Accept: application/x-ndjson.
+    // One TaskResponse per line, written batch by batch with constant memory.
+    @GetMapping(value = "/all", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllTasks() {
+        StreamingResponseBody body = out -> taskService.forEachTaskBatch(batch -> {
+            try {
+                for (TaskResponse task : batch) {
+                    out.write(objectMapper.writeValueAsBytes(task));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/all/page")
+    public ResponseEntity<?> getTasksPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        try {
+            TaskPageResponse page = taskService.getTasksPage(afterId, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @PostMapping("/postTask")
     public ResponseEntity<?> createTask(@Valid @RequestBody TaskRequest taskReq) {
         try {
@@ -61,8 +106,8 @@ public class TaskController {
 
 
     @GetMapping("/poster/{taskPosterId}")
-    public ResponseEntity<List<Task>> getTasksByTaskPoster(@PathVariable Long taskPosterId) {
-        List<Task> tasks = taskService.getTasksByTaskPoster(taskPosterId);
+    public ResponseEntity<List<TaskResponse>> getTasksByTaskPoster(@PathVariable Long taskPosterId) {
+        List<TaskResponse> tasks = taskService.getTasksByTaskPoster(taskPosterId);
         return ResponseEntity.ok(tasks);
     }
     @PutMapping("edit/{taskId}")
@@ -144,6 +189,17 @@ public class TaskController {
         }
     }
 
+    // GET /api/tasks/event/batch?ids=1,2,3 - one round trip instead of one per task
+    @GetMapping("event/batch")
+    public ResponseEntity<?> getEventTasksByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(taskService.getEventTasksByIds(new LinkedHashSet<>(ids)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @GetMapping("event/{taskId}")
     public ResponseEntity<EventStaffingTaskResponse> getEventTaskById(@PathVariable Long taskId) {
         try {
@@ -192,6 +248,10 @@ public class TaskController {
                 return ResponseEntity.badRequest()
                         .body(new ErrorResponse(msg));
             }
+        } catch (IllegalStateException e) {
+            // the escrow charge failed and the accept was rolled back; the poster can retry
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse("An unexpected error occurred"));
@@ -220,6 +280,27 @@ public class TaskController {
         return ResponseEntity.ok(list);
     }
 
+    @GetMapping("/nearby/page")
+    public ResponseEntity<?> getNearbyOpenTasksPage(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam double radius,
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String type
+    ) {
+        try {
+            NearbyTaskPageResponse page = taskService.getNearbyOpenTasksPage(
+                    lat, lon, radius, userId, limit, cursor, type
+            );
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @GetMapping("/count")
     public ResponseEntity<Long> countTasksByStatusForUser(
             @RequestParam("userId") Long userId,
@@ -229,6 +310,14 @@ public class TaskController {
         return ResponseEntity.ok(count);
     }
 
+    // All status counts for a poster in one call, e.g. {"OPEN":3,"IN_PROGRESS":1,...}
+    @GetMapping("/count/all")
+    public ResponseEntity<Map<TaskStatus, Long>> countAllTasksByStatusForUser(
+            @RequestParam("userId") Long userId
+    ) {
+        return ResponseEntity.ok(taskService.countAllTasksByStatusForUser(userId));
+    }
+
     @GetMapping("/regular/open")
     public List<RegularTaskResponse> openRegular(@RequestParam Long taskPosterId) {
         return taskService.getOpenRegularTasks(taskPosterId);
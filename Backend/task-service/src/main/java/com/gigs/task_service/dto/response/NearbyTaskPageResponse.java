@@ -0,0 +1,19 @@
+package com.gigs.task_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyTaskPageResponse {
+    // nearest first, ties broken by taskId
+    private List<TaskResponse> tasks;
+    // pass back as ?cursor= to get the next page; null when there are no more results
+    private String nextCursor;
+}
@@ -0,0 +1,23 @@
+package com.gigs.task_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationStatsResponse {
+    private int queueDepth;
+    private int queueCapacity;
+    private long enqueued;
+    private long delivered;
+    private long failed;
+    private long dropped;
+    private long retries;
+    private double dropRate;
+    private double avgDispatchLatencyMs;
+    private double maxDispatchLatencyMs;
+}
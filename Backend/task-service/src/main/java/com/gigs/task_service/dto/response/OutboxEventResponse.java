@@ -0,0 +1,43 @@
+package com.gigs.task_service.dto.response;
+
+import com.gigs.task_service.model.OutboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventResponse {
+    private Long id;
+    private String type;
+    private Long taskId;
+    private Long userId;
+    private String targetStatus;
+    private String idempotencyKey;
+    private String status;
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+
+    public static OutboxEventResponse of(OutboxEvent event) {
+        return OutboxEventResponse.builder()
+                .id(event.getId())
+                .type(event.getType().name())
+                .taskId(event.getTaskId())
+                .userId(event.getUserId())
+                .targetStatus(event.getTargetStatus())
+                .idempotencyKey(event.getIdempotencyKey())
+                .status(event.getStatus().name())
+                .attempts(event.getAttempts())
+                .createdAt(event.getCreatedAt())
+                .nextAttemptAt(event.getNextAttemptAt())
+                .lastError(event.getLastError())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.gigs.task_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskPageResponse {
+    // ordered by taskId
+    private List<TaskResponse> tasks;
+    // pass back as ?afterId= to get the next page; null on the last page
+    private Long nextAfterId;
+}
@@ -0,0 +1,93 @@
+package com.gigs.task_service.geo;
+
+import java.util.List;
+
+/**
+ * Lat/lon rectangle that fully contains a circle of the given radius.
+ * Used as a cheap index-friendly prefilter before the exact distance check.
+ * <p>
+ * A box that crosses the antimeridian has {@code minLon > maxLon}: it runs east from
+ * minLon to 180 and on from -180 to maxLon. Range scans (the grid, MBRContains) need
+ * plain rectangles, so they go through {@link #split()}.
+ */
+public record BoundingBox(double minLat, double minLon, double maxLat, double maxLon) {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE_LAT = 111.045;
+
+    public static BoundingBox around(double lat, double lon, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double cosLat = Math.cos(Math.toRadians(lat));
+        // close to the poles a degree of longitude shrinks to nothing, so take the whole band
+        double dLon = cosLat < 1e-6 ? 180.0 : radiusKm / (KM_PER_DEGREE_LAT * cosLat);
+
+        double minLat = Math.max(-90.0, lat - dLat);
+        double maxLat = Math.min(90.0, lat + dLat);
+        double minLon = lon - dLon;
+        double maxLon = lon + dLon;
+        if (dLon >= 180.0) {
+            return new BoundingBox(minLat, -180.0, maxLat, 180.0);
+        }
+        // past the antimeridian the box continues on the other side
+        if (minLon < -180.0) {
+            minLon += 360.0;
+        } else if (maxLon > 180.0) {
+            maxLon -= 360.0;
+        }
+        return new BoundingBox(minLat, minLon, maxLat, maxLon);
+    }
+
+    public boolean crossesAntimeridian() {
+        return minLon > maxLon;
+    }
+
+    /**
+     * This box, or its two halves on either side of the antimeridian.
+     */
+    public List<BoundingBox> split() {
+        if (!crossesAntimeridian()) {
+            return List.of(this);
+        }
+        return List.of(
+                new BoundingBox(minLat, minLon, maxLat, 180.0),
+                new BoundingBox(minLat, -180.0, maxLat, maxLon)
+        );
+    }
+
+    public boolean contains(double lat, double lon) {
+        if (lat < minLat || lat > maxLat) {
+            return false;
+        }
+        return crossesAntimeridian()
+                ? lon >= minLon || lon <= maxLon
+                : lon >= minLon && lon <= maxLon;
+    }
+
+    /**
+     * WKT polygon in MySQL's SRID 4326 axis order (latitude first). Only for a box that
+     * does not cross the antimeridian; split() the others first.
+     */
+    public String toWkt() {
+        if (crossesAntimeridian()) {
+            throw new IllegalStateException("Box crosses the antimeridian, split it first");
+        }
+        return "POLYGON(("
+                + minLat + " " + minLon + ", "
+                + maxLat + " " + minLon + ", "
+                + maxLat + " " + maxLon + ", "
+                + minLat + " " + maxLon + ", "
+                + minLat + " " + minLon + "))";
+    }
+
+    /**
+     * Great-circle distance in kilometres (same earth radius as the old JPQL haversine).
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
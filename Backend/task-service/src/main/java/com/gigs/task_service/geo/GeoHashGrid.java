@@ -0,0 +1,268 @@
+package com.gigs.task_service.geo;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Concurrent point index bucketed by geohash cell.
+ * <p>
+ * Each cell keeps ids, posters and coordinates in parallel primitive arrays, so
+ * indexing and scanning do not allocate per point. A query only visits the cells
+ * covering the bounding box of the search circle and filters by exact distance.
+ */
+public class GeoHashGrid {
+
+    private final int latBits;
+    private final int lonBits;
+    private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+    // taskId -> cell key, so updates and removals do not need the old coordinates
+    private final ConcurrentHashMap<Long, Long> cellOf = new ConcurrentHashMap<>();
+
+    /**
+     * @param precisionBits total geohash bits, e.g. 25 for a 5-character geohash (~4.9km cells)
+     */
+    public GeoHashGrid(int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 60) {
+            throw new IllegalArgumentException("precisionBits must be between 2 and 60");
+        }
+        // like a geohash, longitude gets the extra bit for odd precisions
+        this.lonBits = (precisionBits + 1) / 2;
+        this.latBits = precisionBits / 2;
+    }
+
+    public void put(long id, long poster, double lat, double lon) {
+        long key = cellKey(latIndex(lat), lonIndex(lon));
+        Long previous = cellOf.put(id, key);
+        if (previous != null && previous != key) {
+            Cell old = cells.get(previous);
+            if (old != null) {
+                old.remove(id);
+            }
+        }
+        cells.computeIfAbsent(key, k -> new Cell()).upsert(id, poster, lat, lon);
+    }
+
+    public void remove(long id) {
+        Long key = cellOf.remove(id);
+        if (key != null) {
+            Cell cell = cells.get(key);
+            if (cell != null) {
+                cell.remove(id);
+            }
+        }
+    }
+
+    public boolean contains(long id) {
+        return cellOf.containsKey(id);
+    }
+
+    public int size() {
+        return cellOf.size();
+    }
+
+    public void clear() {
+        cells.clear();
+        cellOf.clear();
+    }
+
+    /**
+     * Ids of the points within {@code radiusKm}, nearest first (ties broken by id),
+     * skipping points owned by {@code excludePoster}.
+     */
+    public long[] nearby(double lat, double lon, double radiusKm, long excludePoster) {
+        Hits hits = new Hits();
+        // the halves of a box across the antimeridian cover disjoint cells
+        for (BoundingBox box : BoundingBox.around(lat, lon, radiusKm).split()) {
+            int minLat = latIndex(box.minLat());
+            int maxLat = latIndex(box.maxLat());
+            int minLon = lonIndex(box.minLon());
+            int maxLon = lonIndex(box.maxLon());
+            for (int la = minLat; la <= maxLat; la++) {
+                for (int lo = minLon; lo <= maxLon; lo++) {
+                    Cell cell = cells.get(cellKey(la, lo));
+                    if (cell != null) {
+                        cell.collect(lat, lon, radiusKm, excludePoster, hits);
+                    }
+                }
+            }
+        }
+        return hits.sortedIds();
+    }
+
+    private int latIndex(double lat) {
+        return index(lat + 90.0, 180.0, latBits);
+    }
+
+    private int lonIndex(double lon) {
+        return index(lon + 180.0, 360.0, lonBits);
+    }
+
+    private static int index(double offset, double span, int bits) {
+        int max = (1 << bits) - 1;
+        int i = (int) Math.floor(offset / span * (1 << bits));
+        return Math.max(0, Math.min(max, i));
+    }
+
+    /**
+     * Interleaves the cell indexes the way a geohash does (longitude bit first).
+     */
+    private long cellKey(int latIdx, int lonIdx) {
+        long key = 0;
+        int la = latBits - 1;
+        int lo = lonBits - 1;
+        boolean lonTurn = true;
+        while (la >= 0 || lo >= 0) {
+            if (lonTurn && lo >= 0) {
+                key = (key << 1) | ((lonIdx >>> lo--) & 1);
+            } else if (la >= 0) {
+                key = (key << 1) | ((latIdx >>> la--) & 1);
+            }
+            lonTurn = !lonTurn;
+        }
+        return key;
+    }
+
+    private static final class Cell {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long[] ids = new long[8];
+        private long[] posters = new long[8];
+        private double[] lats = new double[8];
+        private double[] lons = new double[8];
+        private int size;
+
+        void upsert(long id, long poster, double lat, double lon) {
+            lock.writeLock().lock();
+            try {
+                int i = indexOf(id);
+                if (i < 0) {
+                    if (size == ids.length) {
+                        grow();
+                    }
+                    i = size++;
+                }
+                ids[i] = id;
+                posters[i] = poster;
+                lats[i] = lat;
+                lons[i] = lon;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long id) {
+            lock.writeLock().lock();
+            try {
+                int i = indexOf(id);
+                if (i < 0) {
+                    return;
+                }
+                // swap with the last slot to keep the arrays dense
+                int last = --size;
+                ids[i] = ids[last];
+                posters[i] = posters[last];
+                lats[i] = lats[last];
+                lons[i] = lons[last];
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void collect(double lat, double lon, double radiusKm, long excludePoster, Hits hits) {
+            lock.readLock().lock();
+            try {
+                for (int i = 0; i < size; i++) {
+                    if (posters[i] == excludePoster) {
+                        continue;
+                    }
+                    double d = BoundingBox.haversineKm(lat, lon, lats[i], lons[i]);
+                    if (d <= radiusKm) {
+                        hits.add(ids[i], d);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void grow() {
+            int n = ids.length * 2;
+            ids = Arrays.copyOf(ids, n);
+            posters = Arrays.copyOf(posters, n);
+            lats = Arrays.copyOf(lats, n);
+            lons = Arrays.copyOf(lons, n);
+        }
+    }
+
+    /**
+     * Growable (id, distance) pairs, sorted in place without boxing.
+     */
+    private static final class Hits {
+        private long[] ids = new long[16];
+        private double[] dist = new double[16];
+        private int size;
+
+        void add(long id, double d) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                dist = Arrays.copyOf(dist, size * 2);
+            }
+            ids[size] = id;
+            dist[size] = d;
+            size++;
+        }
+
+        long[] sortedIds() {
+            sort(0, size - 1);
+            return Arrays.copyOf(ids, size);
+        }
+
+        private boolean less(int a, int b) {
+            return dist[a] < dist[b] || (dist[a] == dist[b] && ids[a] < ids[b]);
+        }
+
+        private void sort(int lo, int hi) {
+            while (lo < hi) {
+                int p = partition(lo, hi);
+                // recurse into the smaller half to bound stack depth
+                if (p - lo < hi - p) {
+                    sort(lo, p - 1);
+                    lo = p + 1;
+                } else {
+                    sort(p + 1, hi);
+                    hi = p - 1;
+                }
+            }
+        }
+
+        private int partition(int lo, int hi) {
+            swap((lo + hi) >>> 1, hi);
+            int store = lo;
+            for (int i = lo; i < hi; i++) {
+                if (less(i, hi)) {
+                    swap(i, store++);
+                }
+            }
+            swap(store, hi);
+            return store;
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double d = dist[a];
+            dist[a] = dist[b];
+            dist[b] = d;
+        }
+    }
+}
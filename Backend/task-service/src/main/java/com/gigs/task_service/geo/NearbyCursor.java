@@ -0,0 +1,31 @@
+package com.gigs.task_service.geo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a distance-ordered nearby feed: the (distance, taskId) of the
+ * last row the client has seen. Serialized as an opaque URL-safe token.
+ */
+public record NearbyCursor(double distanceMeters, long taskId) {
+
+    public static final NearbyCursor START = new NearbyCursor(-1, 0L);
+
+    public String encode() {
+        String raw = distanceMeters + ":" + taskId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NearbyCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new NearbyCursor(Double.parseDouble(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
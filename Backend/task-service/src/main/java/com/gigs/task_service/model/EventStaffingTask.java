@@ -8,6 +8,7 @@ import com.gigs.task_service.dto.response.TaskResponse;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,6 +26,7 @@ public class EventStaffingTask extends Task {
     private int requiredPeople;
 
     @ElementCollection
+    @BatchSize(size = 100)
     private List<Long> runnerIds;
 
     @Column
@@ -78,7 +80,7 @@ public class EventStaffingTask extends Task {
     public TaskResponse toDto() {
         return EventStaffingTaskResponse.builder()
                 .taskId(getTaskId())
-                .imageUrls(getImageUrls())
+                .imageUrls(copyOf(getImageUrls()))
                 .taskPoster(getTaskPoster())
                 .title(getTitle())
                 .description(getDescription())
@@ -90,7 +92,7 @@ public class EventStaffingTask extends Task {
                 .location(location)
                 .fixedPay(fixedPay)
                 .requiredPeople(requiredPeople)
-                .runnerIds(runnerIds)
+                .runnerIds(copyOf(runnerIds))
                 .startDate(startDate)
                 .endDate(endDate)
                 .numberOfDays(numberOfDays)
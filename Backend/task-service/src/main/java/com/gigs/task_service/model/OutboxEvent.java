@@ -0,0 +1,127 @@
+package com.gigs.task_service.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pending side effect of a task change, written in the same transaction as the task.
+ * <p>
+ * The idempotency key identifies the logical effect: writing the same effect twice keeps
+ * a single row, and the key is sent to the consumer as the {@code Idempotency-Key} header
+ * so redeliveries can be recognised downstream.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at, id"),
+        // the relay's "earlier undelivered event of the same task" check
+        @Index(name = "idx_outbox_task_id", columnList = "task_id, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private OutboxEventType type;
+
+    @Column(nullable = false)
+    private Long taskId;
+
+    // runner / recipient, when the effect concerns a single user
+    private Long userId;
+
+    // new offer / application status for the *_STATUS_UPDATE types
+    @Column(length = 40)
+    private String targetStatus;
+
+    @Column(nullable = false, unique = true, length = 150)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(OutboxEventType type, Long taskId, Long userId, String targetStatus, String idempotencyKey) {
+        this.type = type;
+        this.taskId = taskId;
+        this.userId = userId;
+        this.targetStatus = targetStatus;
+        this.idempotencyKey = idempotencyKey;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // the relay is delivering the row; if it dies, the row is due again at leaseUntil
+    public void claim(LocalDateTime leaseUntil) {
+        this.status = OutboxStatus.IN_FLIGHT;
+        this.nextAttemptAt = leaseUntil;
+    }
+
+    public void markSent() {
+        this.status = OutboxStatus.SENT;
+        this.sentAt = LocalDateTime.now();
+        this.lastError = null;
+    }
+
+    public void markFailed(String error) {
+        this.status = OutboxStatus.FAILED;
+        this.lastError = truncate(error);
+    }
+
+    public void scheduleRetry(String error, LocalDateTime nextAttemptAt) {
+        this.status = OutboxStatus.PENDING;
+        this.lastError = truncate(error);
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    // operator retry of a FAILED row: due now, with a fresh attempt budget
+    public void retryNow(LocalDateTime now) {
+        this.status = OutboxStatus.PENDING;
+        this.attempts = 0;
+        this.nextAttemptAt = now;
+    }
+
+    public void markSkipped() {
+        this.status = OutboxStatus.SKIPPED;
+    }
+
+    public int incrementAttempts() {
+        return ++attempts;
+    }
+
+    private static String truncate(String s) {
+        return s == null || s.length() <= 500 ? s : s.substring(0, 500);
+    }
+
+    public Long getId() { return id; }
+    public OutboxEventType getType() { return type; }
+    public Long getTaskId() { return taskId; }
+    public Long getUserId() { return userId; }
+    public String getTargetStatus() { return targetStatus; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public OutboxStatus getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getSentAt() { return sentAt; }
+    public String getLastError() { return lastError; }
+}
@@ -0,0 +1,13 @@
+package com.gigs.task_service.model;
+
+// Side effects of task changes that the outbox relay delivers to other services
+public enum OutboxEventType {
+    OFFERS_DELETE,                  // offer-service: drop all offers of a deleted task
+    OFFER_STATUS_UPDATE,            // offer-service: move the task's offer to a new status
+    EVENT_APPLICATIONS_DELETE,      // event-service: drop all applications of a deleted task
+    EVENT_APPLICATIONS_STATUS_UPDATE, // event-service: move every application of the task to a new status
+    EVENT_APPLICATION_REMOVE,       // event-service: drop one runner's application
+    EVENT_TASK_CACHE_INVALIDATE,    // event-service: forget its cached dates/capacity of the task
+    PAYMENT_RELEASE,                // payment-service: release the escrow of one recipient
+    PAYMENT_RELEASE_ALL             // payment-service: release every escrow of the task in one call
+}
@@ -0,0 +1,10 @@
+package com.gigs.task_service.model;
+
+public enum OutboxStatus {
+    PENDING,   // waiting for the relay (or for its next retry)
+    IN_FLIGHT, // claimed by a relay run until next_attempt_at (the lease), then due again
+    SENT,      // delivered, kept until the retention window passes
+    FAILED,    // rejected by the consumer or out of attempts; holds back the later events of its
+               // task until an operator retries or skips it (OutboxAdminController)
+    SKIPPED    // FAILED event an operator gave up on; no longer holds back its task
+}
@@ -53,7 +53,7 @@ public class RegularTask extends Task {
     public TaskResponse toDto() {
         return RegularTaskResponse.builder()
                 .taskId(getTaskId())
-                .imageUrls(getImageUrls())
+                .imageUrls(copyOf(getImageUrls()))
                 .taskPoster(getTaskPoster())
                 .title(getTitle())
                 .description(getDescription())
@@ -4,10 +4,12 @@ import com.gigs.task_service.dto.request.TaskRequest;
 import com.gigs.task_service.dto.response.TaskResponse;
 import com.vladmihalcea.hibernate.type.json.JsonType;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.Type;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
@@ -51,7 +53,9 @@ public abstract class Task {
 
 
 
+    // loaded in batches when a list of tasks is mapped, instead of one query per task
     @ElementCollection
+    @BatchSize(size = 100)
     private List<String> imageUrls;
 
 
@@ -85,6 +89,11 @@ public abstract class Task {
 
     public abstract TaskResponse toDto();
 
+    // DTOs must not share Hibernate's lazy collections; they outlive the session
+    protected static <T> List<T> copyOf(List<T> list) {
+        return list == null ? null : new ArrayList<>(list);
+    }
+
     // Getters and Setters
     public Long getTaskId() { return taskId; }
     public void setTaskId(Long taskId) { this.taskId = taskId; }
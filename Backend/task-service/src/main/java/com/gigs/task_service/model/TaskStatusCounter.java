@@ -0,0 +1,59 @@
+package com.gigs.task_service.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Number of tasks a poster has in a given status, maintained by TaskService on every
+ * create, status change and delete so dashboard counts are a primary-key lookup.
+ */
+@Entity
+@Table(name = "task_status_counter")
+public class TaskStatusCounter {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "task_count", nullable = false)
+    private long count;
+
+    public TaskStatusCounter() {}
+
+    public Key getId() { return id; }
+    public long getCount() { return count; }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "poster_id", nullable = false)
+        private Long posterId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 20)
+        private TaskStatus status;
+
+        public Key() {}
+
+        public Key(Long posterId, TaskStatus status) {
+            this.posterId = posterId;
+            this.status = status;
+        }
+
+        public Long getPosterId() { return posterId; }
+        public TaskStatus getStatus() { return status; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(posterId, key.posterId) && status == key.status;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(posterId, status);
+        }
+    }
+}
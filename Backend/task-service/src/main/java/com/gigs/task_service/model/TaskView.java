@@ -0,0 +1,171 @@
+package com.gigs.task_service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.gigs.task_service.dto.response.EventStaffingTaskResponse;
+import com.gigs.task_service.dto.response.RegularTaskResponse;
+import com.gigs.task_service.dto.response.TaskResponse;
+import com.vladmihalcea.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Flattened, read-only copy of a Task and its subtype columns in one row.
+ * <p>
+ * The write model stays JOINED; TaskViewProjector rewrites the matching row in the same
+ * transaction as every save or delete, so reads never join task, regular_task and
+ * event_staffing_task or touch the element collection tables.
+ */
+@Entity
+@Table(name = "task_view", indexes = {
+        @Index(name = "idx_task_view_poster_status", columnList = "task_poster, status, kind"),
+        @Index(name = "idx_task_view_status", columnList = "status")
+})
+public class TaskView {
+
+    public static final String REGULAR = "REGULAR";
+    public static final String EVENT = "EVENT";
+
+    // same id as the task, never generated here
+    @Id
+    private Long taskId;
+
+    @Column(nullable = false, length = 10)
+    private String kind;
+
+    private Long taskPoster;
+    private String title;
+    private String description;
+    private String type;
+    private double longitude;
+    private double latitude;
+    private LocalDateTime createdDate;
+
+    @Type(JsonType.class)
+    @Column(columnDefinition = "json")
+    private JsonNode additionalRequirements;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TaskStatus status;
+
+    @Type(JsonType.class)
+    @Column(columnDefinition = "json")
+    private List<String> imageUrls;
+
+    // RegularTask columns, null for event tasks
+    private Double amount;
+
+    @Type(JsonType.class)
+    @Column(columnDefinition = "json")
+    private JsonNode additionalAttributes;
+
+    private Long runnerId;
+
+    // EventStaffingTask columns, null for regular tasks
+    private String location;
+    private Double fixedPay;
+    private Integer requiredPeople;
+
+    @Type(JsonType.class)
+    @Column(columnDefinition = "json")
+    private List<Long> runnerIds;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer numberOfDays;
+
+    public TaskView() {}
+
+    /**
+     * Builds the row for a task. Must be called with the task still attached so lazy
+     * collections can be copied.
+     */
+    public static TaskView of(Task task) {
+        TaskView view = new TaskView();
+        view.taskId = task.getTaskId();
+        view.taskPoster = task.getTaskPoster();
+        view.title = task.getTitle();
+        view.description = task.getDescription();
+        view.type = task.getType();
+        view.longitude = task.getLongitude();
+        view.latitude = task.getLatitude();
+        view.createdDate = task.getCreatedDate();
+        view.additionalRequirements = task.getAdditionalRequirements();
+        view.status = task.getStatus();
+        view.imageUrls = Task.copyOf(task.getImageUrls());
+
+        if (task instanceof RegularTask rt) {
+            view.kind = REGULAR;
+            view.amount = rt.getAmount();
+            view.additionalAttributes = rt.getAdditionalAttributes();
+            view.runnerId = rt.getRunnerId();
+        } else if (task instanceof EventStaffingTask et) {
+            view.kind = EVENT;
+            view.location = et.getLocation();
+            view.fixedPay = et.getFixedPay();
+            view.requiredPeople = et.getRequiredPeople();
+            view.runnerIds = Task.copyOf(et.getRunnerIds());
+            view.startDate = et.getStartDate();
+            view.endDate = et.getEndDate();
+            view.numberOfDays = et.getNumberOfDays();
+        } else {
+            throw new IllegalArgumentException("Unsupported task type: " + task.getClass().getSimpleName());
+        }
+        return view;
+    }
+
+    public TaskResponse toDto() {
+        if (isRegular()) {
+            return RegularTaskResponse.builder()
+                    .taskId(taskId)
+                    .imageUrls(Task.copyOf(imageUrls))
+                    .taskPoster(taskPoster)
+                    .title(title)
+                    .description(description)
+                    .type(type)
+                    .longitude(longitude)
+                    .latitude(latitude)
+                    .status(status.name())
+                    .additionalRequirements(additionalRequirements)
+                    .amount(amount == null ? 0 : amount)
+                    .additionalAttributes(additionalAttributes)
+                    .runnerId(runnerId == null ? 0L : runnerId)
+                    .createdDate(createdDate)
+                    .build();
+        }
+        return EventStaffingTaskResponse.builder()
+                .taskId(taskId)
+                .imageUrls(Task.copyOf(imageUrls))
+                .taskPoster(taskPoster)
+                .title(title)
+                .description(description)
+                .type(type)
+                .longitude(longitude)
+                .latitude(latitude)
+                .status(status.name())
+                .additionalRequirements(additionalRequirements)
+                .location(location)
+                .fixedPay(fixedPay == null ? 0 : fixedPay)
+                .requiredPeople(requiredPeople == null ? 0 : requiredPeople)
+                .runnerIds(Task.copyOf(runnerIds))
+                .startDate(startDate)
+                .endDate(endDate)
+                .numberOfDays(numberOfDays == null ? 0 : numberOfDays)
+                .createdDate(createdDate)
+                .build();
+    }
+
+    public boolean isRegular() { return REGULAR.equals(kind); }
+    public boolean isEvent() { return EVENT.equals(kind); }
+
+    public Long getTaskId() { return taskId; }
+    public String getKind() { return kind; }
+    public Long getTaskPoster() { return taskPoster; }
+    public TaskStatus getStatus() { return status; }
+    public Long getRunnerId() { return runnerId; }
+    public List<Long> getRunnerIds() { return runnerIds; }
+}
@@ -0,0 +1,41 @@
+package com.gigs.task_service.repository;
+
+import com.gigs.task_service.model.OutboxEvent;
+import com.gigs.task_service.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    List<OutboxEvent> findByStatusAndIdGreaterThanOrderByIdAsc(OutboxStatus status, Long afterId, Pageable pageable);
+
+    // Due rows: PENDING past their retry time, or IN_FLIGHT past their lease (the run that
+    // claimed them died). Only the oldest undelivered event of each task: a row waits while an
+    // earlier row of its task is PENDING (due or not, locked by another instance or not),
+    // IN_FLIGHT or FAILED, so per-task order holds across batches and instances. SKIP LOCKED
+    // lets several task-service instances claim without picking the same rows; OF e keeps the
+    // subquery a plain read.
+    @Query(value = """
+      SELECT * FROM outbox_event e
+      WHERE e.status IN ('PENDING', 'IN_FLIGHT') AND e.next_attempt_at <= :now
+        AND NOT EXISTS (
+          SELECT 1 FROM outbox_event b
+          WHERE b.task_id = e.task_id AND b.id < e.id AND b.status IN ('PENDING', 'IN_FLIGHT', 'FAILED'))
+      ORDER BY e.id
+      LIMIT :limit
+      FOR UPDATE OF e SKIP LOCKED
+    """, nativeQuery = true)
+    List<OutboxEvent> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.gigs.task_service.model.OutboxStatus.SENT AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -1,9 +1,8 @@
 package com.gigs.task_service.repository;
 
-import com.gigs.task_service.model.EventStaffingTask;
-import com.gigs.task_service.model.RegularTask;
 import com.gigs.task_service.model.Task;
 import com.gigs.task_service.model.TaskStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,34 +10,8 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface TaskRepository extends JpaRepository<Task,Long> {
-    List<Task> findByTaskPoster(Long taskPoster);
-
     long countByTaskPosterAndStatus(Long taskPoster, TaskStatus status);
 
-    @Query("""
-      SELECT t
-      FROM Task t
-      WHERE TYPE(t) = RegularTask
-        AND t.taskPoster = :poster
-        AND t.status     = :status
-    """)
-    List<RegularTask> findRegularTasksByPosterAndStatus(
-            @Param("poster") Long poster,
-            @Param("status") TaskStatus status
-    );
-
-    @Query("""
-      SELECT t
-      FROM Task t
-      WHERE TYPE(t) = EventStaffingTask
-        AND t.taskPoster = :poster
-        AND t.status     = :status
-    """)
-    List<EventStaffingTask> findEventTasksByPosterAndStatus(
-            @Param("poster") Long poster,
-            @Param("status") TaskStatus status
-    );
-
 
 // !!!!!DEH el regular task bs mmkn ast5dmha b3dain!!!!!
 //    @Query("""
@@ -60,28 +33,66 @@ public interface TaskRepository extends JpaRepository<Task,Long> {
 //            @Param("radius") double radius
 //    );
 
-    @Query("""
-        SELECT t
-        FROM Task t
-        WHERE t.status = :status
-          AND t.taskPoster <> :excludePosterId
-          AND (6371 * acos(
-                cos(radians(:lat)) 
-              * cos(radians(t.latitude)) 
-              * cos(radians(t.longitude) - radians(:lon)) 
-              + sin(radians(:lat)) 
-              * sin(radians(t.latitude))
-            )) <= :radius
-    """)
-    List<Task> findNearbyByStatusExcludingPoster(
-            @Param("status")           TaskStatus status,
+    /**
+     * Ids of tasks within {@code radiusMeters}, nearest first.
+     * The MBRContains prefilter lets MySQL use the spatial index on {@code geo_point}
+     * (see SpatialIndexInitializer); only the rows inside the bounding box get the exact
+     * spherical distance check.
+     */
+    @Query(value = """
+        SELECT t.task_id
+        FROM task t
+        WHERE MBRContains(ST_GeomFromText(:envelope, 4326), t.geo_point)
+          AND t.status = :status
+          AND t.task_poster <> :excludePosterId
+          AND ST_Distance_Sphere(t.geo_point, ST_SRID(POINT(:lat, :lon), 4326)) <= :radiusMeters
+        ORDER BY ST_Distance_Sphere(t.geo_point, ST_SRID(POINT(:lat, :lon), 4326)), t.task_id
+    """, nativeQuery = true)
+    List<Long> findNearbyIdsByStatusExcludingPoster(
+            @Param("envelope")         String envelope,
+            @Param("status")           String status,
             @Param("lat")              double lat,
             @Param("lon")              double lon,
-            @Param("radius")           double radius,
+            @Param("radiusMeters")     double radiusMeters,
             @Param("excludePosterId")  Long excludePosterId
     );
 
 
-    List<Task> findByTaskPosterAndStatus(Long taskPoster, TaskStatus status);
+    /**
+     * One page of the distance-ordered nearby feed as (task_id, distance in meters) rows.
+     * Keyset condition on (distance, task_id) instead of OFFSET, so later pages do not re-read earlier ones.
+     */
+    @Query(value = """
+        SELECT d.task_id, d.distance
+        FROM (
+            SELECT t.task_id,
+                   ST_Distance_Sphere(t.geo_point, ST_SRID(POINT(:lat, :lon), 4326)) AS distance
+            FROM task t
+            WHERE MBRContains(ST_GeomFromText(:envelope, 4326), t.geo_point)
+              AND t.status = :status
+              AND t.task_poster <> :excludePosterId
+              AND (:type IS NULL OR t.type = :type)
+        ) d
+        WHERE d.distance <= :radiusMeters
+          AND (d.distance > :afterDistance OR (d.distance = :afterDistance AND d.task_id > :afterId))
+        ORDER BY d.distance, d.task_id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Object[]> findNearbyPage(
+            @Param("envelope")         String envelope,
+            @Param("status")           String status,
+            @Param("lat")              double lat,
+            @Param("lon")              double lon,
+            @Param("radiusMeters")     double radiusMeters,
+            @Param("excludePosterId")  Long excludePosterId,
+            @Param("type")             String type,
+            @Param("afterDistance")    double afterDistance,
+            @Param("afterId")          long afterId,
+            @Param("limit")            int limit
+    );
+
+    List<Task> findByStatusAndTaskIdGreaterThanOrderByTaskIdAsc(TaskStatus status, Long afterId, Pageable pageable);
+
+    List<Task> findByTaskIdGreaterThanOrderByTaskIdAsc(Long afterId, Pageable pageable);
 
 }
@@ -0,0 +1,54 @@
+package com.gigs.task_service.repository;
+
+import com.gigs.task_service.model.TaskStatusCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TaskStatusCounterRepository extends JpaRepository<TaskStatusCounter, TaskStatusCounter.Key> {
+
+    List<TaskStatusCounter> findByIdPosterId(Long posterId);
+
+    // Single-statement upsert: the row lock taken by MySQL makes concurrent deltas safe.
+    // Not clamped at zero, so a missed increment shows up as a negative count instead of hiding
+    @Modifying
+    @Query(value = """
+      INSERT INTO task_status_counter (poster_id, status, task_count)
+      VALUES (:poster, :status, :delta)
+      ON DUPLICATE KEY UPDATE task_count = task_count + :delta
+    """, nativeQuery = true)
+    int add(@Param("poster") Long poster,
+            @Param("status") String status,
+            @Param("delta") long delta);
+
+    // Overwrites rows another instance's add() created meanwhile: the SELECT locks the task
+    // rows it counts, so the counts already include those writes
+    @Modifying
+    @Query(value = """
+      INSERT INTO task_status_counter (poster_id, status, task_count)
+      SELECT * FROM (
+        SELECT t.task_poster, t.status, COUNT(*) AS cnt
+        FROM task t
+        WHERE t.task_poster IS NOT NULL
+        GROUP BY t.task_poster, t.status
+      ) AS src
+      ON DUPLICATE KEY UPDATE task_count = src.cnt
+    """, nativeQuery = true)
+    int rebuildFromTasks();
+
+    // Second half of a full rebuild: rows whose (poster, status) no longer has any task
+    @Modifying
+    @Query(value = """
+      UPDATE task_status_counter c
+      SET c.task_count = 0
+      WHERE c.task_count <> 0
+        AND NOT EXISTS (
+          SELECT 1 FROM task t
+          WHERE t.task_poster = c.poster_id AND t.status = c.status
+        )
+    """, nativeQuery = true)
+    int zeroCountersWithoutTasks();
+}
@@ -0,0 +1,20 @@
+package com.gigs.task_service.repository;
+
+import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.model.TaskView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+// Single-table reads over task_view; no joins and no element collection queries
+public interface TaskViewRepository extends JpaRepository<TaskView, Long> {
+
+    List<TaskView> findByTaskPoster(Long taskPoster);
+
+    List<TaskView> findByTaskPosterAndStatus(Long taskPoster, TaskStatus status);
+
+    List<TaskView> findByTaskPosterAndStatusAndKind(Long taskPoster, TaskStatus status, String kind);
+
+    List<TaskView> findByTaskIdGreaterThanOrderByTaskIdAsc(Long taskId, Pageable pageable);
+}
@@ -0,0 +1,181 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.dto.response.TaskResponse;
+import com.gigs.task_service.geo.GeoHashGrid;
+import com.gigs.task_service.model.Task;
+import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory geohash index of OPEN tasks backing the nearby feed.
+ * <p>
+ * Built once at startup from the repository and then kept up to date by TaskService
+ * on every write, so nearby lookups never hit MySQL. Writes reach the index only once
+ * their transaction commits, so a rolled-back change never shows up in the feed. Alongside the grid it keeps a
+ * detached TaskResponse per OPEN task to answer the request without loading entities.
+ * <p>
+ * Writes keep flowing while the warm-up runs, and a warm-up batch may have been read before a write
+ * that lands in the index ahead of it. The ids touched by such live writes are remembered until the
+ * warm-up ends and the warm-up never overwrites them: the live write is always the newer state.
+ */
+@Component
+public class NearbyTaskIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearbyTaskIndex.class);
+    private static final int WARM_UP_BATCH = 500;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GeoHashGrid grid;
+    private final Map<Long, TaskResponse> snapshots = new ConcurrentHashMap<>();
+    // ids changed by live writes since the warm-up started; its compute() also serialises each id
+    private final Map<Long, Boolean> changedDuringWarmUp = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private volatile boolean warming;
+    private volatile boolean ready;
+
+    public NearbyTaskIndex(TaskRepository taskRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${tasks.nearby.index.enabled:true}") boolean enabled,
+                           @Value("${tasks.nearby.index.precision-bits:25}") int precisionBits) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.grid = new GeoHashGrid(precisionBits);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        warming = true;
+        try {
+            long lastId = 0L;
+            while (true) {
+                final long after = lastId;
+                List<Task> batch = transactionTemplate.execute(status -> {
+                    List<Task> tasks = taskRepository.findByStatusAndTaskIdGreaterThanOrderByTaskIdAsc(
+                            TaskStatus.OPEN, after, PageRequest.of(0, WARM_UP_BATCH));
+                    // build the snapshots while the session is open
+                    tasks.forEach(this::load);
+                    return tasks;
+                });
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getTaskId();
+            }
+            ready = true;
+            logger.info("Nearby task index ready with {} open tasks", grid.size());
+        } catch (Exception e) {
+            logger.error("Failed to build nearby task index, falling back to database search", e);
+        } finally {
+            warming = false;
+            changedDuringWarmUp.clear();
+        }
+    }
+
+    // warm-up insert: skipped when a live write already settled this task
+    private void load(Task task) {
+        Long taskId = task.getTaskId();
+        Long poster = task.getTaskPoster();
+        double lat = task.getLatitude();
+        double lon = task.getLongitude();
+        TaskResponse snapshot = task.toDto();
+        afterCommit(() -> changedDuringWarmUp.compute(taskId, (id, changed) -> {
+            if (changed == null) {
+                snapshots.put(taskId, snapshot);
+                grid.put(taskId, poster, lat, lon);
+            }
+            return changed;
+        }));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds, moves or drops the task depending on its current status, after the surrounding
+     * transaction commits. Must be called with the task still attached so lazy collections
+     * can be copied: the snapshot is taken right away.
+     */
+    public void index(Task task) {
+        if (!enabled || task.getTaskId() == null) {
+            return;
+        }
+        if (task.getStatus() != TaskStatus.OPEN) {
+            remove(task.getTaskId());
+            return;
+        }
+        Long taskId = task.getTaskId();
+        Long poster = task.getTaskPoster();
+        double lat = task.getLatitude();
+        double lon = task.getLongitude();
+        TaskResponse snapshot = task.toDto();
+        afterCommit(() -> live(taskId, () -> {
+            snapshots.put(taskId, snapshot);
+            grid.put(taskId, poster, lat, lon);
+        }));
+    }
+
+    public void remove(Long taskId) {
+        if (taskId == null) {
+            return;
+        }
+        afterCommit(() -> live(taskId, () -> {
+            grid.remove(taskId);
+            snapshots.remove(taskId);
+        }));
+    }
+
+    public List<TaskResponse> findNearby(double lat, double lon, double radiusKm, Long excludePoster) {
+        long[] ids = grid.nearby(lat, lon, radiusKm, excludePoster == null ? Long.MIN_VALUE : excludePoster);
+        List<TaskResponse> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            TaskResponse dto = snapshots.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    // applies a committed write and, while warming up, marks the task so the warm-up leaves it alone
+    private void live(Long taskId, Runnable change) {
+        changedDuringWarmUp.compute(taskId, (id, changed) -> {
+            change.run();
+            return warming ? Boolean.TRUE : null;
+        });
+    }
+
+    // outside a transaction the change is applied right away
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
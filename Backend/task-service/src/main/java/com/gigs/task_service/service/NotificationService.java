@@ -1,83 +1,269 @@
 package com.gigs.task_service.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gigs.task_service.dto.response.NotificationStatsResponse;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends task notifications to the notification service off the request thread.
+ * <p>
+ * Callers only enqueue (after the surrounding transaction commits, if there is one).
+ * A single dispatcher thread drains the bounded queue in batches and posts each
+ * notification with connect/read timeouts (the notification API takes one notification
+ * per request and has no batch endpoint), retrying server and network errors with
+ * exponential backoff. When the queue is full new notifications are dropped and
+ * counted rather than blocking the task API.
+ */
 @Service
 public class NotificationService {
 
+    private static final String TASK_POSTED = "/api/notifications/task-posted";
+    private static final String TASK_UPDATE = "/api/notifications/task-update";
+
     @Value("${notification.service.url:http://localhost:8091}")
     private String notificationServiceUrl;
 
-    private final RestTemplate restTemplate;
+    @Value("${notification.queue.capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${notification.dispatch.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${notification.dispatch.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${notification.dispatch.backoff-ms:200}")
+    private long backoffMs = 200;
+
+    @Value("${notification.http.connect-timeout-ms:2000}")
+    private int connectTimeoutMs = 2000;
+
+    @Value("${notification.http.read-timeout-ms:3000}")
+    private int readTimeoutMs = 3000;
+
+    @Value("${notification.dispatcher.enabled:true}")
+    private boolean dispatcherEnabled = true;
+
+    private RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
 
+    private BlockingQueue<PendingNotification> queue;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong latencyTotalNanos = new AtomicLong();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+    private record PendingNotification(String path, Map<String, Object> body, String description, long enqueuedAt) {}
+
     public NotificationService() {
-        this.restTemplate = new RestTemplate();
         this.objectMapper = new ObjectMapper();
     }
 
-    public void sendTaskCreatedNotification(Long userId, Long taskId, String taskTitle) {
-        try {
-            String url = notificationServiceUrl + "/api/notifications/task-posted";
-            
-            Map<String, Object> notificationBody = new HashMap<>();
-            notificationBody.put("userId", userId);
-            notificationBody.put("taskId", taskId);
-            notificationBody.put("taskTitle", taskTitle);
-            notificationBody.put("fcmToken", "dIL5__iqTl-pZFWBLG3EyN:APA91bE1ta_CKDNFvSZ4U5gAWK70xsfoUKmYjMowoV3CZbaK3YP_BWwADyOIyh1ugqxvwZFUOHQ9OuX7P3WwE3MKxEX-j4se9QDChQXK-WmQPwWCGP_UH0E");
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(notificationBody, headers);
-
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-            // Log the response for debugging
-            System.out.println("Task creation notification sent successfully. Response: " + response.getStatusCode());
-            
-        } catch (Exception e) {
-            // Log the error but don't throw it to avoid breaking the task creation flow
-            System.err.println("Failed to send notification for task creation: " + e.getMessage());
-            e.printStackTrace();
+    @PostConstruct
+    public void start() {
+        if (restTemplate == null) {
+            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+            factory.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
+            factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            restTemplate = new RestTemplate(factory);
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (dispatcherEnabled) {
+            running = true;
+            dispatcher = new Thread(this::dispatchLoop, "notification-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
+        // best effort for whatever is still queued
+        dispatchPending();
+    }
+
+    public void sendTaskCreatedNotification(Long userId, Long taskId, String taskTitle) {
+        enqueueAfterCommit(TASK_POSTED, body(userId, taskId, taskTitle), "task creation");
     }
 
     public void sendTaskStatusUpdateNotification(Long userId, Long taskId, String taskTitle) {
+        enqueueAfterCommit(TASK_UPDATE, body(userId, taskId, taskTitle), "task status update");
+    }
+
+    public NotificationStatsResponse getStats() {
+        long done = delivered.get() + failed.get();
+        return NotificationStatsResponse.builder()
+                .queueDepth(queue == null ? 0 : queue.size())
+                .queueCapacity(queueCapacity)
+                .enqueued(enqueued.get())
+                .delivered(delivered.get())
+                .failed(failed.get())
+                .dropped(dropped.get())
+                .retries(retries.get())
+                .dropRate(enqueued.get() + dropped.get() == 0 ? 0.0
+                        : (double) dropped.get() / (enqueued.get() + dropped.get()))
+                .avgDispatchLatencyMs(done == 0 ? 0.0 : latencyTotalNanos.get() / 1_000_000.0 / done)
+                .maxDispatchLatencyMs(latencyMaxNanos.get() / 1_000_000.0)
+                .build();
+    }
+
+    /**
+     * Sends everything currently queued on the calling thread and returns how many
+     * notifications were taken off the queue.
+     */
+    int dispatchPending() {
+        if (queue == null) {
+            return 0;
+        }
+        int total = 0;
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            dispatch(batch);
+            total += batch.size();
+            batch.clear();
+        }
+        return total;
+    }
+
+    private void dispatchLoop() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingNotification first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Notification dispatcher error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<PendingNotification> batch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        for (PendingNotification n : batch) {
+            boolean ok = send(n, headers);
+            long latency = System.nanoTime() - n.enqueuedAt();
+            latencyTotalNanos.addAndGet(latency);
+            latencyMaxNanos.accumulateAndGet(latency, Math::max);
+            (ok ? delivered : failed).incrementAndGet();
+        }
+    }
+
+    private boolean send(PendingNotification n, HttpHeaders headers) {
+        String url = notificationServiceUrl + n.path();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                restTemplate.postForEntity(url, new HttpEntity<>(n.body(), headers), String.class);
+                return true;
+            } catch (HttpClientErrorException e) {
+                // 4xx will not succeed on retry
+                System.err.println("Notification for " + n.description() + " rejected: " + e.getStatusCode());
+                return false;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    System.err.println("Failed to send notification for " + n.description()
+                            + " after " + attempt + " attempts: " + e.getMessage());
+                    return false;
+                }
+                retries.incrementAndGet();
+                if (!sleep(backoffMs << (attempt - 1))) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private boolean sleep(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
         try {
-            String url = notificationServiceUrl + "/api/notifications/task-update";
-            
-            Map<String, Object> notificationBody = new HashMap<>();
-            notificationBody.put("userId", userId);
-            notificationBody.put("taskId", taskId);
-            notificationBody.put("taskTitle", taskTitle);
-            notificationBody.put("fcmToken", "dIL5__iqTl-pZFWBLG3EyN:APA91bE1ta_CKDNFvSZ4U5gAWK70xsfoUKmYjMowoV3CZbaK3YP_BWwADyOIyh1ugqxvwZFUOHQ9OuX7P3WwE3MKxEX-j4se9QDChQXK-WmQPwWCGP_UH0E");
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(notificationBody, headers);
-
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            
-            // Log the response for debugging
-            System.out.println("Task status update notification sent successfully. Response: " + response.getStatusCode());
-            
-        } catch (Exception e) {
-            // Log the error but don't throw it to avoid breaking the task status update flow
-            System.err.println("Failed to send notification for task status update: " + e.getMessage());
-            e.printStackTrace();
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Notifications describe committed state, so inside a transaction they wait for the commit
+    private void enqueueAfterCommit(String path, Map<String, Object> body, String description) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(path, body, description);
+                }
+            });
+        } else {
+            enqueue(path, body, description);
         }
     }
-} 
\ No newline at end of file
+
+    private void enqueue(String path, Map<String, Object> body, String description) {
+        PendingNotification n = new PendingNotification(path, body, description, System.nanoTime());
+        if (queue != null && queue.offer(n)) {
+            enqueued.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+            System.err.println("Notification queue full, dropped notification for " + description);
+        }
+    }
+
+    private Map<String, Object> body(Long userId, Long taskId, String taskTitle) {
+        Map<String, Object> notificationBody = new HashMap<>();
+        notificationBody.put("userId", userId);
+        notificationBody.put("taskId", taskId);
+        notificationBody.put("taskTitle", taskTitle);
+        notificationBody.put("fcmToken", "dIL5__iqTl-pZFWBLG3EyN:APA91bE1ta_CKDNFvSZ4U5gAWK70xsfoUKmYjMowoV3CZbaK3YP_BWwADyOIyh1ugqxvwZFUOHQ9OuX7P3WwE3MKxEX-j4se9QDChQXK-WmQPwWCGP_UH0E");
+        return notificationBody;
+    }
+}
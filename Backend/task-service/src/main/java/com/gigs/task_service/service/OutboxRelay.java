@@ -0,0 +1,239 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.client.EventClient;
+import com.gigs.task_service.client.OfferClient;
+import com.gigs.task_service.client.payment.PaymentClient;
+import com.gigs.task_service.config.OutboxIdempotencyKeyInterceptor;
+import com.gigs.task_service.model.OutboxEvent;
+import com.gigs.task_service.model.OutboxStatus;
+import com.gigs.task_service.repository.OutboxEventRepository;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Delivers outbox events to offer-, event- and payment-service.
+ * <p>
+ * Each run claims a batch of due rows (SKIP LOCKED) in a short transaction that marks them
+ * IN_FLIGHT with a lease and commits before any consumer is called. The consumers are then
+ * called in id order with no transaction or row lock held, and each outcome is recorded in
+ * a transaction of its own, so a slow consumer delays only its own row. Delivery is
+ * at-least-once: a row whose instance died before recording the outcome is claimed again
+ * once its lease runs out, and sent again with the same idempotency key. Network errors, 5xx, 408 and 429 are retried with exponential backoff;
+ * other 4xx answers and exhausted retries mark the row FAILED. Per-task order is kept by
+ * the batch query, which only hands out a task's oldest undelivered event: a later event
+ * waits while an earlier one is in flight, being retried or has FAILED, until an operator
+ * retries or skips it (see OutboxAdminController).
+ * Consumers treat a redelivered effect that is already applied as a success.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxRepository;
+    private final OfferClient offerClient;
+    private final EventClient eventClient;
+    private final PaymentClient paymentClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.relay.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${outbox.relay.backoff-ms:1000}")
+    private long backoffMs = 1000;
+
+    @Value("${outbox.relay.max-backoff-ms:600000}")
+    private long maxBackoffMs = 600000;
+
+    // must outlast a whole batch of consumer calls, or rows still being delivered are claimed again
+    @Value("${outbox.relay.lease-ms:600000}")
+    private long leaseMs = 600000;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays = 7;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       OfferClient offerClient,
+                       EventClient eventClient,
+                       PaymentClient paymentClient,
+                       TransactionTemplate transactionTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.offerClient = offerClient;
+        this.eventClient = eventClient;
+        this.paymentClient = paymentClient;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // keep going while anything was due, so a backlog (also one task's queue, which only
+            // yields one event per batch) drains without waiting; a batch either delivers or
+            // reschedules each row, so this ends once nothing is due
+            List<OutboxEvent> batch;
+            do {
+                batch = claimBatch();
+                for (OutboxEvent event : batch) {
+                    relay(event);
+                }
+            } while (!batch.isEmpty());
+        } catch (Exception e) {
+            logger.error("Outbox relay run failed", e);
+        }
+    }
+
+    @Scheduled(cron = "${outbox.cleanup.cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Integer removed = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        logger.info("Purged {} delivered outbox events", removed);
+    }
+
+    // FAILED rows, oldest first, for an operator to retry or skip
+    public List<OutboxEvent> findFailed(long afterId, int limit) {
+        return outboxRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                OutboxStatus.FAILED, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Puts a FAILED row back in the queue with a fresh attempt budget, e.g. once the consumer
+     * is fixed. Returns false when the row is not FAILED.
+     */
+    public boolean retryFailed(long id) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            OutboxEvent event = findForAdmin(id);
+            if (event.getStatus() != OutboxStatus.FAILED) {
+                return false;
+            }
+            event.retryNow(LocalDateTime.now());
+            outboxRepository.save(event);
+            logger.warn("Outbox event {} ({}) requeued by an operator", id, event.getIdempotencyKey());
+            return true;
+        }));
+    }
+
+    /**
+     * Gives up on a FAILED row so the later events of its task are delivered. The effect is
+     * never applied; returns false when the row is not FAILED.
+     */
+    public boolean skipFailed(long id) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            OutboxEvent event = findForAdmin(id);
+            if (event.getStatus() != OutboxStatus.FAILED) {
+                return false;
+            }
+            event.markSkipped();
+            outboxRepository.save(event);
+            logger.warn("Outbox event {} ({}) skipped by an operator", id, event.getIdempotencyKey());
+            return true;
+        }));
+    }
+
+    private OutboxEvent findForAdmin(long id) {
+        return outboxRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Outbox event not found: " + id));
+    }
+
+    // commits before the first consumer call, so no row lock is held while delivering
+    private List<OutboxEvent> claimBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxRepository.lockDueBatch(now, batchSize);
+            LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000L);
+            for (OutboxEvent event : due) {
+                event.claim(leaseUntil);
+            }
+            outboxRepository.saveAll(due);
+            return due;
+        });
+        return batch == null ? List.of() : batch;
+    }
+
+    private void relay(OutboxEvent event) {
+        Exception failure = null;
+        try {
+            deliver(event);
+        } catch (Exception e) {
+            failure = e;
+        }
+        Exception outcome = failure;
+        transactionTemplate.executeWithoutResult(status -> record(event.getId(), outcome));
+    }
+
+    private void record(Long id, Exception failure) {
+        OutboxEvent event = outboxRepository.findById(id).orElse(null);
+        // the lease ran out and another run has settled the row meanwhile
+        if (event == null || event.getStatus() != OutboxStatus.IN_FLIGHT) {
+            return;
+        }
+        if (failure == null) {
+            event.markSent();
+        } else {
+            int attempts = event.incrementAttempts();
+            String error = failure.getClass().getSimpleName() + ": " + failure.getMessage();
+            if (!isRetryable(failure) || attempts >= maxAttempts) {
+                event.markFailed(error);
+                logger.error("Outbox event {} ({}) failed permanently after {} attempts: {}",
+                        event.getId(), event.getIdempotencyKey(), attempts, error);
+            } else {
+                LocalDateTime next = LocalDateTime.now().plusNanos(backoff(attempts) * 1_000_000L);
+                event.scheduleRetry(error, next);
+                logger.warn("Outbox event {} ({}) failed, retry {} at {}: {}",
+                        event.getId(), event.getIdempotencyKey(), attempts, next, error);
+            }
+        }
+        outboxRepository.save(event);
+    }
+
+    private void deliver(OutboxEvent event) {
+        OutboxIdempotencyKeyInterceptor.set(event.getIdempotencyKey());
+        try {
+            switch (event.getType()) {
+                case OFFERS_DELETE -> offerClient.deleteOffers(event.getTaskId());
+                case OFFER_STATUS_UPDATE -> offerClient.updateOfferStatus(event.getTaskId(), event.getTargetStatus());
+                case EVENT_APPLICATIONS_DELETE -> eventClient.deleteApplicationsForTask(event.getTaskId());
+                case EVENT_APPLICATIONS_STATUS_UPDATE ->
+                        eventClient.updateApplicationStatus(event.getTaskId(), event.getTargetStatus());
+                case EVENT_APPLICATION_REMOVE -> eventClient.removeApplication(event.getUserId(), event.getTaskId());
+                case EVENT_TASK_CACHE_INVALIDATE -> eventClient.invalidateTaskCache(event.getTaskId());
+                case PAYMENT_RELEASE -> paymentClient.releasePayment(event.getTaskId(), event.getUserId());
+                case PAYMENT_RELEASE_ALL -> paymentClient.releaseAllPayments(event.getTaskId());
+            }
+        } finally {
+            OutboxIdempotencyKeyInterceptor.clear();
+        }
+    }
+
+    private boolean isRetryable(Exception e) {
+        if (e instanceof FeignException fe) {
+            int status = fe.status();
+            // status < 0: no response at all (connection refused, timeout)
+            return status < 0 || status >= 500 || status == 408 || status == 429;
+        }
+        return true;
+    }
+
+    private long backoff(int attempts) {
+        long delay = backoffMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffMs);
+    }
+}
@@ -0,0 +1,79 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.model.OutboxEvent;
+import com.gigs.task_service.model.OutboxEventType;
+import com.gigs.task_service.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Records side effects of task changes in the outbox table.
+ * <p>
+ * Every method joins the caller's transaction (and refuses to run without one), so an
+ * effect is stored if and only if the task change that caused it commits. Delivery is
+ * done later by {@link OutboxRelay}.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxRepository;
+
+    public OutboxService(OutboxEventRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    public void deleteOffers(Long taskId) {
+        add(OutboxEventType.OFFERS_DELETE, taskId, null, null,
+                "offers-delete:" + taskId);
+    }
+
+    public void updateOfferStatus(Long taskId, String status) {
+        add(OutboxEventType.OFFER_STATUS_UPDATE, taskId, null, status,
+                "offer-status:" + taskId + ":" + status);
+    }
+
+    public void deleteEventApplications(Long taskId) {
+        add(OutboxEventType.EVENT_APPLICATIONS_DELETE, taskId, null, null,
+                "event-applications-delete:" + taskId);
+    }
+
+    public void updateEventApplicationsStatus(Long taskId, String status) {
+        add(OutboxEventType.EVENT_APPLICATIONS_STATUS_UPDATE, taskId, null, status,
+                "event-applications-status:" + taskId + ":" + status);
+    }
+
+    // a runner can be removed, re-added and removed again, so every removal is its own effect
+    public void removeEventApplication(Long taskId, Long runnerId) {
+        add(OutboxEventType.EVENT_APPLICATION_REMOVE, taskId, runnerId, null,
+                "event-application-remove:" + taskId + ":" + runnerId + ":" + UUID.randomUUID());
+    }
+
+    // every edit is its own effect; event-service re-reads the task on the next lookup
+    public void invalidateEventTaskCache(Long taskId) {
+        add(OutboxEventType.EVENT_TASK_CACHE_INVALIDATE, taskId, null, null,
+                "event-task-cache:" + taskId + ":" + UUID.randomUUID());
+    }
+
+    // COMPLETED is terminal, so a recipient is paid out at most once per task
+    public void releasePayment(Long taskId, Long recipient) {
+        add(OutboxEventType.PAYMENT_RELEASE, taskId, recipient, null,
+                "payment-release:" + taskId + ":" + recipient);
+    }
+
+    // bulk payout of an event task, one remote call for all runners
+    public void releaseAllPayments(Long taskId) {
+        add(OutboxEventType.PAYMENT_RELEASE_ALL, taskId, null, null,
+                "payment-release-all:" + taskId);
+    }
+
+    private void add(OutboxEventType type, Long taskId, Long userId, String status, String key) {
+        if (outboxRepository.existsByIdempotencyKey(key)) {
+            return;
+        }
+        outboxRepository.save(new OutboxEvent(type, taskId, userId, status, key));
+    }
+}
@@ -5,62 +5,122 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gigs.task_service.client.MistralClient;
 import com.gigs.task_service.client.payment.PaymentClient;
 import com.gigs.task_service.client.payment.PaymentRequest;
-import com.gigs.task_service.client.EventClient;
-import com.gigs.task_service.client.OfferClient;
-import com.gigs.task_service.client.UserClient;
+import com.gigs.task_service.client.payment.ParticipantAssertionSigner;
+import com.gigs.task_service.client.UserExistenceCache;
 import com.gigs.task_service.dto.request.TaskDynamicPriceRequest;
 import com.gigs.task_service.dto.request.TaskRequest;
 import com.gigs.task_service.dto.response.EventStaffingTaskResponse;
+import com.gigs.task_service.dto.response.NearbyTaskPageResponse;
 import com.gigs.task_service.dto.response.RegularTaskResponse;
+import com.gigs.task_service.dto.response.TaskPageResponse;
 import com.gigs.task_service.dto.response.TaskResponse;
 import com.gigs.task_service.factory.TaskFactoryProvider;
+import com.gigs.task_service.geo.BoundingBox;
+import com.gigs.task_service.geo.NearbyCursor;
 import com.gigs.task_service.model.EventStaffingTask;
 import com.gigs.task_service.model.RegularTask;
 import com.gigs.task_service.model.Task;
 import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.model.TaskView;
 import com.gigs.task_service.repository.TaskRepository;
+import com.gigs.task_service.repository.TaskViewRepository;
 import com.gigs.task_service.validation.DefaultValidationService;
+import feign.RetryableException;
 import jakarta.transaction.Transactional;
 import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
 
+    private static final int MAX_NEARBY_PAGE_SIZE = 100;
+    private static final double MAX_NEARBY_RADIUS_KM = 100;
+    private static final int MAX_TASK_PAGE_SIZE = 500;
+    private static final int EXPORT_BATCH_SIZE = 500;
+    private static final int MAX_EVENT_BATCH = 500;
+
     private final TaskRepository taskRepository;
     private final TaskFactoryProvider taskFactoryProvider;
 
     private final PaymentClient paymentClient;
-    private final UserClient userClient;
-    private final OfferClient offerClient;
-    private final EventClient eventClient;
+    private final UserExistenceCache userExistence;
     private final DefaultValidationService validationService;
     private final NotificationService notificationService;
+    private final NearbyTaskIndex nearbyTaskIndex;
+    private final TaskViewProjector taskViewProjector;
+    private final TaskViewRepository taskViewRepository;
+    private final TaskStatusCounters statusCounters;
+    private final OutboxService outboxService;
+    private final ParticipantAssertionSigner assertionSigner;
     //Mo(for Ai/ML)
     private MistralClient mistralClient;
+
+    @Value("${payments.process.max-attempts:3}")
+    private int paymentMaxAttempts = 3;
+
     @Autowired
-    public TaskService(TaskRepository taskRepository, PaymentClient paymentClient, TaskFactoryProvider taskFactoryProvider, UserClient userClient,OfferClient offerClient,EventClient eventClient, DefaultValidationService validationService, NotificationService notificationService, MistralClient mistralClient) {
+    public TaskService(TaskRepository taskRepository, PaymentClient paymentClient, TaskFactoryProvider taskFactoryProvider, UserExistenceCache userExistence, DefaultValidationService validationService, NotificationService notificationService, NearbyTaskIndex nearbyTaskIndex, TaskViewProjector taskViewProjector, TaskViewRepository taskViewRepository, TaskStatusCounters statusCounters, OutboxService outboxService, ParticipantAssertionSigner assertionSigner, MistralClient mistralClient) {
         this.taskRepository = taskRepository;
         this.paymentClient = paymentClient;
         this.taskFactoryProvider = taskFactoryProvider;
-        this.userClient = userClient;
-        this.offerClient = offerClient;
-        this.eventClient=eventClient;
+        this.userExistence = userExistence;
         this.validationService = validationService;
         this.notificationService = notificationService;
+        this.nearbyTaskIndex = nearbyTaskIndex;
+        this.taskViewProjector = taskViewProjector;
+        this.taskViewRepository = taskViewRepository;
+        this.statusCounters = statusCounters;
+        this.outboxService = outboxService;
+        this.assertionSigner = assertionSigner;
         this.mistralClient = mistralClient;
     }
+
+    // Every write goes through these so the nearby index and task_view never drift from the task tables;
+    // the index applies the change once the transaction commits
+    private void onTaskSaved(Task task) {
+        taskViewProjector.project(task);
+        nearbyTaskIndex.index(task);
+    }
+
+    // The request carries an idempotency key, so a call that timed out can simply be repeated
+    private void processPayment(PaymentRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                paymentClient.processPayment(request);
+                return;
+            } catch (RetryableException e) {
+                if (attempt >= paymentMaxAttempts) {
+                    throw e;
+                }
+                System.err.println("Payment call for task " + request.getTaskId() + " failed (attempt "
+                        + attempt + "), retrying: " + e.getMessage());
+            }
+        }
+    }
+
+    private void onTaskDeleted(Task task) {
+        statusCounters.deleted(task.getTaskPoster(), task.getStatus());
+        taskViewProjector.remove(task.getTaskId());
+        nearbyTaskIndex.remove(task.getTaskId());
+    }
+
+    @Transactional
     public TaskResponse createTask(TaskRequest taskRequest) {
         validationService.validateCreate(taskRequest);
         Task newTask = taskFactoryProvider.createTask(taskRequest);
         Task savedTask = taskRepository.save(newTask);
-        
+        statusCounters.created(savedTask.getTaskPoster(), savedTask.getStatus());
+        onTaskSaved(savedTask);
+
         // Send notification after task is successfully created
         notificationService.sendTaskCreatedNotification(
             savedTask.getTaskPoster(), 
@@ -71,31 +131,86 @@ public class TaskService {
         return savedTask.toDto();
     }
 
-    public List<Task> getTasksByTaskPoster(Long taskPosterId) {
-        return taskRepository.findByTaskPoster(taskPosterId);
+    public List<TaskResponse> getTasksByTaskPoster(Long taskPosterId) {
+        return toDtos(taskViewRepository.findByTaskPoster(taskPosterId));
+    }
+
+    public List<TaskResponse> getAllTasks(){
+        return toDtos(taskViewRepository.findAll());
+    }
+
+    private List<TaskResponse> toDtos(List<TaskView> views) {
+        return views.stream()
+                .map(TaskView::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public TaskPageResponse getTasksPage(Long afterId, int limit) {
+        if (limit < 1 || limit > MAX_TASK_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_TASK_PAGE_SIZE);
+        }
+        List<TaskResponse> tasks = loadBatch(afterId == null ? 0L : afterId, limit);
+        Long nextAfterId = tasks.size() == limit ? tasks.get(tasks.size() - 1).getTaskId() : null;
+        return TaskPageResponse.builder()
+                .tasks(tasks)
+                .nextAfterId(nextAfterId)
+                .build();
+    }
+
+    /**
+     * Walks every task in taskId order and hands them to {@code sink} one batch at a time.
+     * Each batch is a single read of task_view, so memory stays bounded and no connection
+     * is held while the caller writes to a slow client.
+     */
+    public void forEachTaskBatch(Consumer<List<TaskResponse>> sink) {
+        long lastId = 0L;
+        while (true) {
+            List<TaskResponse> batch = loadBatch(lastId, EXPORT_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return;
+            }
+            sink.accept(batch);
+            lastId = batch.get(batch.size() - 1).getTaskId();
+        }
     }
 
-    public List<Task> getAllTasks(){
-        return taskRepository.findAll();
+    private List<TaskResponse> loadBatch(long afterId, int size) {
+        return toDtos(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(afterId, PageRequest.of(0, size)));
     }
 
     // NO Validation SERVICE (ali)
     public RegularTaskResponse getRegularTaskById(Long id) {
-        Task t = taskRepository.findById(id)
+        TaskView t = taskViewRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Task not found: " + id));
-        if (!(t instanceof RegularTask)) {
+        if (!t.isRegular()) {
             throw new RuntimeException("Task " + id + " is not a RegularTask");
         }
         return (RegularTaskResponse) t.toDto();
     }
 
+    /**
+     * Event tasks for the given ids in one query, for callers that would otherwise fetch
+     * them one by one. Unknown ids and non-event tasks are left out.
+     */
+    public List<EventStaffingTaskResponse> getEventTasksByIds(Collection<Long> ids) {
+        if (ids.size() > MAX_EVENT_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_EVENT_BATCH + " ids per request");
+        }
+        return taskViewRepository.findAllById(ids)
+                .stream()
+                .filter(TaskView::isEvent)
+                .map(TaskView::toDto)
+                .map(EventStaffingTaskResponse.class::cast)
+                .collect(Collectors.toList());
+    }
+
     public EventStaffingTaskResponse getEventTaskById(Long taskId) {
-        Task t = taskRepository.findById(taskId)
+        TaskView t = taskViewRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found: " + taskId));
-        if (!(t instanceof EventStaffingTask)) {
+        if (!t.isEvent()) {
             throw new RuntimeException("Task " + taskId + " is not an event task");
         }
-        // polymorphic: EventStaffingTask.toDto() returns EventStaffingTaskResponse
+        // TaskView.toDto() returns EventStaffingTaskResponse for event rows
         return (EventStaffingTaskResponse) t.toDto();
     }
 
@@ -106,15 +221,22 @@ public class TaskService {
 
 
     //lazm tt2kd mn el roles we en el user 7akeky -> update!!(msh btt2d en el user exists bs btt2ks eno lazm ykon el taskposter fa done (ali) )
+    @Transactional
     public TaskResponse updateTask(Long taskId, TaskRequest updatedTaskRequest) {
         validationService.validateUpdate(taskId, updatedTaskRequest);
 
         Task task = taskRepository.findById(taskId).get();
         task.updateFromRequest(updatedTaskRequest);
         Task saved = taskRepository.save(task);
+        onTaskSaved(saved);
+        if (saved instanceof EventStaffingTask) {
+            // dates or required people may have changed
+            outboxService.invalidateEventTaskCache(taskId);
+        }
         return saved.toDto();
     }
 
+    @Transactional
     public void deleteTask(Long taskId, TaskRequest deleteRequest) {
         try {
             validationService.validateDelete(taskId, deleteRequest);
@@ -126,13 +248,16 @@ public class TaskService {
 
             Task task = optionalTask.get();
 
+            // delivered by the outbox relay once this transaction commits
             if (task instanceof RegularTask) {
-                offerClient.deleteOffers(taskId);
+                outboxService.deleteOffers(taskId);
             } else if (task instanceof EventStaffingTask) {
-                eventClient.deleteApplicationsForTask(taskId);
+                outboxService.deleteEventApplications(taskId);
+                outboxService.invalidateEventTaskCache(taskId);
             }
 
             taskRepository.delete(task);
+            onTaskDeleted(task);
         } catch (Exception e) {
             System.err.println("Failed to delete task: " + e.getMessage());
             throw new RuntimeException("Could not delete task: " + e.getMessage(), e);
@@ -141,6 +266,7 @@ public class TaskService {
 
 
     //na2s yt2kd en el user exists
+    @Transactional
     public ResponseEntity<?> updateTaskStatus(Long taskId, TaskStatus newStatus, Long userId) {
         Optional<Task> taskOptional = taskRepository.findById(taskId);
         if (taskOptional.isEmpty()) {
@@ -171,11 +297,7 @@ public class TaskService {
                        .body("Only the Runner can mark a task as done");
            } else if (newStatus == TaskStatus.DONE && regularTask.getRunnerId() == userId) {
                //update offer status
-               try {
-               offerClient.updateOfferStatus(regularTask.getTaskId(),"AWAITING_PAYMENT");
-               }catch (Exception e){
-                   System.err.println("Failed to update offer status: " + e.getMessage());
-               }
+               outboxService.updateOfferStatus(regularTask.getTaskId(), "AWAITING_PAYMENT");
            }
         }
 
@@ -188,36 +310,16 @@ public class TaskService {
         else if (newStatus == TaskStatus.COMPLETED) {
             if (task instanceof RegularTask regularTask) {
 
-                // payment release for runner
-                try {
-                    paymentClient.releasePayment(taskId, regularTask.getRunnerId());
-                } catch (Exception e) {
-                    System.err.println("Failed to release payment for RegularTask: " + e.getMessage());
-                }
-                //Mark offer status as PAID (Mo new)
-                try{
-                    offerClient.updateOfferStatus(regularTask.getTaskId(),"PAID");
-                }
-                catch (Exception e){
-                    System.err.println("Failed to update offer status: " + e.getMessage());
-
-                }
+                // payment release for runner, then mark offer status as PAID (Mo new)
+                // (relayed in this order through the outbox)
+                outboxService.releasePayment(taskId, regularTask.getRunnerId());
+                outboxService.updateOfferStatus(regularTask.getTaskId(), "PAID");
             } else if (task instanceof EventStaffingTask eventTask) {
 
-                // payment release for each runner
-                for (Long recipient : eventTask.getRunnerIds()) {
-                    try {
-                        paymentClient.releasePayment(taskId, recipient);
-                    } catch (Exception e) {
-                        System.err.println("Failed to release payment for recipient ID " + recipient + ": " + e.getMessage());
-                    }
-                }
+                // payment release for every runner in one bulk call
+                outboxService.releaseAllPayments(taskId);
                // Mark event  applications as PAID
-                try{
-                    eventClient.updateApplicationStatus(eventTask.getTaskId(),"PAID");
-                }catch (Exception e){
-                    System.err.println("Failed to update application status: " + e.getMessage());
-                }
+                outboxService.updateEventApplicationsStatus(eventTask.getTaskId(), "PAID");
             }
         }
 
@@ -229,8 +331,11 @@ public class TaskService {
                     .body("Only the TaskPoster can cancel a task");
         }
         // Update status
+        TaskStatus oldStatus = task.getStatus();
         task.setStatus(newStatus);
         taskRepository.save(task);
+        statusCounters.transitioned(task.getTaskPoster(), oldStatus, newStatus);
+        onTaskSaved(task);
 
         // Send notification after task status is successfully updated
         notificationService.sendTaskStatusUpdateNotification(
@@ -242,6 +347,7 @@ public class TaskService {
         return ResponseEntity.ok("Task status updated to " + newStatus);
     }
 
+    @Transactional
     public void acceptRegularTaskOffer(Long taskId, Long taskPosterId, Long runnerId, double amount) {
         // 1) load and verify it's a RegularTask
         RegularTask task = taskRepository.findById(taskId)
@@ -251,10 +357,10 @@ public class TaskService {
 
         /*
         // 2) Existence checks
-        if (!userClient.existsById(taskPosterId)) {
+        if (!userExistence.exists(taskPosterId)) {
             throw new RuntimeException("TaskPoster not found: " + taskPosterId);
         }
-        if (!userClient.existsById(runnerId)) {
+        if (!userExistence.exists(runnerId)) {
             throw new RuntimeException("Runner not found: " + runnerId);
         }
 */
@@ -287,16 +393,23 @@ public class TaskService {
         // 8) update amount to match el offer
         task.setAmount(amount);
         taskRepository.save(task);
-        //TODO: 7ot el paymentClient.process  bel amount
+        statusCounters.transitioned(task.getTaskPoster(), TaskStatus.OPEN, TaskStatus.IN_PROGRESS);
+        onTaskSaved(task);
+        // 9) escrow the amount; without it the accept rolls back and the task stays OPEN
         try {
-            paymentClient.processPayment(new PaymentRequest(
+            // the key makes the retries within this call safe; a task that is reopened and
+            // accepted again (by this or another runner) is a new payment with a new key
+            processPayment(new PaymentRequest(
                     taskPosterId,
                     runnerId,
                     taskId,
-                    (long) amount
+                    (long) amount,
+                    "task-" + taskId + ":runner-" + runnerId + ":accept:" + UUID.randomUUID(),
+                    assertionSigner.sign(taskId, taskPosterId, runnerId, TaskStatus.IN_PROGRESS)
             ));
         } catch (Exception e) {
             System.err.println("Failed to process payment for RegularTask: " + e.getMessage());
+            throw new IllegalStateException("Payment processing failed, offer not accepted");
         }
         // MFROOOD NOTFICATION SERVICE B2A OR CLIENT Y3NY Y3RF EL RUNNER
         //notificationService.notifyRunnerAccepted(taskId, runnerId);
@@ -304,15 +417,16 @@ public class TaskService {
     }
 
     public boolean isInProgressWith(Long taskId, Long taskPosterId, Long runnerId) {
-        return taskRepository.findById(taskId)
+        return taskViewRepository.findById(taskId)
                 .map(task -> {
-                    if (task instanceof RegularTask rt) {
-                        return rt.getStatus() == TaskStatus.IN_PROGRESS &&
-                                rt.getTaskPoster().equals(taskPosterId) &&
-                                rt.getRunnerId() != 0L &&
-                                rt.getRunnerId() == runnerId &&
+                    if (task.isRegular()) {
+                        return task.getStatus() == TaskStatus.IN_PROGRESS &&
+                                task.getTaskPoster().equals(taskPosterId) &&
+                                task.getRunnerId() != null &&
+                                task.getRunnerId() != 0L &&
+                                task.getRunnerId().equals(runnerId) &&
                                 !runnerId.equals(taskPosterId);
-                    } else if (task instanceof EventStaffingTask est) {
+                    } else if (task.isEvent()) {
                         return true;
                     }
                     return false;
@@ -328,32 +442,122 @@ public class TaskService {
             double radius,
             Long requestingUserId
     ) {
-        return taskRepository
-                .findNearbyByStatusExcludingPoster(
-                        TaskStatus.OPEN, lat, lon, radius, requestingUserId
-                )
+        radius = clampRadius(radius);
+        if (nearbyTaskIndex.isReady()) {
+            return nearbyTaskIndex.findNearby(lat, lon, radius, requestingUserId);
+        }
+        List<BoundingBox> boxes = BoundingBox.around(lat, lon, radius).split();
+        List<Long> ids = new ArrayList<>();
+        for (BoundingBox box : boxes) {
+            ids.addAll(taskRepository.findNearbyIdsByStatusExcludingPoster(
+                    box.toWkt(), TaskStatus.OPEN.name(), lat, lon, radius * 1000, requestingUserId));
+        }
+        List<TaskResponse> tasks = loadInOrder(ids);
+        if (boxes.size() > 1) {
+            // each half came back in distance order; interleave them
+            tasks.sort(Comparator.comparingDouble((TaskResponse t) ->
+                            BoundingBox.haversineKm(lat, lon, t.getLatitude(), t.getLongitude()))
+                    .thenComparing(TaskResponse::getTaskId));
+        }
+        return tasks;
+    }
+
+    public NearbyTaskPageResponse getNearbyOpenTasksPage(
+            double lat,
+            double lon,
+            double radius,
+            Long requestingUserId,
+            int limit,
+            String cursor,
+            String type
+    ) {
+        if (limit < 1 || limit > MAX_NEARBY_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_NEARBY_PAGE_SIZE);
+        }
+        NearbyCursor after = NearbyCursor.decode(cursor);
+        radius = clampRadius(radius);
+
+        // fetch one extra row to know whether another page exists
+        List<BoundingBox> boxes = BoundingBox.around(lat, lon, radius).split();
+        List<Object[]> rows = new ArrayList<>();
+        for (BoundingBox box : boxes) {
+            rows.addAll(taskRepository.findNearbyPage(
+                    box.toWkt(),
+                    TaskStatus.OPEN.name(), lat, lon, radius * 1000, requestingUserId,
+                    (type == null || type.isBlank()) ? null : type,
+                    after.distanceMeters(), after.taskId(), limit + 1
+            ));
+        }
+        if (boxes.size() > 1) {
+            // the halves of a box across the antimeridian: merge on the (distance, task_id) keyset order
+            rows.sort(Comparator.comparingDouble((Object[] r) -> ((Number) r[1]).doubleValue())
+                    .thenComparingLong(r -> ((Number) r[0]).longValue()));
+            if (rows.size() > limit + 1) {
+                rows = new ArrayList<>(rows.subList(0, limit + 1));
+            }
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<Object[]> page = hasMore ? rows.subList(0, limit) : rows;
+        List<Long> ids = page.stream()
+                .map(r -> ((Number) r[0]).longValue())
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = page.get(page.size() - 1);
+            nextCursor = new NearbyCursor(((Number) last[1]).doubleValue(), ((Number) last[0]).longValue()).encode();
+        }
+        return NearbyTaskPageResponse.builder()
+                .tasks(loadInOrder(ids))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // a huge radius would walk most of the grid (or most of the table) for a single request
+    private static double clampRadius(double radiusKm) {
+        if (!(radiusKm > 0)) {
+            return 0;
+        }
+        return Math.min(radiusKm, MAX_NEARBY_RADIUS_KM);
+    }
+
+    // keeps the distance ordering of the id query
+    private List<TaskResponse> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, TaskView> byId = taskViewRepository.findAllById(ids)
                 .stream()
-                .map(Task::toDto)
+                .collect(Collectors.toMap(TaskView::getTaskId, t -> t));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(TaskView::toDto)
                 .collect(Collectors.toList());
     }
 
 
     public long countTasksByStatusForUser(Long userId, TaskStatus status) {
-        return taskRepository.countByTaskPosterAndStatus(userId, status);
+        return statusCounters.count(userId, status);
+    }
+
+    public Map<TaskStatus, Long> countAllTasksByStatusForUser(Long userId) {
+        return statusCounters.countAll(userId);
     }
 
     public List<RegularTaskResponse> getOpenRegularTasks(Long posterId) {
-        return taskRepository.findRegularTasksByPosterAndStatus(posterId, TaskStatus.OPEN)
+        return taskViewRepository.findByTaskPosterAndStatusAndKind(posterId, TaskStatus.OPEN, TaskView.REGULAR)
                 .stream()
-                .map(Task::toDto)            // each RegularTask.toDto() returns a RegularTaskResponse
+                .map(TaskView::toDto)        // regular rows map to a RegularTaskResponse
                 .map(RegularTaskResponse.class::cast)
                 .collect(Collectors.toList());
     }
 
     public List<EventStaffingTaskResponse> getOpenEventTasks(Long posterId) {
-        return taskRepository.findEventTasksByPosterAndStatus(posterId, TaskStatus.OPEN)
+        return taskViewRepository.findByTaskPosterAndStatusAndKind(posterId, TaskStatus.OPEN, TaskView.EVENT)
                 .stream()
-                .map(Task::toDto)            // each EventStaffingTask.toDto() returns an EventStaffingTaskResponse
+                .map(TaskView::toDto)        // event rows map to an EventStaffingTaskResponse
                 .map(EventStaffingTaskResponse.class::cast)
                 .collect(Collectors.toList());
     }
@@ -361,7 +565,9 @@ public class TaskService {
     @Transactional
     public void addRunnerToEventTask(Long taskId, Long runnerId, Long taskPosterId) {
         // 1) Verify that the task poster exists in the User Service
-        if (!userClient.existsById(taskPosterId)) {
+        // (both ids are fetched in one call; the checks below are cache hits)
+        userExistence.prefetch(taskPosterId, runnerId);
+        if (!userExistence.exists(taskPosterId)) {
             throw new IllegalArgumentException("Task poster not found: " + taskPosterId);
         }
 
@@ -381,7 +587,7 @@ public class TaskService {
         }
 
         // 5) Verify that the runner exists
-        if (!userClient.existsById(runnerId)) {
+        if (!userExistence.exists(runnerId)) {
             throw new IllegalArgumentException("Runner not found: " + runnerId);
         }
 
@@ -408,17 +614,21 @@ public class TaskService {
         // 10) Process payment reservation
         try {
 
-            paymentClient.processPayment(new PaymentRequest(
+            // a runner can be removed and re-added, so every assignment gets its own key
+            processPayment(new PaymentRequest(
                     task.getTaskPoster(),
                     runnerId,
                     taskId,
-                    (long) task.getFixedPay()
+                    (long) task.getFixedPay(),
+                    "task-" + taskId + ":runner-" + runnerId + ":" + UUID.randomUUID(),
+                    assertionSigner.sign(taskId, task.getTaskPoster(), runnerId, task.getStatus())
             ));
         } catch (Exception e) {
             System.err.println("Failed to process payment for EventStaffingTask runner ID "
                     + runnerId + ": " + e.getMessage());
             throw new IllegalStateException("Payment processing failed, runner not added");
         }
+        onTaskSaved(task);
 
         // 11) Save the updated task
 
@@ -427,7 +637,8 @@ public class TaskService {
     @Transactional
     public void removeRunnerFromEventTask(Long taskId, Long runnerId, Long taskPosterId) {
         // 1) Verify that the task poster exists
-        if (!userClient.existsById(taskPosterId)) {
+        userExistence.prefetch(taskPosterId, runnerId);
+        if (!userExistence.exists(taskPosterId)) {
             throw new IllegalArgumentException("Task poster not found: " + taskPosterId);
         }
 
@@ -447,7 +658,7 @@ public class TaskService {
         }
 
         // 5) Ensure runner exists
-        if (!userClient.existsById(runnerId)) {
+        if (!userExistence.exists(runnerId)) {
             throw new IllegalArgumentException("Runner not found: " + runnerId);
         }
 
@@ -467,19 +678,13 @@ public class TaskService {
             System.err.println("Refund failed for task ID " + taskId + ": " + e.getMessage());
             throw new IllegalStateException("Refund processing failed, runner was removed");
         }
+        onTaskSaved(task);
         //Mo fix
-        try{
-            eventClient.removeApplication(runnerId, taskId);
-        }catch (Exception e){
-            System.err.println("Failed to remove application for runner ID " + runnerId + ": " + e.getMessage());
-        }
+        outboxService.removeEventApplication(taskId, runnerId);
     }
 
     public List<TaskResponse> getOngoingTasksForPoster(Long posterId) {
-        return taskRepository.findByTaskPosterAndStatus(posterId, TaskStatus.IN_PROGRESS)
-                .stream()
-                .map(Task::toDto)
-                .collect(Collectors.toList());
+        return toDtos(taskViewRepository.findByTaskPosterAndStatus(posterId, TaskStatus.IN_PROGRESS));
     }
 
 
@@ -596,6 +801,7 @@ public class TaskService {
             return str.substring(0, 1).toUpperCase() + str.substring(1);
         }
 
+    @Transactional
     public void instantDeleteTask(Long taskId) {
         // Validate taskId is not null
         if (taskId == null) {
@@ -603,12 +809,15 @@ public class TaskService {
         }
 
         // Check if task exists
-        if (!taskRepository.existsById(taskId)) {
-            throw new ValidationException("Task not found");
-        }
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new ValidationException("Task not found"));
 
         // Delete the task immediately (admin override)
-        taskRepository.deleteById(taskId);
+        if (task instanceof EventStaffingTask) {
+            outboxService.invalidateEventTaskCache(taskId);
+        }
+        taskRepository.delete(task);
+        onTaskDeleted(task);
     }
 }
 
@@ -0,0 +1,121 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.model.TaskStatusCounter;
+import com.gigs.task_service.repository.TaskStatusCounterRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-(poster, status) task counters.
+ * <p>
+ * The update methods are called by TaskService inside the transaction that changes the
+ * task, so a counter moves exactly when the status it counts commits. If the counter
+ * table is empty on startup it is rebuilt once from the task table, before this
+ * instance serves requests; the rebuild overwrites counters other instances write
+ * meanwhile, so it does not fail on them.
+ * <p>
+ * Counters are never clamped when written. A negative one means a delta went missing; it
+ * is logged when read and reported as zero, and the nightly full rebuild corrects it.
+ */
+@Component
+public class TaskStatusCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskStatusCounters.class);
+
+    private final TaskStatusCounterRepository counterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskStatusCounters(TaskStatusCounterRepository counterRepository,
+                              TransactionTemplate transactionTemplate) {
+        this.counterRepository = counterRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void created(Long posterId, TaskStatus status) {
+        add(posterId, status, 1);
+    }
+
+    public void transitioned(Long posterId, TaskStatus from, TaskStatus to) {
+        if (from == to) {
+            return;
+        }
+        add(posterId, from, -1);
+        add(posterId, to, 1);
+    }
+
+    public void deleted(Long posterId, TaskStatus status) {
+        add(posterId, status, -1);
+    }
+
+    public long count(Long posterId, TaskStatus status) {
+        return counterRepository.findById(new TaskStatusCounter.Key(posterId, status))
+                .map(this::checked)
+                .orElse(0L);
+    }
+
+    // every status is present, missing rows read as zero
+    public Map<TaskStatus, Long> countAll(Long posterId) {
+        Map<TaskStatus, Long> counts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (TaskStatusCounter counter : counterRepository.findByIdPosterId(posterId)) {
+            counts.put(counter.getId().getStatus(), checked(counter));
+        }
+        return counts;
+    }
+
+    @PostConstruct
+    public void rebuildIfEmpty() {
+        try {
+            if (counterRepository.count() > 0) {
+                return;
+            }
+            Integer rows = transactionTemplate.execute(status -> counterRepository.rebuildFromTasks());
+            logger.info("Task status counters rebuilt ({} rows)", rows);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild task status counters", e);
+        }
+    }
+
+    /**
+     * Recomputes every counter from the task table, including zeroing counters whose tasks
+     * are all gone, so drift left by a lost delta does not outlive the next run.
+     */
+    @Scheduled(cron = "${tasks.counters.rebuild.cron:0 0 4 * * *}")
+    public void rebuild() {
+        try {
+            int[] rows = transactionTemplate.execute(status -> new int[]{
+                    counterRepository.rebuildFromTasks(),
+                    counterRepository.zeroCountersWithoutTasks()
+            });
+            logger.info("Task status counters rebuilt ({} rows upserted, {} zeroed)", rows[0], rows[1]);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild task status counters", e);
+        }
+    }
+
+    private long checked(TaskStatusCounter counter) {
+        if (counter.getCount() < 0) {
+            logger.warn("Task status counter drifted below zero: poster {} status {} count {}",
+                    counter.getId().getPosterId(), counter.getId().getStatus(), counter.getCount());
+            return 0L;
+        }
+        return counter.getCount();
+    }
+
+    private void add(Long posterId, TaskStatus status, long delta) {
+        if (posterId == null || status == null) {
+            return;
+        }
+        counterRepository.add(posterId, status.name(), delta);
+    }
+}
@@ -0,0 +1,95 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.model.Task;
+import com.gigs.task_service.model.TaskView;
+import com.gigs.task_service.repository.TaskRepository;
+import com.gigs.task_service.repository.TaskViewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps task_view in step with the JOINED Task tables.
+ * <p>
+ * TaskService calls {@link #project(Task)} / {@link #remove(Long)} right after each save or
+ * delete, inside the same transaction, so the view commits or rolls back with the task.
+ * On startup any rows missing from the view (e.g. tasks written before it existed) are
+ * backfilled in keyset batches.
+ */
+@Component
+public class TaskViewProjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskViewProjector.class);
+    private static final int BACKFILL_BATCH = 500;
+
+    private final TaskRepository taskRepository;
+    private final TaskViewRepository taskViewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillEnabled;
+
+    public TaskViewProjector(TaskRepository taskRepository,
+                             TaskViewRepository taskViewRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${tasks.view.backfill.enabled:true}") boolean backfillEnabled) {
+        this.taskRepository = taskRepository;
+        this.taskViewRepository = taskViewRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillEnabled = backfillEnabled;
+    }
+
+    /**
+     * Upserts the view row for the task. Must be called with the task still attached so
+     * lazy collections can be copied.
+     */
+    public void project(Task task) {
+        if (task.getTaskId() == null) {
+            return;
+        }
+        taskViewRepository.save(TaskView.of(task));
+    }
+
+    public void remove(Long taskId) {
+        if (taskId != null && taskViewRepository.existsById(taskId)) {
+            taskViewRepository.deleteById(taskId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillEnabled) {
+            return;
+        }
+        try {
+            if (taskViewRepository.count() >= taskRepository.count()) {
+                return;
+            }
+            long lastId = 0L;
+            long written = 0;
+            while (true) {
+                final long after = lastId;
+                List<Long> ids = transactionTemplate.execute(status -> {
+                    List<Task> tasks = taskRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(
+                            after, PageRequest.of(0, BACKFILL_BATCH));
+                    taskViewRepository.saveAll(tasks.stream().map(TaskView::of).collect(Collectors.toList()));
+                    return tasks.stream().map(Task::getTaskId).collect(Collectors.toList());
+                });
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+                written += ids.size();
+                lastId = ids.get(ids.size() - 1);
+            }
+            logger.info("Task view backfilled with {} tasks", written);
+        } catch (Exception e) {
+            logger.error("Failed to backfill task view", e);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.gigs.task_service.validation.common;
 
 import com.gigs.task_service.dto.request.TaskRequest;
 import com.gigs.task_service.validation.Validator;
-import com.gigs.task_service.client.UserClient;
+import com.gigs.task_service.client.UserExistenceCache;
 import jakarta.validation.ValidationException;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
@@ -14,16 +14,16 @@ import org.springframework.stereotype.Component;
 @Order(5)
 public class UserExistenceValidator implements Validator<TaskRequest> {
 
-    private final UserClient userClient;
+    private final UserExistenceCache userExistence;
 
-    public UserExistenceValidator(UserClient userClient) {
-        this.userClient = userClient;
+    public UserExistenceValidator(UserExistenceCache userExistence) {
+        this.userExistence = userExistence;
     }
 
     @Override
     public void validate(TaskRequest req) {
         Long posterId = req.getTaskPoster();
-        if (posterId == null || !userClient.existsById(posterId)) {
+        if (posterId == null || !userExistence.exists(posterId)) {
             throw new ValidationException(
                     "TaskPoster with ID " + posterId + " does not exist.");
         }
@@ -0,0 +1,79 @@
+package com.gigs.task_service.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserExistenceCacheTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Mock
+    private UserClient userClient;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private UserExistenceCache cache() {
+        return new UserExistenceCache(userClient, 600, 30, 1000, now::get);
+    }
+
+    @Test
+    void testPositiveAnswerIsCached() {
+        when(userClient.existsById(1L)).thenReturn(true);
+        UserExistenceCache cache = cache();
+
+        assertTrue(cache.exists(1L));
+        now.addAndGet(599 * SECOND);
+        assertTrue(cache.exists(1L));
+
+        verify(userClient, times(1)).existsById(1L);
+    }
+
+    @Test
+    void testNegativeAnswerExpiresSooner() {
+        when(userClient.existsById(2L)).thenReturn(false, true);
+        UserExistenceCache cache = cache();
+
+        assertFalse(cache.exists(2L));
+        assertFalse(cache.exists(2L));
+        now.addAndGet(31 * SECOND);
+        assertTrue(cache.exists(2L));
+
+        verify(userClient, times(2)).existsById(2L);
+    }
+
+    @Test
+    void testPrefetchUsesOneBatchCall() {
+        when(userClient.existsByIds(anyCollection())).thenReturn(Map.of(1L, true, 2L, false));
+        UserExistenceCache cache = cache();
+
+        cache.prefetch(1L, 2L);
+
+        assertTrue(cache.exists(1L));
+        assertFalse(cache.exists(2L));
+        verify(userClient, times(1)).existsByIds(anyCollection());
+        verify(userClient, never()).existsById(anyLong());
+    }
+
+    @Test
+    void testPrefetchFailureFallsBackToSingleLookups() {
+        when(userClient.existsByIds(anyCollection())).thenThrow(new RuntimeException("404"));
+        when(userClient.existsById(1L)).thenReturn(true);
+        UserExistenceCache cache = cache();
+
+        cache.prefetch(1L, 2L);
+
+        assertTrue(cache.exists(1L));
+        verify(userClient).existsById(1L);
+    }
+}
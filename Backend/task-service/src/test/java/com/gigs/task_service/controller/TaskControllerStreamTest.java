@@ -0,0 +1,85 @@
+package com.gigs.task_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gigs.task_service.dto.response.TaskResponse;
+import com.gigs.task_service.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskControllerStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TaskService taskService;
+
+    private TaskController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new TaskController(taskService, objectMapper);
+    }
+
+    private static TaskResponse task(long id) {
+        return TaskResponse.builder().taskId(id).title("Task " + id).build();
+    }
+
+    private String stream() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.streamAllTasks();
+        assertEquals("application/x-ndjson", String.valueOf(response.getHeaders().getContentType()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testEveryBatchIsWrittenAsOneJsonObjectPerLine() throws Exception {
+        doAnswer(call -> {
+            Consumer<List<TaskResponse>> sink = call.getArgument(0);
+            sink.accept(List.of(task(1), task(2)));
+            sink.accept(List.of(task(3)));
+            return null;
+        }).when(taskService).forEachTaskBatch(any());
+
+        String body = stream();
+
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode line = objectMapper.readTree(lines[i]);
+            assertEquals(i + 1, line.get("taskId").asLong());
+        }
+    }
+
+    @Test
+    void testNoTasksStreamsAnEmptyBody() throws Exception {
+        assertEquals("", stream());
+    }
+
+    @Test
+    void testPageLimitOutOfRangeIsABadRequest() {
+        when(taskService.getTasksPage(null, 501)).thenThrow(new IllegalArgumentException("limit must be between 1 and 500"));
+
+        ResponseEntity<?> response = controller.getTasksPage(null, 501);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+}
@@ -0,0 +1,50 @@
+package com.gigs.task_service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundingBoxTest {
+
+    @Test
+    void testBoxAwayFromTheAntimeridianIsOneRectangle() {
+        BoundingBox box = BoundingBox.around(30.0444, 31.2357, 10);
+
+        assertFalse(box.crossesAntimeridian());
+        assertEquals(List.of(box), box.split());
+        assertTrue(box.contains(30.0444, 31.30));
+        assertFalse(box.contains(30.0444, 31.50));
+        assertTrue(box.toWkt().startsWith("POLYGON(("));
+    }
+
+    @Test
+    void testBoxAcrossTheAntimeridianWrapsInsteadOfClamping() {
+        // Taveuni, Fiji, right next to the 180th meridian
+        BoundingBox box = BoundingBox.around(-16.8, 179.95, 20);
+
+        assertTrue(box.crossesAntimeridian());
+        assertTrue(box.minLon() > 179.0);
+        assertTrue(box.maxLon() < -179.0);
+        assertTrue(box.contains(-16.8, 179.99));
+        assertTrue(box.contains(-16.8, -179.95));
+        assertFalse(box.contains(-16.8, 0.0));
+        assertThrows(IllegalStateException.class, box::toWkt);
+
+        List<BoundingBox> halves = box.split();
+        assertEquals(2, halves.size());
+        assertEquals(180.0, halves.get(0).maxLon());
+        assertEquals(-180.0, halves.get(1).minLon());
+        halves.forEach(half -> assertFalse(half.crossesAntimeridian()));
+    }
+
+    @Test
+    void testBoxWiderThanTheGlobeCoversEveryLongitude() {
+        BoundingBox box = BoundingBox.around(89.9999999, 10.0, 50);
+
+        assertFalse(box.crossesAntimeridian());
+        assertEquals(-180.0, box.minLon());
+        assertEquals(180.0, box.maxLon());
+    }
+}
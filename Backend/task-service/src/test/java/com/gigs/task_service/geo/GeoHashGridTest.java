@@ -0,0 +1,69 @@
+package com.gigs.task_service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class GeoHashGridTest {
+
+    // Tahrir Square, Cairo
+    private static final double LAT = 30.0444;
+    private static final double LON = 31.2357;
+
+    @Test
+    void testNearbyReturnsClosestFirstAndSkipsFarPoints() {
+        GeoHashGrid grid = new GeoHashGrid(25);
+        grid.put(1L, 10L, LAT + 0.02, LON);      // ~2.2 km
+        grid.put(2L, 11L, LAT + 0.005, LON);     // ~0.6 km
+        grid.put(3L, 12L, LAT + 0.5, LON);       // ~55 km
+
+        long[] ids = grid.nearby(LAT, LON, 5, -1L);
+
+        assertArrayEquals(new long[]{2L, 1L}, ids);
+    }
+
+    @Test
+    void testNearbyExcludesRequestingPoster() {
+        GeoHashGrid grid = new GeoHashGrid(25);
+        grid.put(1L, 10L, LAT, LON);
+        grid.put(2L, 11L, LAT, LON + 0.01);
+
+        assertArrayEquals(new long[]{2L}, grid.nearby(LAT, LON, 5, 10L));
+    }
+
+    @Test
+    void testPutMovesPointBetweenCells() {
+        GeoHashGrid grid = new GeoHashGrid(25);
+        grid.put(1L, 10L, LAT, LON);
+        grid.put(1L, 10L, LAT + 1.0, LON);
+
+        assertEquals(1, grid.size());
+        assertArrayEquals(new long[0], grid.nearby(LAT, LON, 5, -1L));
+        assertArrayEquals(new long[]{1L}, grid.nearby(LAT + 1.0, LON, 5, -1L));
+    }
+
+    @Test
+    void testNearbyFindsPointsAcrossTheAntimeridian() {
+        GeoHashGrid grid = new GeoHashGrid(25);
+        grid.put(1L, 10L, -16.8, -179.98);     // ~7 km east, across the meridian
+        grid.put(2L, 11L, -16.8, 179.93);      // ~2 km west
+        grid.put(3L, 12L, -16.8, 170.0);       // far
+
+        assertArrayEquals(new long[]{2L, 1L}, grid.nearby(-16.8, 179.95, 10, -1L));
+    }
+
+    @Test
+    void testRemove() {
+        GeoHashGrid grid = new GeoHashGrid(25);
+        for (long id = 1; id <= 100; id++) {
+            grid.put(id, id, LAT + id * 0.0001, LON);
+        }
+        grid.remove(50L);
+
+        assertFalse(grid.contains(50L));
+        assertEquals(99, grid.size());
+        assertEquals(99, grid.nearby(LAT, LON, 5, -1L).length);
+    }
+}
@@ -0,0 +1,37 @@
+package com.gigs.task_service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NearbyCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrips() {
+        NearbyCursor cursor = new NearbyCursor(1234.5678901, 42L);
+
+        assertEquals(cursor, NearbyCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testTokenIsUrlSafe() {
+        String token = new NearbyCursor(0.1, Long.MAX_VALUE).encode();
+
+        assertFalse(token.contains("+") || token.contains("/") || token.contains("="), token);
+        assertEquals(Long.MAX_VALUE, NearbyCursor.decode(token).taskId());
+    }
+
+    @Test
+    void testMissingCursorStartsAtTheBeginning() {
+        assertEquals(NearbyCursor.START, NearbyCursor.decode(null));
+        assertEquals(NearbyCursor.START, NearbyCursor.decode(" "));
+    }
+
+    @Test
+    void testGarbageIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> NearbyCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> NearbyCursor.decode("MTIzNA"));    // "1234", no separator
+    }
+}
@@ -0,0 +1,84 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.dto.response.TaskResponse;
+import com.gigs.task_service.model.RegularTask;
+import com.gigs.task_service.model.Task;
+import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NearbyTaskIndexTest {
+
+    private static final double LAT = 30.0444;
+    private static final double LON = 31.2357;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private NearbyTaskIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearbyTaskIndex(taskRepository, transactionTemplate, true, 25);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(call -> call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static Task task(long id) {
+        RegularTask task = new RegularTask(7L, "Task " + id, "", "moving", LON, LAT, 100, null, null, List.of());
+        task.setTaskId(id);
+        return task;
+    }
+
+    private List<Long> nearbyIds() {
+        return index.findNearby(LAT, LON, 1, null).stream().map(TaskResponse::getTaskId).sorted().toList();
+    }
+
+    @Test
+    void testWarmUpDoesNotUndoARemovalThatLandedAfterItsRead() {
+        when(taskRepository.findByStatusAndTaskIdGreaterThanOrderByTaskIdAsc(eq(TaskStatus.OPEN), eq(0L), any()))
+                .thenAnswer(call -> {
+                    List<Task> batch = List.of(task(1L), task(2L));
+                    // task 1 is taken while the batch is still on its way into the index
+                    index.remove(1L);
+                    return batch;
+                });
+        when(taskRepository.findByStatusAndTaskIdGreaterThanOrderByTaskIdAsc(eq(TaskStatus.OPEN), eq(2L), any()))
+                .thenReturn(List.of());
+
+        index.warmUp();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L), nearbyIds());
+    }
+
+    @Test
+    void testWritesAfterTheWarmUpAreAppliedAsUsual() {
+        when(taskRepository.findByStatusAndTaskIdGreaterThanOrderByTaskIdAsc(eq(TaskStatus.OPEN), eq(0L), any()))
+                .thenReturn(List.of());
+        index.warmUp();
+
+        index.index(task(3L));
+        assertEquals(List.of(3L), nearbyIds());
+
+        index.remove(3L);
+        index.index(task(3L));
+        assertEquals(List.of(3L), nearbyIds());
+    }
+}
@@ -1,5 +1,6 @@
 package com.gigs.task_service.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -24,6 +26,14 @@ class NotificationServiceTest {
     @InjectMocks
     private NotificationService notificationService;
 
+    @BeforeEach
+    void setUp() {
+        // no background thread; tests drain the queue themselves
+        ReflectionTestUtils.setField(notificationService, "dispatcherEnabled", false);
+        ReflectionTestUtils.setField(notificationService, "backoffMs", 0L);
+        notificationService.start();
+    }
+
     @Test
     void testSendTaskCreatedNotification_Success() {
         // Arrange
@@ -41,10 +51,12 @@ class NotificationServiceTest {
 
         // Act
         notificationService.sendTaskCreatedNotification(userId, taskId, taskTitle);
+        verifyNoInteractions(restTemplate); // only queued so far
+        assertEquals(1, notificationService.dispatchPending());
 
         // Assert
         verify(restTemplate, times(1)).postForEntity(
-                eq("http://localhost:8091/api/notifications/task-completed"),
+                eq("http://localhost:8091/api/notifications/task-posted"),
                 any(HttpEntity.class),
                 eq(String.class)
         );
@@ -66,9 +78,10 @@ class NotificationServiceTest {
 
         // Act & Assert - should not throw exception
         notificationService.sendTaskCreatedNotification(userId, taskId, taskTitle);
+        notificationService.dispatchPending();
         
-        // Verify the method was called
-        verify(restTemplate, times(1)).postForEntity(
+        // Verify the call was retried up to max-attempts
+        verify(restTemplate, times(3)).postForEntity(
                 eq("http://localhost:8091/api/notifications/task-posted"),
                 any(HttpEntity.class),
                 eq(String.class)
@@ -92,6 +105,7 @@ class NotificationServiceTest {
 
         // Act
         notificationService.sendTaskStatusUpdateNotification(userId, taskId, taskTitle);
+        notificationService.dispatchPending();
 
         // Assert
         verify(restTemplate, times(1)).postForEntity(
@@ -117,12 +131,25 @@ class NotificationServiceTest {
 
         // Act & Assert - should not throw exception
         notificationService.sendTaskStatusUpdateNotification(userId, taskId, taskTitle);
+        notificationService.dispatchPending();
         
-        // Verify the method was called
-        verify(restTemplate, times(1)).postForEntity(
+        // Verify the call was retried up to max-attempts
+        verify(restTemplate, times(3)).postForEntity(
                 eq("http://localhost:8091/api/notifications/task-update"),
                 any(HttpEntity.class),
                 eq(String.class)
         );
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testNotificationsAreDroppedWhenQueueIsFull() {
+        ReflectionTestUtils.setField(notificationService, "queueCapacity", 1);
+        notificationService.start();
+
+        notificationService.sendTaskCreatedNotification(1L, 1L, "first");
+        notificationService.sendTaskCreatedNotification(1L, 2L, "second");
+
+        assertEquals(1, notificationService.getStats().getQueueDepth());
+        assertEquals(1, notificationService.getStats().getDropped());
+    }
+}
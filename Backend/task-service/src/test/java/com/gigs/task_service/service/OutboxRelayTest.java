@@ -0,0 +1,232 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.client.EventClient;
+import com.gigs.task_service.client.OfferClient;
+import com.gigs.task_service.client.payment.PaymentClient;
+import com.gigs.task_service.model.OutboxEvent;
+import com.gigs.task_service.model.OutboxEventType;
+import com.gigs.task_service.model.OutboxStatus;
+import com.gigs.task_service.repository.OutboxEventRepository;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepository;
+
+    @Mock
+    private OfferClient offerClient;
+
+    @Mock
+    private EventClient eventClient;
+
+    @Mock
+    private PaymentClient paymentClient;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxRepository, offerClient, eventClient, paymentClient, transactionTemplate);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(call ->
+                call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(call -> {
+            call.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private OutboxEvent event(long id, OutboxEventType type, long taskId) {
+        OutboxEvent event = new OutboxEvent(type, taskId, 20L, null, type + ":" + taskId);
+        ReflectionTestUtils.setField(event, "id", id);
+        lenient().when(outboxRepository.findById(id)).thenReturn(Optional.of(event));
+        return event;
+    }
+
+    private void due(OutboxEvent... events) {
+        when(outboxRepository.lockDueBatch(any(), anyInt())).thenReturn(List.of(events)).thenReturn(List.of());
+    }
+
+    private static FeignException status(int status) {
+        Request request = Request.create(Request.HttpMethod.POST, "http://consumer/api", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        Response response = Response.builder()
+                .status(status)
+                .reason("status " + status)
+                .request(request)
+                .headers(Map.of())
+                .build();
+        return FeignException.errorStatus("Client#call()", response);
+    }
+
+    @Test
+    void testRowsAreClaimedAndCommittedBeforeTheConsumerIsCalled() {
+        OutboxEvent release = event(1L, OutboxEventType.PAYMENT_RELEASE, 7L);
+        due(release);
+        when(paymentClient.releasePayment(7L, 20L)).thenAnswer(call -> {
+            // the claim transaction has committed: the row is leased, not locked
+            assertEquals(OutboxStatus.IN_FLIGHT, release.getStatus());
+            assertTrue(release.getNextAttemptAt().isAfter(LocalDateTime.now()));
+            return ResponseEntity.ok("ok");
+        });
+
+        relay.relay();
+
+        InOrder inOrder = inOrder(transactionTemplate, paymentClient);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(paymentClient).releasePayment(7L, 20L);
+        inOrder.verify(transactionTemplate).executeWithoutResult(any());
+        assertEquals(OutboxStatus.SENT, release.getStatus());
+        assertNotNull(release.getSentAt());
+    }
+
+    @Test
+    void testBatchIsDeliveredInIdOrderAndEachOutcomeRecordedAlone() {
+        OutboxEvent first = event(1L, OutboxEventType.OFFERS_DELETE, 7L);
+        OutboxEvent second = event(2L, OutboxEventType.EVENT_TASK_CACHE_INVALIDATE, 8L);
+        due(first, second);
+        doThrow(status(503)).when(offerClient).deleteOffers(7L);
+
+        relay.relay();
+
+        InOrder inOrder = inOrder(offerClient, eventClient);
+        inOrder.verify(offerClient).deleteOffers(7L);
+        inOrder.verify(eventClient).invalidateTaskCache(8L);
+        // the first row's failure does not roll back the second row's delivery
+        assertEquals(OutboxStatus.PENDING, first.getStatus());
+        assertEquals(OutboxStatus.SENT, second.getStatus());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+    }
+
+    @Test
+    void testTemporaryFailuresAreRetriedWithBackoff() {
+        OutboxEvent serverError = event(1L, OutboxEventType.PAYMENT_RELEASE, 7L);
+        OutboxEvent tooMany = event(2L, OutboxEventType.OFFERS_DELETE, 8L);
+        OutboxEvent noResponse = event(3L, OutboxEventType.EVENT_APPLICATIONS_DELETE, 9L);
+        serverError.incrementAttempts();
+        serverError.incrementAttempts();
+        due(serverError, tooMany, noResponse);
+        when(paymentClient.releasePayment(7L, 20L)).thenThrow(status(503));
+        doThrow(status(429)).when(offerClient).deleteOffers(8L);
+        doThrow(new RuntimeException("Connection refused")).when(eventClient).deleteApplicationsForTask(9L);
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.relay();
+        LocalDateTime after = LocalDateTime.now();
+
+        for (OutboxEvent event : List.of(serverError, tooMany, noResponse)) {
+            assertEquals(OutboxStatus.PENDING, event.getStatus());
+            assertNotNull(event.getLastError());
+        }
+        // 1s doubled per attempt: third attempt waits 4s, a first attempt 1s
+        assertEquals(3, serverError.getAttempts());
+        assertFalse(serverError.getNextAttemptAt().isBefore(before.plusSeconds(4)));
+        assertFalse(serverError.getNextAttemptAt().isAfter(after.plusSeconds(4)));
+        assertFalse(tooMany.getNextAttemptAt().isBefore(before.plusSeconds(1)));
+        assertFalse(tooMany.getNextAttemptAt().isAfter(after.plusSeconds(1)));
+    }
+
+    @Test
+    void testClientErrorFailsTheRowAtOnce() {
+        OutboxEvent release = event(1L, OutboxEventType.PAYMENT_RELEASE, 7L);
+        due(release);
+        when(paymentClient.releasePayment(7L, 20L)).thenThrow(status(409));
+
+        relay.relay();
+
+        assertEquals(OutboxStatus.FAILED, release.getStatus());
+        assertEquals(1, release.getAttempts());
+    }
+
+    @Test
+    void testRowFailsWhenAttemptsRunOut() {
+        ReflectionTestUtils.setField(relay, "maxAttempts", 2);
+        OutboxEvent release = event(1L, OutboxEventType.PAYMENT_RELEASE, 7L);
+        release.incrementAttempts();
+        due(release);
+        when(paymentClient.releasePayment(7L, 20L)).thenThrow(status(503));
+
+        relay.relay();
+
+        assertEquals(OutboxStatus.FAILED, release.getStatus());
+        assertEquals(2, release.getAttempts());
+    }
+
+    @Test
+    void testOutcomeIsDroppedWhenAnotherRunSettledTheRow() {
+        OutboxEvent claimed = event(1L, OutboxEventType.OFFERS_DELETE, 7L);
+        due(claimed);
+        OutboxEvent settled = new OutboxEvent(OutboxEventType.OFFERS_DELETE, 7L, null, null, "offers-delete:7");
+        settled.markSent();
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(settled));
+
+        relay.relay();
+
+        verify(offerClient).deleteOffers(7L);
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    void testDueQueryHoldsBackEventsBehindAnUndeliveredOne() throws NoSuchMethodException {
+        String sql = OutboxEventRepository.class
+                .getMethod("lockDueBatch", LocalDateTime.class, int.class)
+                .getAnnotation(Query.class).value();
+
+        // per-task order: an event waits while an earlier one of its task is queued, in flight or FAILED
+        assertTrue(sql.contains("b.task_id = e.task_id AND b.id < e.id AND b.status IN ('PENDING', 'IN_FLIGHT', 'FAILED')"));
+        assertTrue(sql.contains("e.status IN ('PENDING', 'IN_FLIGHT') AND e.next_attempt_at <= :now"));
+    }
+
+    @Test
+    void testOperatorCanRetryOrSkipOnlyFailedRows() {
+        OutboxEvent failed = event(1L, OutboxEventType.PAYMENT_RELEASE, 7L);
+        failed.incrementAttempts();
+        failed.markFailed("409");
+        OutboxEvent skippable = event(2L, OutboxEventType.OFFERS_DELETE, 8L);
+        skippable.markFailed("404");
+        OutboxEvent sent = event(3L, OutboxEventType.OFFERS_DELETE, 9L);
+        sent.markSent();
+
+        assertTrue(relay.retryFailed(1L));
+        assertTrue(relay.skipFailed(2L));
+        assertFalse(relay.retryFailed(3L));
+        assertFalse(relay.skipFailed(3L));
+
+        assertEquals(OutboxStatus.PENDING, failed.getStatus());
+        assertEquals(0, failed.getAttempts());
+        assertFalse(failed.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(OutboxStatus.SKIPPED, skippable.getStatus());
+        assertEquals(OutboxStatus.SENT, sent.getStatus());
+        assertThrows(NoSuchElementException.class, () -> relay.retryFailed(4L));
+    }
+}
@@ -0,0 +1,73 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.model.OutboxEvent;
+import com.gigs.task_service.model.OutboxEventType;
+import com.gigs.task_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepository;
+
+    @InjectMocks
+    private OutboxService outboxService;
+
+    @Test
+    void testEffectsOnlyJoinTheCallersTransaction() {
+        Transactional tx = OutboxService.class.getAnnotation(Transactional.class);
+
+        // an effect must never be stored without the task change that caused it
+        assertEquals(Propagation.MANDATORY, tx.propagation());
+    }
+
+    @Test
+    void testSameEffectIsStoredOnce() {
+        when(outboxRepository.existsByIdempotencyKey("payment-release:1:20")).thenReturn(false, true);
+
+        outboxService.releasePayment(1L, 20L);
+        outboxService.releasePayment(1L, 20L);
+
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxRepository, times(1)).save(saved.capture());
+        assertEquals(OutboxEventType.PAYMENT_RELEASE, saved.getValue().getType());
+        assertEquals(1L, saved.getValue().getTaskId());
+        assertEquals(20L, saved.getValue().getUserId());
+    }
+
+    @Test
+    void testStatusIsPartOfTheKey() {
+        outboxService.updateOfferStatus(1L, "ASSIGNED");
+        outboxService.updateOfferStatus(1L, "PAID");
+
+        verify(outboxRepository).existsByIdempotencyKey("offer-status:1:ASSIGNED");
+        verify(outboxRepository).existsByIdempotencyKey("offer-status:1:PAID");
+        verify(outboxRepository, times(2)).save(any(OutboxEvent.class));
+    }
+
+    @Test
+    void testEveryRemovalIsItsOwnEffect() {
+        outboxService.removeEventApplication(1L, 20L);
+        outboxService.removeEventApplication(1L, 20L);
+
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxRepository, times(2)).save(saved.capture());
+        List<OutboxEvent> events = saved.getAllValues();
+        assertNotEquals(events.get(0).getIdempotencyKey(), events.get(1).getIdempotencyKey());
+        assertTrue(events.get(0).getIdempotencyKey().startsWith("event-application-remove:1:20:"));
+    }
+}
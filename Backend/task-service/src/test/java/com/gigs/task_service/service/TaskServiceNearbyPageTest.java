@@ -0,0 +1,126 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.dto.response.NearbyTaskPageResponse;
+import com.gigs.task_service.dto.response.TaskResponse;
+import com.gigs.task_service.geo.NearbyCursor;
+import com.gigs.task_service.model.RegularTask;
+import com.gigs.task_service.model.TaskView;
+import com.gigs.task_service.repository.TaskRepository;
+import com.gigs.task_service.repository.TaskViewRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskServiceNearbyPageTest {
+
+    private static final double LAT = 30.0444;
+    private static final double LON = 31.2357;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskViewRepository taskViewRepository;
+
+    @InjectMocks
+    private TaskService taskService;
+
+    private static Object[] row(long taskId, double distance) {
+        return new Object[]{taskId, distance};
+    }
+
+    private static TaskView view(long id) {
+        RegularTask task = new RegularTask(7L, "Task " + id, "", "moving", LON, LAT, 100, null, null, List.of());
+        task.setTaskId(id);
+        return TaskView.of(task);
+    }
+
+    private void stubPage(double afterDistance, long afterId, Object[]... rows) {
+        when(taskRepository.findNearbyPage(anyString(), eq("OPEN"), eq(LAT), eq(LON), eq(5000.0), eq(99L), isNull(),
+                eq(afterDistance), eq(afterId), eq(3)))
+                .thenReturn(new ArrayList<>(List.of(rows)));
+    }
+
+    @Test
+    void testTiesOnDistanceContinueFromTheLastTaskIdSeen() {
+        when(taskViewRepository.findAllById(any())).thenAnswer(call -> {
+            List<TaskView> views = new ArrayList<>();
+            call.<Iterable<Long>>getArgument(0).forEach(id -> views.add(view(id)));
+            return views;
+        });
+        // tasks 4, 7 and 9 sit at exactly the same distance; the page boundary falls between 7 and 9
+        stubPage(-1, 0L, row(4L, 250.0), row(7L, 250.0), row(9L, 250.0));
+        stubPage(250.0, 7L, row(9L, 250.0), row(12L, 400.0));
+
+        NearbyTaskPageResponse first = taskService.getNearbyOpenTasksPage(LAT, LON, 5, 99L, 2, null, "");
+        assertEquals(List.of(4L, 7L), first.getTasks().stream().map(TaskResponse::getTaskId).toList());
+        assertEquals(new NearbyCursor(250.0, 7L), NearbyCursor.decode(first.getNextCursor()));
+
+        NearbyTaskPageResponse second = taskService.getNearbyOpenTasksPage(LAT, LON, 5, 99L, 2, first.getNextCursor(), null);
+        assertEquals(List.of(9L, 12L), second.getTasks().stream().map(TaskResponse::getTaskId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testBoxAcrossTheAntimeridianQueriesBothHalvesAndMergesThem() {
+        when(taskViewRepository.findAllById(any())).thenAnswer(call -> {
+            List<TaskView> views = new ArrayList<>();
+            call.<Iterable<Long>>getArgument(0).forEach(id -> views.add(view(id)));
+            return views;
+        });
+        when(taskRepository.findNearbyPage(anyString(), eq("OPEN"), eq(-16.8), eq(179.95), eq(20000.0), eq(99L),
+                isNull(), eq(-1.0), eq(0L), eq(3)))
+                .thenAnswer(call -> call.<String>getArgument(0).contains(" 180.0")
+                        ? new ArrayList<>(List.of(row(5L, 100.0), row(6L, 900.0)))
+                        : new ArrayList<>(List.of(row(8L, 400.0), row(9L, 1200.0))));
+
+        NearbyTaskPageResponse page = taskService.getNearbyOpenTasksPage(-16.8, 179.95, 20, 99L, 2, null, null);
+
+        verify(taskRepository, times(2)).findNearbyPage(anyString(), any(), anyDouble(), anyDouble(), anyDouble(),
+                any(), any(), anyDouble(), anyLong(), anyInt());
+        assertEquals(List.of(5L, 8L), page.getTasks().stream().map(TaskResponse::getTaskId).toList());
+        assertEquals(new NearbyCursor(400.0, 8L), NearbyCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testPageKeepsTheQueryOrderAndSkipsTasksWithoutAView() {
+        when(taskViewRepository.findAllById(List.of(8L, 3L))).thenReturn(List.of(view(3L)));
+        stubPage(-1, 0L, row(8L, 10.0), row(3L, 20.0));
+
+        NearbyTaskPageResponse page = taskService.getNearbyOpenTasksPage(LAT, LON, 5, 99L, 2, null, null);
+
+        assertEquals(List.of(3L), page.getTasks().stream().map(TaskResponse::getTaskId).toList());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testRadiusIsClampedBeforeQuerying() {
+        when(taskRepository.findNearbyPage(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble(), anyLong(),
+                any(), anyDouble(), anyLong(), anyInt())).thenReturn(new ArrayList<>());
+
+        taskService.getNearbyOpenTasksPage(LAT, LON, 20_000, 99L, 10, null, null);
+
+        verify(taskRepository).findNearbyPage(anyString(), eq("OPEN"), eq(LAT), eq(LON), eq(100_000.0), eq(99L),
+                isNull(), eq(-1.0), eq(0L), eq(11));
+        verifyNoInteractions(taskViewRepository);
+    }
+
+    @Test
+    void testBadCursorAndLimitAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.getNearbyOpenTasksPage(LAT, LON, 5, 99L, 0, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.getNearbyOpenTasksPage(LAT, LON, 5, 99L, 10, "not a cursor!", null));
+        verifyNoInteractions(taskRepository);
+    }
+}
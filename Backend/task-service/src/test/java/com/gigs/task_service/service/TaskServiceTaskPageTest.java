@@ -0,0 +1,104 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.dto.response.TaskPageResponse;
+import com.gigs.task_service.dto.response.TaskResponse;
+import com.gigs.task_service.model.RegularTask;
+import com.gigs.task_service.model.TaskView;
+import com.gigs.task_service.repository.TaskViewRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskServiceTaskPageTest {
+
+    @Mock
+    private TaskViewRepository taskViewRepository;
+
+    @InjectMocks
+    private TaskService taskService;
+
+    private static List<TaskView> views(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).mapToObj(id -> {
+            RegularTask task = new RegularTask(7L, "Task " + id, "", "moving", 31.2357, 30.0444, 100, null, null, List.of());
+            task.setTaskId(id);
+            return TaskView.of(task);
+        }).toList();
+    }
+
+    private static List<Long> ids(List<TaskResponse> tasks) {
+        return tasks.stream().map(TaskResponse::getTaskId).toList();
+    }
+
+    @Test
+    void testExportContinuesAfterTheLastIdOfEachFullBatch() {
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(0L, PageRequest.of(0, 500)))
+                .thenReturn(views(1, 500));
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(500L, PageRequest.of(0, 500)))
+                .thenReturn(views(501, 502));
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(502L, PageRequest.of(0, 500)))
+                .thenReturn(List.of());
+        List<List<Long>> batches = new ArrayList<>();
+
+        taskService.forEachTaskBatch(batch -> batches.add(ids(batch)));
+
+        assertEquals(2, batches.size());
+        assertEquals(500, batches.get(0).size());
+        assertEquals(List.of(501L, 502L), batches.get(1));
+    }
+
+    @Test
+    void testExportOfNoTasksNeverCallsTheSink() {
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(eq(0L), any())).thenReturn(List.of());
+        List<List<TaskResponse>> batches = new ArrayList<>();
+
+        taskService.forEachTaskBatch(batches::add);
+
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void testFullPageHandsOutTheNextAfterId() {
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(10L, PageRequest.of(0, 3)))
+                .thenReturn(views(11, 13));
+
+        TaskPageResponse page = taskService.getTasksPage(10L, 3);
+
+        assertEquals(List.of(11L, 12L, 13L), ids(page.getTasks()));
+        assertEquals(13L, page.getNextAfterId());
+    }
+
+    @Test
+    void testShortOrEmptyPageIsTheLast() {
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(0L, PageRequest.of(0, 3)))
+                .thenReturn(views(1, 2));
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(2L, PageRequest.of(0, 3)))
+                .thenReturn(List.of());
+
+        assertNull(taskService.getTasksPage(null, 3).getNextAfterId());
+        TaskPageResponse empty = taskService.getTasksPage(2L, 3);
+        assertTrue(empty.getTasks().isEmpty());
+        assertNull(empty.getNextAfterId());
+    }
+
+    @Test
+    void testLimitIsCappedAt500() {
+        when(taskViewRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(0L, PageRequest.of(0, 500)))
+                .thenReturn(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.getTasksPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> taskService.getTasksPage(null, 501));
+        assertTrue(taskService.getTasksPage(null, 500).getTasks().isEmpty());
+    }
+}
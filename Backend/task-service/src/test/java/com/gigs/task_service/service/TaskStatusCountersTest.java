@@ -0,0 +1,101 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.model.TaskStatusCounter;
+import com.gigs.task_service.repository.TaskStatusCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskStatusCountersTest {
+
+    @Mock
+    private TaskStatusCounterRepository counterRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TaskStatusCounters counters;
+
+    private static TaskStatusCounter counter(long posterId, TaskStatus status, long count) {
+        TaskStatusCounter counter = new TaskStatusCounter();
+        ReflectionTestUtils.setField(counter, "id", new TaskStatusCounter.Key(posterId, status));
+        ReflectionTestUtils.setField(counter, "count", count);
+        return counter;
+    }
+
+    private void runTransactions() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(call -> call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void testTransitionedMovesOneTaskBetweenStatuses() {
+        counters.transitioned(7L, TaskStatus.OPEN, TaskStatus.IN_PROGRESS);
+
+        verify(counterRepository).add(7L, "OPEN", -1);
+        verify(counterRepository).add(7L, "IN_PROGRESS", 1);
+        verifyNoMoreInteractions(counterRepository);
+    }
+
+    @Test
+    void testTransitionedIgnoresUnchangedStatusAndMissingPoster() {
+        counters.transitioned(7L, TaskStatus.OPEN, TaskStatus.OPEN);
+        counters.transitioned(null, TaskStatus.OPEN, TaskStatus.IN_PROGRESS);
+
+        verifyNoInteractions(counterRepository);
+    }
+
+    @Test
+    void testNegativeCounterReadsAsZero() {
+        when(counterRepository.findByIdPosterId(7L)).thenReturn(List.of(
+                counter(7L, TaskStatus.OPEN, -2),
+                counter(7L, TaskStatus.IN_PROGRESS, 3)));
+
+        Map<TaskStatus, Long> counts = counters.countAll(7L);
+
+        assertEquals(0L, counts.get(TaskStatus.OPEN));
+        assertEquals(3L, counts.get(TaskStatus.IN_PROGRESS));
+    }
+
+    @Test
+    void testRebuildRecountsAndZeroesCountersWithoutTasks() {
+        runTransactions();
+        when(counterRepository.rebuildFromTasks()).thenReturn(4);
+        when(counterRepository.zeroCountersWithoutTasks()).thenReturn(1);
+
+        counters.rebuild();
+
+        InOrder order = inOrder(counterRepository);
+        order.verify(counterRepository).rebuildFromTasks();
+        order.verify(counterRepository).zeroCountersWithoutTasks();
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void testStartupRebuildOnlyRunsOnAnEmptyTable() {
+        when(counterRepository.count()).thenReturn(5L);
+        counters.rebuildIfEmpty();
+        verify(counterRepository, never()).rebuildFromTasks();
+
+        runTransactions();
+        when(counterRepository.count()).thenReturn(0L);
+        counters.rebuildIfEmpty();
+        verify(counterRepository).rebuildFromTasks();
+    }
+}
@@ -0,0 +1,133 @@
+package com.gigs.task_service.service;
+
+import com.gigs.task_service.model.EventStaffingTask;
+import com.gigs.task_service.model.RegularTask;
+import com.gigs.task_service.model.Task;
+import com.gigs.task_service.model.TaskStatus;
+import com.gigs.task_service.model.TaskView;
+import com.gigs.task_service.repository.TaskRepository;
+import com.gigs.task_service.repository.TaskViewRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskViewProjectorTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskViewRepository taskViewRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TaskViewProjector projector(boolean backfill) {
+        return new TaskViewProjector(taskRepository, taskViewRepository, transactionTemplate, backfill);
+    }
+
+    private static RegularTask regular(long id) {
+        RegularTask task = new RegularTask(7L, "Move a sofa", "Third floor", "moving",
+                31.2, 30.0, 150, null, null, List.of("a.png"));
+        task.setTaskId(id);
+        task.setRunnerId(9L);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        return task;
+    }
+
+    private static EventStaffingTask event(long id) {
+        EventStaffingTask task = new EventStaffingTask(8L, "Concert crew", "Gates", "event",
+                31.2, 30.0, "Arena", 400, 5, null,
+                LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 3), 3, null);
+        task.setTaskId(id);
+        task.setRunnerIds(new ArrayList<>(List.of(11L, 12L)));
+        return task;
+    }
+
+    @Test
+    void testViewAnswersLikeTheTask() {
+        RegularTask regular = regular(1L);
+        EventStaffingTask event = event(2L);
+
+        TaskView regularView = TaskView.of(regular);
+        TaskView eventView = TaskView.of(event);
+
+        assertEquals(regular.toDto(), regularView.toDto());
+        assertEquals(event.toDto(), eventView.toDto());
+        assertTrue(regularView.isRegular());
+        assertEquals(9L, regularView.getRunnerId());
+        assertTrue(eventView.isEvent());
+        assertNull(eventView.getRunnerId());
+    }
+
+    @Test
+    void testViewKeepsItsOwnCopyOfCollections() {
+        EventStaffingTask event = event(2L);
+        TaskView view = TaskView.of(event);
+
+        event.getRunnerIds().add(13L);
+
+        assertEquals(List.of(11L, 12L), view.getRunnerIds());
+    }
+
+    @Test
+    void testProjectUpsertsAndRemoveDeletesOnlyExistingRows() {
+        TaskViewProjector projector = projector(false);
+        projector.project(regular(1L));
+        projector.project(new RegularTask());   // not saved yet, no id
+        when(taskViewRepository.existsById(1L)).thenReturn(true);
+        projector.remove(1L);
+        projector.remove(2L);
+        projector.remove(null);
+
+        ArgumentCaptor<TaskView> saved = ArgumentCaptor.forClass(TaskView.class);
+        verify(taskViewRepository, times(1)).save(saved.capture());
+        assertEquals(1L, saved.getValue().getTaskId());
+        verify(taskViewRepository).deleteById(1L);
+        verify(taskViewRepository, never()).deleteById(2L);
+    }
+
+    @Test
+    void testBackfillWalksTheTasksInKeysetBatches() {
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(taskViewRepository.count()).thenReturn(0L);
+        when(taskRepository.count()).thenReturn(3L);
+        List<Task> firstBatch = List.of(regular(1L), event(4L));
+        List<Task> secondBatch = List.of(regular(9L));
+        when(taskRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(eq(0L), any(Pageable.class))).thenReturn(firstBatch);
+        when(taskRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(eq(4L), any(Pageable.class))).thenReturn(secondBatch);
+        when(taskRepository.findByTaskIdGreaterThanOrderByTaskIdAsc(eq(9L), any(Pageable.class))).thenReturn(List.of());
+
+        projector(true).backfill();
+
+        verify(taskViewRepository, times(3)).saveAll(anyList());
+        verify(taskRepository).findByTaskIdGreaterThanOrderByTaskIdAsc(eq(9L), any(Pageable.class));
+    }
+
+    @Test
+    void testBackfillIsSkippedWhenTheViewIsComplete() {
+        when(taskViewRepository.count()).thenReturn(3L);
+        when(taskRepository.count()).thenReturn(3L);
+
+        projector(true).backfill();
+        projector(false).backfill();
+
+        verify(taskRepository, never()).findByTaskIdGreaterThanOrderByTaskIdAsc(anyLong(), any());
+        verify(transactionTemplate, never()).execute(any());
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -24,6 +25,8 @@ import java.util.NoSuchElementException;
 @CrossOrigin(origins = "http://localhost:5173")
 public class UserController {
 
+    private static final int MAX_ID_BATCH = 1000;
+
     private final UserService userService;
 
     @PostMapping("/addUser")
@@ -56,18 +59,45 @@ public class UserController {
         return ResponseEntity.ok(exists);
     }
 
+    // Batch variant of existsById: one round trip for callers that check several users
+    @PostMapping("/existsByIds")
+    public ResponseEntity<?> existsByIds(@RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+        if (ids.size() > MAX_ID_BATCH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + MAX_ID_BATCH + " ids per request"));
+        }
+        return ResponseEntity.ok(userService.usersExistByIds(new LinkedHashSet<>(ids)));
+    }
+
     @GetMapping("/all")
     public ResponseEntity<List<UserResponse>> getAllUsers() {
         List<UserResponse> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
 
+    // Batch balance lookup for payment-service reconciliation
+    @PostMapping("/balances")
+    public ResponseEntity<?> getBalances(@RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (ids.size() > MAX_ID_BATCH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + MAX_ID_BATCH + " ids per request"));
+        }
+        return ResponseEntity.ok(userService.getBalances(new LinkedHashSet<>(ids)));
+    }
+
     @PutMapping("/{id}/add-balance")
     public ResponseEntity<String> addAmount(
             @PathVariable Long id,
-            @RequestParam double amount) {
+            @RequestParam double amount,
+            @RequestParam(required = false) String reference) {
         try {
-            userService.addAmount(id, amount);
+            userService.addAmount(id, amount, reference);
             return ResponseEntity.ok("Amount added successfully.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -75,12 +105,30 @@ public class UserController {
         }
     }
 
+    // One call credits every recipient of a bulk payout; all-or-nothing
+    @PutMapping("/add-balance/batch")
+    public ResponseEntity<String> addAmounts(@RequestBody Map<Long, Double> amounts,
+                                             @RequestParam(required = false) String reference) {
+        try {
+            userService.addAmounts(amounts, reference);
+            return ResponseEntity.ok("Amounts added successfully.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error adding amounts: " + e.getMessage());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Error adding amounts: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error adding amounts: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/deduct-balance")
     public ResponseEntity<String> deductAmount(
             @PathVariable Long id,
-            @RequestParam double amount) {
+            @RequestParam double amount,
+            @RequestParam(required = false) String reference) {
         try {
-            userService.deductAmount(id, amount);
+            userService.deductAmount(id, amount, reference);
             return ResponseEntity.ok("Amount deducted successfully.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,17 @@
+package com.gigs.userservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBalanceResponse {
+    private Long id;
+    private double balance;
+    // balance the wallet started from (user.balance); null when the ledger is off
+    private Double openingBalance;
+}
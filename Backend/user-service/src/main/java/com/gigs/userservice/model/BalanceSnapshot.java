@@ -0,0 +1,41 @@
+package com.gigs.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compacted wallet balance: every ledger entry of the user with id &lt;= lastEntryId (the
+ * boundary of compactions that ran before entries were marked) or marked folded is
+ * already in balance. Debits lock this row to check funds and keep their own
+ * unfolded total here, so the check never depends on what a plain read of the tail sees.
+ */
+@Entity
+@Table(name = "balance_snapshot")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceSnapshot {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private double balance;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private long lastEntryId;
+
+    // sum of the debit entries after lastEntryId (zero or negative); null on wallets
+    // opened before it was tracked, filled in by their next debit
+    @Column(name = "debits_after")
+    private Double debitsAfter;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,47 @@
+package com.gigs.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One credit (positive amount) or debit (negative amount) on a user's wallet.
+ * Rows are only ever inserted and later marked folded; the balance is the latest snapshot
+ * plus the entries after it that are not folded yet.
+ */
+@Entity
+@Table(name = "ledger_entry", indexes = {
+        @Index(name = "idx_ledger_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_ledger_user_unfolded", columnList = "user_id, folded, id"),
+        @Index(name = "idx_ledger_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(nullable = false, updatable = false)
+    private double amount;
+
+    // caller supplied key (e.g. "payment:42"); a repeated key is ignored
+    @Column(unique = true, length = 150, updatable = false)
+    private String reference;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // set by compaction in the transaction that adds the amount to the snapshot balance
+    @Column(nullable = false)
+    private boolean folded;
+}
@@ -0,0 +1,27 @@
+package com.gigs.userservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reference of a balance change applied straight to {@code user.balance} (ledger disabled),
+ * written in the same transaction so a retried credit or debit is recognised and ignored.
+ * In ledger mode the reference is kept on the ledger entry instead.
+ */
+@Entity
+@Table(name = "processed_reference")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedReference {
+    @Id
+    @Column(length = 150)
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.gigs.userservice.repository;
+
+import com.gigs.userservice.model.BalanceSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from BalanceSnapshot s where s.userId = :userId")
+    Optional<BalanceSnapshot> findForUpdate(@Param("userId") long userId);
+
+    // Opens the wallet with the user's current balance column; no-op if it already exists
+    // or if there is no such user.
+    @Modifying
+    @Query(value = """
+      INSERT IGNORE INTO balance_snapshot (user_id, balance, last_entry_id, debits_after, updated_at)
+      SELECT u.id, u.balance, 0, 0, CURRENT_TIMESTAMP FROM user u WHERE u.id = :userId
+    """, nativeQuery = true)
+    int openIfAbsent(@Param("userId") long userId);
+}
@@ -0,0 +1,67 @@
+package com.gigs.userservice.repository;
+
+import com.gigs.userservice.model.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    boolean existsByReference(String reference);
+
+    // Referenced entries go through here: the unique key on reference decides, so of two
+    // concurrent writes with one reference exactly one gets a row. Returns 0 for the other.
+    @Modifying
+    @Query(value = """
+      INSERT IGNORE INTO ledger_entry (user_id, amount, reference, created_at, folded)
+      VALUES (:userId, :amount, :reference, :createdAt, false)
+    """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") long userId, @Param("amount") double amount,
+                       @Param("reference") String reference, @Param("createdAt") LocalDateTime createdAt);
+
+    // tail of one wallet after its snapshot; a range scan on (user_id, folded, id)
+    @Query("select coalesce(sum(e.amount), 0.0) from LedgerEntry e where e.userId = :userId and e.folded = false and e.id > :afterId")
+    double sumAfter(@Param("userId") long userId, @Param("afterId") long afterId);
+
+    // credits only: a debit checks funds against these plus the debit total on its locked snapshot
+    @Query("select coalesce(sum(e.amount), 0.0) from LedgerEntry e where e.userId = :userId and e.folded = false and e.id > :afterId and e.amount > 0")
+    double sumCreditsAfter(@Param("userId") long userId, @Param("afterId") long afterId);
+
+    @Query("select coalesce(sum(e.amount), 0.0) from LedgerEntry e where e.userId = :userId and e.folded = false and e.id > :afterId and e.amount < 0")
+    double sumDebitsAfter(@Param("userId") long userId, @Param("afterId") long afterId);
+
+    // [userId, tail sum] for each of the given wallets that has entries after its snapshot
+    @Query("""
+      select e.userId, sum(e.amount) from LedgerEntry e
+      join BalanceSnapshot s on s.userId = e.userId
+      where e.userId in :userIds and e.folded = false and e.id > s.lastEntryId
+      group by e.userId
+    """)
+    List<Object[]> sumTails(@Param("userIds") Collection<Long> userIds);
+
+    @Query("""
+      select distinct e.userId from LedgerEntry e
+      join BalanceSnapshot s on s.userId = e.userId
+      where e.folded = false and e.id > s.lastEntryId and e.createdAt < :before
+    """)
+    List<Long> findUsersWithFoldableBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // a plain read: an entry whose transaction is still open is not returned and stays in the tail
+    @Query("""
+      select e from LedgerEntry e
+      where e.userId = :userId and e.folded = false and e.id > :afterId and e.createdAt < :before
+      order by e.id
+    """)
+    List<LedgerEntry> findFoldable(@Param("userId") long userId, @Param("afterId") long afterId,
+                                   @Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("update LedgerEntry e set e.folded = true where e.id in :ids and e.folded = false")
+    int markFolded(@Param("ids") Collection<Long> ids);
+}
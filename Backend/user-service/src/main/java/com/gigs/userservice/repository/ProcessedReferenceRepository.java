@@ -0,0 +1,19 @@
+package com.gigs.userservice.repository;
+
+import com.gigs.userservice.model.ProcessedReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProcessedReferenceRepository extends JpaRepository<ProcessedReference, String> {
+
+    // Returns 0 if the reference was already recorded; the primary key decides between
+    // concurrent callers, and a rollback of the caller's transaction releases it again
+    @Modifying
+    @Query(value = """
+      INSERT IGNORE INTO processed_reference (reference, created_at)
+      VALUES (:reference, CURRENT_TIMESTAMP)
+    """, nativeQuery = true)
+    int recordIfAbsent(@Param("reference") String reference);
+}
@@ -2,8 +2,32 @@ package com.gigs.userservice.repository;
 
 import com.gigs.userservice.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // id-only lookup served from the primary key index, no row data is loaded
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // [id, balance] without loading whole users
+    @Query("select u.id, u.balance from User u where u.id in :ids")
+    List<Object[]> findBalanceColumns(@Param("ids") Collection<Long> ids);
+
+    // Balance changes are single UPDATE statements so concurrent payments cannot lose updates.
+    // Both return the number of rows changed: 0 means no such user (or, for deduct, not enough funds).
+    @Modifying
+    @Query("update User u set u.balance = u.balance + :amount where u.id = :id")
+    int addBalance(@Param("id") long id, @Param("amount") double amount);
+
+    @Modifying
+    @Query("update User u set u.balance = u.balance - :amount where u.id = :id and u.balance >= :amount")
+    int deductBalance(@Param("id") long id, @Param("amount") double amount);
 }
\ No newline at end of file
@@ -0,0 +1,307 @@
+package com.gigs.userservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind balances for a few designated hot wallets (e.g. a platform fee account or a
+ * big event organiser) that every payment touches.
+ * <p>
+ * Even with the ledger every debit of such a wallet locks its snapshot row, so payments
+ * queue behind each other on one row. Here the wallet's balance is kept in memory under a
+ * lock striped by user id: a debit checks the available funds, appends the operation to a
+ * local write-ahead log and only then updates the balance, so an acknowledged operation
+ * survives a crash. A scheduled flush writes everything that accumulated to the ledger in
+ * one transaction, falling back to smaller ones so an operation the ledger keeps rejecting
+ * only holds back itself; the log is replayed on startup, and since every operation
+ * carries a unique ledger reference the replay is idempotent.
+ * <p>
+ * The in-memory balance is only right if this instance owns the wallet: hot wallets must
+ * be served by a single user-service instance and all their writes must go through it
+ * ({@link UserService} routes them). Disabled when {@code wallet.hot.accounts} is empty.
+ */
+@Component
+public class HotWalletAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotWalletAccumulator.class);
+
+    private final WalletLedgerService walletLedgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> hotIds = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] stripes;
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final HotWalletLog log;
+
+    // generated references must not clash with those of a previous run still in the log
+    private final String bootId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    // bumped by every flush that wrote something, before its references leave pendingRefs
+    private final AtomicLong flushes = new AtomicLong();
+
+    private static class Account {
+        double available;
+        List<HotWalletLog.Entry> pending = new ArrayList<>();
+        // references not in the ledger yet, so a retried operation is still recognised
+        final Set<String> pendingRefs = new HashSet<>();
+
+        Account(double available) {
+            this.available = available;
+        }
+    }
+
+    public HotWalletAccumulator(WalletLedgerService walletLedgerService,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${wallet.hot.accounts:}") String accounts,
+                                @Value("${wallet.hot.stripes:64}") int stripes,
+                                @Value("${wallet.hot.wal-path:data/hot-wallet.wal}") String walPath,
+                                @Value("${wallet.hot.wal.fsync:true}") boolean fsync,
+                                @Value("${wallet.hot.wal.segment-bytes:8388608}") long segmentBytes) {
+        this.walletLedgerService = walletLedgerService;
+        this.transactionTemplate = transactionTemplate;
+        for (String id : accounts.split(",")) {
+            if (!id.isBlank()) {
+                hotIds.add(Long.parseLong(id.trim()));
+            }
+        }
+        this.stripes = new ReentrantLock[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.log = new HotWalletLog(Path.of(walPath), fsync, segmentBytes);
+    }
+
+    public boolean isHot(long userId) {
+        return hotIds.contains(userId);
+    }
+
+    // tests only; production accounts come from wallet.hot.accounts
+    void markHot(long userId) {
+        hotIds.add(userId);
+    }
+
+    /**
+     * Writes operations a previous run acknowledged but never flushed. Runs before the
+     * first operation is accepted, so no cached balance can miss them.
+     */
+    @PostConstruct
+    public void recover() {
+        if (hotIds.isEmpty()) {
+            return;
+        }
+        List<HotWalletLog.Entry> entries = log.readAll();
+        if (entries.isEmpty()) {
+            return;
+        }
+        int[] written = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            for (HotWalletLog.Entry entry : entries) {
+                if (walletLedgerService.appendChecked(entry.userId(), entry.amount(), entry.reference())) {
+                    written[0]++;
+                }
+            }
+        });
+        log.truncate();
+        logger.info("Hot wallet log replayed: {} entries, {} not yet in the ledger", entries.size(), written[0]);
+    }
+
+    public void credit(long userId, double amount, String reference) {
+        apply(userId, amount, reference, false);
+    }
+
+    public void debit(long userId, double amount, String reference) {
+        apply(userId, -amount, reference, true);
+    }
+
+    public double balanceOf(long userId) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            return account(userId).available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(long userId, double delta, String reference, boolean checkFunds) {
+        String ref = reference != null ? reference : "hot:" + bootId + ":" + sequence.incrementAndGet();
+        ReentrantLock lock = stripeFor(userId);
+        while (true) {
+            // the ledger lookup stays outside the stripe lock; a flush that moves references
+            // from pendingRefs to the ledger meanwhile is noticed below and the lookup repeated
+            long flushesSeen = flushes.get();
+            boolean recorded = reference != null && walletLedgerService.isRecorded(ref);
+            lock.lock();
+            try {
+                Account account = account(userId);
+                if (reference != null) {
+                    if (recorded || account.pendingRefs.contains(ref)) {
+                        return;
+                    }
+                    if (flushes.get() != flushesSeen) {
+                        continue;
+                    }
+                }
+                if (checkFunds && account.available + delta < 0) {
+                    throw new IllegalStateException("Insufficient balance");
+                }
+                HotWalletLog.Entry entry = new HotWalletLog.Entry(userId, delta, ref);
+                log.sync(log.append(entry));
+                account.available += delta;
+                account.pending.add(entry);
+                account.pendingRefs.add(ref);
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves everything accumulated since the last flush into the ledger. Operations that
+     * fail stay pending (and in the log) for the next run; the others are written anyway.
+     */
+    @Scheduled(fixedDelayString = "${wallet.hot.flush-interval-ms:200}")
+    public synchronized void flush() {
+        // everything appended before the rotation is drained below
+        boolean rotated = log.rotateIfLarger();
+        Map<Long, List<HotWalletLog.Entry>> batches = new HashMap<>();
+        for (Map.Entry<Long, Account> e : accounts.entrySet()) {
+            ReentrantLock lock = stripeFor(e.getKey());
+            lock.lock();
+            try {
+                Account account = e.getValue();
+                if (!account.pending.isEmpty()) {
+                    batches.put(e.getKey(), account.pending);
+                    account.pending = new ArrayList<>();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (batches.isEmpty()) {
+            if (rotated) {
+                log.dropClosed();
+            }
+            return;
+        }
+
+        Set<HotWalletLog.Entry> failed = write(batches);
+        if (failed.size() < batches.values().stream().mapToInt(List::size).sum()) {
+            flushes.incrementAndGet();
+        }
+        int flushed = 0;
+        long relogged = 0;
+        for (Map.Entry<Long, List<HotWalletLog.Entry>> e : batches.entrySet()) {
+            List<HotWalletLog.Entry> retry = new ArrayList<>();
+            for (HotWalletLog.Entry entry : e.getValue()) {
+                if (failed.contains(entry)) {
+                    retry.add(entry);
+                    if (rotated) {
+                        relogged = log.relog(entry);
+                    }
+                } else {
+                    flushed++;
+                }
+            }
+            withAccount(e.getKey(), account -> {
+                e.getValue().stream()
+                        .filter(entry -> !failed.contains(entry))
+                        .forEach(entry -> account.pendingRefs.remove(entry.reference()));
+                // failed operations go first again, ahead of anything newer
+                retry.addAll(account.pending);
+                account.pending = retry;
+            });
+        }
+        if (rotated) {
+            // the closed segments only hold flushed entries and ones written again above
+            log.sync(relogged);
+            log.dropClosed();
+        }
+        log.flushed(flushed);
+    }
+
+    /**
+     * One transaction for everything; if that fails, one per account, and for an account
+     * that still fails one per operation. Returns the operations that could not be written.
+     */
+    private Set<HotWalletLog.Entry> write(Map<Long, List<HotWalletLog.Entry>> batches) {
+        Set<HotWalletLog.Entry> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<HotWalletLog.Entry> all = new ArrayList<>();
+        batches.values().forEach(all::addAll);
+        if (tryWrite(all)) {
+            return failed;
+        }
+        for (Map.Entry<Long, List<HotWalletLog.Entry>> e : batches.entrySet()) {
+            if (tryWrite(e.getValue())) {
+                continue;
+            }
+            for (HotWalletLog.Entry entry : e.getValue()) {
+                if (!tryWrite(List.of(entry))) {
+                    logger.warn("Hot wallet operation {} of user {} could not be flushed, will retry",
+                            entry.reference(), entry.userId());
+                    failed.add(entry);
+                }
+            }
+        }
+        return failed;
+    }
+
+    private boolean tryWrite(List<HotWalletLog.Entry> entries) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (HotWalletLog.Entry entry : entries) {
+                    walletLedgerService.appendChecked(entry.userId(), entry.amount(), entry.reference());
+                }
+            });
+            return true;
+        } catch (RuntimeException ex) {
+            logger.debug("Hot wallet flush of {} operations failed: {}", entries.size(), ex.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!accounts.isEmpty()) {
+            flush();
+        }
+        log.close();
+    }
+
+    // first use loads the balance from the ledger; callers hold the account's stripe lock
+    private Account account(long userId) {
+        Account account = accounts.get(userId);
+        if (account == null) {
+            account = new Account(walletLedgerService.openAndGetBalance(userId));
+            accounts.put(userId, account);
+        }
+        return account;
+    }
+
+    private void withAccount(long userId, Consumer<Account> action) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            action.accept(accounts.get(userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(long userId) {
+        return stripes[(Long.hashCode(userId) & 0x7fffffff) % stripes.length];
+    }
+}
@@ -0,0 +1,249 @@
+package com.gigs.userservice.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead log of hot-wallet operations that are not in the ledger yet.
+ * One line per operation: {@code userId|amount|reference}. Every operation has a unique
+ * reference, so replaying the log into the ledger after a crash is idempotent.
+ * <p>
+ * Appends from different stripes share fsyncs (group commit): whoever syncs first covers
+ * every line written so far. The file is truncated once every line has been flushed.
+ * <p>
+ * So that an entry that keeps failing cannot keep the log growing, the flush also rotates
+ * it: a file larger than the segment size is closed as {@code <path>.<n>}, appends go to a
+ * fresh file, and once the flush has written (or logged again) everything from the closed
+ * segments they are deleted. A replay reads the closed segments first, oldest to newest.
+ */
+class HotWalletLog {
+
+    record Entry(long userId, double amount, String reference) {}
+
+    private final Path path;
+    private final boolean fsync;
+    private final long segmentBytes;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long written;   // bytes appended since start, never reset
+    private long synced;
+    private long segmentStart;  // value of written when the current file was started
+    private int unflushed;  // lines not yet written to the ledger
+
+    HotWalletLog(Path path, boolean fsync, long segmentBytes) {
+        this.path = path;
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+    }
+
+    // entries left by a previous run that may not have reached the ledger
+    synchronized List<Entry> readAll() {
+        List<Entry> entries = new ArrayList<>();
+        for (Path segment : closedSegments()) {
+            read(segment, entries);
+        }
+        if (Files.exists(path)) {
+            read(path, entries);
+        }
+        return entries;
+    }
+
+    private void read(Path file, List<Entry> entries) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|", 3);
+                if (parts.length < 3) {
+                    continue; // torn last line from a crash mid-write; it was never acknowledged
+                }
+                entries.add(new Entry(Long.parseLong(parts[0]), Double.parseDouble(parts[1]), parts[2]));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read hot wallet log " + file, e);
+        }
+    }
+
+    // returns the position to pass to sync(); the entry is only durable after that
+    synchronized long append(Entry entry) {
+        long position = write(entry);
+        unflushed++;
+        return position;
+    }
+
+    // an outstanding entry from a closed segment, written again before the segment is dropped;
+    // it is already counted as unflushed
+    synchronized long relog(Entry entry) {
+        return write(entry);
+    }
+
+    private long write(Entry entry) {
+        String line = entry.userId() + "|" + entry.amount() + "|" + entry.reference() + "\n";
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                written += channel().write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write hot wallet log " + path, e);
+        }
+        return written;
+    }
+
+    void sync(long position) {
+        if (!fsync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            FileChannel toForce;
+            synchronized (this) {
+                target = written;
+                toForce = channel;
+            }
+            try {
+                toForce.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync hot wallet log " + path, e);
+            }
+            synced = target;
+        }
+    }
+
+    // count lines that reached the ledger; the log is emptied when nothing is outstanding
+    void flushed(int lines) {
+        synchronized (syncLock) {
+            synchronized (this) {
+                unflushed -= lines;
+                if (unflushed == 0) {
+                    truncate();
+                }
+            }
+        }
+    }
+
+    synchronized void truncate() {
+        try {
+            channel().truncate(0);
+            if (fsync) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot truncate hot wallet log " + path, e);
+        }
+        segmentStart = written;
+        dropClosed();
+    }
+
+    /**
+     * Closes the current file as a segment once it has grown past the segment size and
+     * returns whether it did. Every entry appended before this call is then in a closed
+     * segment; the caller drops them with {@link #dropClosed()} once those entries are in
+     * the ledger or were written again with {@link #relog(Entry)}.
+     */
+    boolean rotateIfLarger() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (written - segmentStart < segmentBytes) {
+                    return false;
+                }
+                try {
+                    if (channel != null) {
+                        if (fsync) {
+                            channel.force(false);
+                        }
+                        channel.close();
+                        channel = null;
+                    }
+                    synced = written;
+                    if (Files.exists(path)) {
+                        Files.move(path, segment(nextSegmentNumber()));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot rotate hot wallet log " + path, e);
+                }
+                segmentStart = written;
+                return true;
+            }
+        }
+    }
+
+    synchronized void dropClosed() {
+        for (Path segment : closedSegments()) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete hot wallet log segment " + segment, e);
+            }
+        }
+    }
+
+    // oldest first
+    private List<Path> closedSegments() {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        if (dir == null || !Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(f -> {
+                        String name = f.getFileName().toString();
+                        return name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+");
+                    })
+                    .sorted(Comparator.comparingLong(this::segmentNumber))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list hot wallet log segments of " + path, e);
+        }
+    }
+
+    private long nextSegmentNumber() {
+        List<Path> segments = closedSegments();
+        return segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+    }
+
+    private long segmentNumber(Path segment) {
+        return Long.parseLong(segment.getFileName().toString().substring(path.getFileName().toString().length() + 1));
+    }
+
+    private Path segment(long number) {
+        return path.resolveSibling(path.getFileName() + "." + number);
+    }
+
+    synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to do on shutdown
+            }
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -3,22 +3,43 @@ package com.gigs.userservice.service;
 
 import com.gigs.userservice.dto.request.AddUserBody;
 import com.gigs.userservice.dto.request.UpdateBasicProfileBody;
+import com.gigs.userservice.dto.response.UserBalanceResponse;
 import com.gigs.userservice.dto.response.UserResponse;
 import com.gigs.userservice.model.User;
+import com.gigs.userservice.repository.ProcessedReferenceRepository;
 import com.gigs.userservice.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final WalletLedgerService walletLedgerService;
+    private final HotWalletAccumulator hotWallets;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedReferenceRepository processedReferences;
+
+    // when on, balances live in the append-only ledger and user.balance is only the opening balance
+    @Value("${wallet.ledger.enabled:true}")
+    private boolean ledgerEnabled = true;
 
     public long addUser(AddUserBody req) {
         User user = User.builder().username(req.getUsername())
@@ -35,49 +56,170 @@ public class UserService {
     }
 
     public boolean userExistsById(long id) {
-        return userRepository.findById(id).isPresent();
+        return userRepository.existsById(id);
+    }
+
+    public Map<Long, Boolean> usersExistByIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>(userRepository.findExistingIds(ids));
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            result.put(id, existing.contains(id));
+        }
+        return result;
     }
 
     public UserResponse getUserById(Long id) {
         User u = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        return UserResponse.fromUser(u);
+        return withLedgerBalances(List.of(UserResponse.fromUser(u))).get(0);
     }
 
     public List<UserResponse> getAllUsers() {
-        return userRepository.findAll()
+        return withLedgerBalances(userRepository.findAll()
                 .stream()
                 .map(UserResponse::fromUser)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Current and opening balance of each existing user, for reconciliation against
+     * payment-service. Unknown ids are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<UserBalanceResponse> getBalances(Collection<Long> ids) {
+        List<Object[]> rows = userRepository.findBalanceColumns(ids);
+        Map<Long, Double> ledger = ledgerEnabled ? walletLedgerService.balancesOf(ids) : Map.of();
+        List<UserBalanceResponse> balances = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            double column = ((Number) row[1]).doubleValue();
+            balances.add(UserBalanceResponse.builder()
+                    .id(id)
+                    .balance(isHot(id) ? hotWallets.balanceOf(id) : ledger.getOrDefault(id, column))
+                    .openingBalance(ledgerEnabled ? column : null)
+                    .build());
+        }
+        return balances;
+    }
+
+    public double getBalance(long id) {
+        if (isHot(id)) {
+            return hotWallets.balanceOf(id);
+        }
+        if (ledgerEnabled) {
+            OptionalDouble balance = walletLedgerService.balanceOf(id);
+            if (balance.isPresent()) {
+                return balance.getAsDouble();
+            }
+        }
+        return userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + id))
+                .getBalance();
     }
 
     public void addAmount(long id, double amount) {
+        addAmount(id, amount, null);
+    }
+
+    /**
+     * @param reference payment id or similar; a credit whose reference was already
+     *                  recorded is ignored
+     */
+    @Transactional
+    public void addAmount(long id, double amount, String reference) {
         if (amount < 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
+        if (isHot(id)) {
+            hotWallets.credit(id, amount, reference);
+            return;
+        }
+        if (ledgerEnabled) {
+            walletLedgerService.credit(id, amount, reference);
+            return;
+        }
+        if (!recordReference(reference)) {
+            return;
+        }
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + id));
+        if (userRepository.addBalance(id, amount) == 0) {
+            throw new RuntimeException("User not found with ID: " + id);
+        }
+    }
 
-        user.setBalance(user.getBalance() + amount);
-        userRepository.save(user);
+    /**
+     * Credits several users at once (e.g. every runner of a completed event).
+     * All-or-nothing: if any user is missing or an amount is negative nothing is credited.
+     * <p>
+     * Hot wallets are credited only after the other credits committed, and the call returns
+     * only once those are in the hot-wallet log. If one of them fails the call fails too, so
+     * the caller retries with the same reference; both parts skip what they already recorded.
+     */
+    public void addAmounts(Map<Long, Double> amounts) {
+        addAmounts(amounts, null);
+    }
+
+    public void addAmounts(Map<Long, Double> amounts, String reference) {
+        for (Double amount : amounts.values()) {
+            if (amount == null || amount < 0) {
+                throw new IllegalArgumentException("Amount must be positive");
+            }
+        }
+        if (ledgerEnabled) {
+            Map<Long, Double> hot = new LinkedHashMap<>();
+            Map<Long, Double> regular = new LinkedHashMap<>();
+            amounts.forEach((id, amount) -> (isHot(id) ? hot : regular).put(id, amount));
+            if (!regular.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> walletLedgerService.creditAll(regular, reference));
+            }
+            // hot credits are durable as soon as they are logged, so only take them once the rest
+            // committed; an exception here reaches the caller
+            hot.forEach((id, amount) ->
+                    hotWallets.credit(id, amount, reference == null ? null : reference + ":" + id));
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // fixed id order so two concurrent payouts lock rows in the same order
+            for (Long id : new TreeSet<>(amounts.keySet())) {
+                // per user, as the ledger does
+                if (!recordReference(reference == null ? null : reference + ":" + id)) {
+                    continue;
+                }
+                if (userRepository.addBalance(id, amounts.get(id)) == 0) {
+                    throw new NoSuchElementException("User not found with ID: " + id);
+                }
+            }
+        });
     }
 
     public void deductAmount(long id, double amount) {
+        deductAmount(id, amount, null);
+    }
+
+    @Transactional
+    public void deductAmount(long id, double amount, String reference) {
         if (amount < 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
+        if (isHot(id)) {
+            hotWallets.debit(id, amount, reference);
+            return;
+        }
+        if (ledgerEnabled) {
+            walletLedgerService.debit(id, amount, reference);
+            return;
+        }
+        if (!recordReference(reference)) {
+            return;
+        }
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + id));
-
-        double newBalance = user.getBalance() - amount;
-        if (newBalance < 0) {
+        if (userRepository.deductBalance(id, amount) == 0) {
+            // the conditional update tells us it failed, not why
+            if (!userRepository.existsById(id)) {
+                throw new RuntimeException("User not found with ID: " + id);
+            }
             throw new IllegalStateException("Insufficient balance");
         }
-
-        user.setBalance(newBalance);
-        userRepository.save(user);
     }
 
     public void updateBasicProfile(Long userId, UpdateBasicProfileBody body) {
@@ -130,7 +272,27 @@ public class UserService {
         userRepository.save(user);
     }
 
+    private List<UserResponse> withLedgerBalances(List<UserResponse> users) {
+        if (!ledgerEnabled || users.isEmpty()) {
+            return users;
+        }
+        Map<Long, Double> balances = walletLedgerService.balancesOf(
+                users.stream().map(UserResponse::getId).collect(Collectors.toList()));
+        for (UserResponse user : users) {
+            Double balance = isHot(user.getId()) ? hotWallets.balanceOf(user.getId()) : balances.get(user.getId());
+            if (balance != null) {
+                user.setBalance(balance);
+            }
+        }
+        return users;
+    }
 
+    // ledger disabled: false if the reference was already applied; must run in the write's transaction
+    private boolean recordReference(String reference) {
+        return reference == null || processedReferences.recordIfAbsent(reference) > 0;
+    }
 
-
-}
\ No newline at end of file
+    private boolean isHot(long id) {
+        return ledgerEnabled && hotWallets.isHot(id);
+    }
+}
@@ -0,0 +1,271 @@
+package com.gigs.userservice.service;
+
+import com.gigs.userservice.model.BalanceSnapshot;
+import com.gigs.userservice.model.LedgerEntry;
+import com.gigs.userservice.repository.BalanceSnapshotRepository;
+import com.gigs.userservice.repository.LedgerEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only wallet ledger.
+ * <p>
+ * A credit is a single INSERT into ledger_entry and takes no lock on the wallet, so many
+ * payouts to (or from) the same account do not queue behind each other. A debit locks the
+ * user's balance_snapshot row first and checks the funds against the snapshot, the debit
+ * total kept on that locked row and the credits in the tail. The tail is read without a
+ * lock and under REPEATABLE READ may miss rows committed while the debit waited, but only
+ * credits are taken from it and missing one can only lower the balance, so the check stays
+ * safe; earlier debits are always counted because they updated the row this one holds.
+ * <p>
+ * A scheduled compaction folds old entries into the snapshot so the tail stays short. It
+ * adds exactly the entries it read to the balance and marks them folded in the same
+ * transaction; an entry whose transaction is still open is not visible to that read and
+ * simply stays in the tail, however small its id. Entries younger than the safety lag are
+ * left alone so the newest ones are not folded as they arrive.
+ * <p>
+ * Wallets are opened lazily from the legacy {@code user.balance} column, which from then on
+ * only holds the opening balance.
+ */
+@Service
+public class WalletLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletLedgerService.class);
+
+    private final LedgerEntryRepository entryRepository;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // wallets known to have a snapshot row; lets credits skip the open-if-absent statement
+    private final Set<Long> openWallets = ConcurrentHashMap.newKeySet();
+
+    @Value("${wallet.ledger.compaction.safety-lag-seconds:60}")
+    private long safetyLagSeconds = 60;
+
+    @Value("${wallet.ledger.compaction.batch-size:500}")
+    private int compactionBatchSize = 500;
+
+    public WalletLedgerService(LedgerEntryRepository entryRepository,
+                               BalanceSnapshotRepository snapshotRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.entryRepository = entryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Transactional
+    public void credit(long userId, double amount, String reference) {
+        if (isDuplicate(reference)) {
+            return;
+        }
+        openWallet(userId);
+        append(userId, amount, reference);
+    }
+
+    /**
+     * Credits several wallets in one transaction. With a reference, each wallet gets
+     * {@code reference + ":" + userId} so a retried batch is ignored per user.
+     */
+    @Transactional
+    public void creditAll(Map<Long, Double> amounts, String reference) {
+        for (Long userId : new TreeSet<>(amounts.keySet())) {
+            credit(userId, amounts.get(userId), reference == null ? null : reference + ":" + userId);
+        }
+    }
+
+    @Transactional
+    public void debit(long userId, double amount, String reference) {
+        BalanceSnapshot snapshot = lockWallet(userId);
+        if (isDuplicate(reference)) {
+            return;
+        }
+        double balance = snapshot.getBalance() + debitsAfter(snapshot)
+                + entryRepository.sumCreditsAfter(userId, snapshot.getLastEntryId());
+        if (balance < amount) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        if (append(userId, -amount, reference)) {
+            recordDebit(snapshot, -amount);
+        }
+    }
+
+    /**
+     * Appends an entry whose funds were already checked by the caller (the hot-wallet
+     * accumulator). Returns false if the reference is already in the ledger, which makes
+     * replaying the accumulator's write-ahead log safe.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean appendChecked(long userId, double amount, String reference) {
+        if (isDuplicate(reference)) {
+            return false;
+        }
+        if (amount < 0) {
+            // keeps the locked debit total right should the wallet stop being hot
+            BalanceSnapshot snapshot = lockWallet(userId);
+            debitsAfter(snapshot);
+            if (!append(userId, amount, reference)) {
+                return false;
+            }
+            recordDebit(snapshot, amount);
+            return true;
+        }
+        openWallet(userId);
+        return append(userId, amount, reference);
+    }
+
+    // current balance, opening the wallet from user.balance first if needed
+    @Transactional
+    public double openAndGetBalance(long userId) {
+        openWallet(userId);
+        BalanceSnapshot snapshot = snapshotRepository.findById(userId)
+                .orElseThrow(() -> new NoSuchElementException("User not found with ID: " + userId));
+        return snapshot.getBalance() + entryRepository.sumAfter(userId, snapshot.getLastEntryId());
+    }
+
+    public boolean isRecorded(String reference) {
+        return isDuplicate(reference);
+    }
+
+    @Transactional(readOnly = true)
+    public OptionalDouble balanceOf(long userId) {
+        return snapshotRepository.findById(userId)
+                .map(s -> OptionalDouble.of(s.getBalance() + entryRepository.sumAfter(userId, s.getLastEntryId())))
+                .orElse(OptionalDouble.empty());
+    }
+
+    /**
+     * Balances of the wallets that are open; users without a snapshot are left out and
+     * still have their opening balance in {@code user.balance}.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Double> balancesOf(Collection<Long> userIds) {
+        Map<Long, Double> balances = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return balances;
+        }
+        for (BalanceSnapshot s : snapshotRepository.findAllById(userIds)) {
+            balances.put(s.getUserId(), s.getBalance());
+        }
+        for (Object[] row : entryRepository.sumTails(userIds)) {
+            balances.merge((Long) row[0], ((Number) row[1]).doubleValue(), Double::sum);
+        }
+        return balances;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.ledger.compaction.interval-ms:60000}")
+    public void compact() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusSeconds(safetyLagSeconds);
+            int folded = 0;
+            List<Long> users;
+            do {
+                users = entryRepository.findUsersWithFoldableBefore(before, PageRequest.of(0, compactionBatchSize));
+                for (Long userId : users) {
+                    transactionTemplate.executeWithoutResult(status -> fold(userId, before));
+                }
+                folded += users.size();
+            } while (users.size() == compactionBatchSize);
+            if (folded > 0) {
+                logger.info("Compacted {} wallets up to entries created before {}", folded, before);
+            }
+        } catch (Exception e) {
+            logger.error("Ledger compaction failed", e);
+        }
+    }
+
+    // caller holds a transaction; folds at most one batch of the wallet's entries
+    void fold(long userId, LocalDateTime before) {
+        BalanceSnapshot snapshot = snapshotRepository.findForUpdate(userId).orElse(null);
+        if (snapshot == null) {
+            return;
+        }
+        List<LedgerEntry> entries = entryRepository.findFoldable(
+                userId, snapshot.getLastEntryId(), before, PageRequest.of(0, compactionBatchSize));
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Long> ids = entries.stream().map(LedgerEntry::getId).toList();
+        // the snapshot lock keeps other compactions of this wallet out
+        if (entryRepository.markFolded(ids) != ids.size()) {
+            throw new IllegalStateException("Ledger entries of user " + userId + " were folded concurrently");
+        }
+        double folded = entries.stream().mapToDouble(LedgerEntry::getAmount).sum();
+        double debits = entries.stream().mapToDouble(LedgerEntry::getAmount).filter(a -> a < 0).sum();
+        if (snapshot.getDebitsAfter() != null) {
+            snapshot.setDebitsAfter(snapshot.getDebitsAfter() - debits);
+        }
+        snapshot.setBalance(snapshot.getBalance() + folded);
+        snapshot.setUpdatedAt(LocalDateTime.now());
+        snapshotRepository.save(snapshot);
+    }
+
+    // fast path only: two writes with one reference can both pass it, append() settles the race
+    private boolean isDuplicate(String reference) {
+        return reference != null && entryRepository.existsByReference(reference);
+    }
+
+    // only locking statements before the row is held, so nothing here runs on a read view
+    // older than the lock
+    private BalanceSnapshot lockWallet(long userId) {
+        Optional<BalanceSnapshot> snapshot = snapshotRepository.findForUpdate(userId);
+        if (snapshot.isEmpty()) {
+            snapshotRepository.openIfAbsent(userId);
+            snapshot = snapshotRepository.findForUpdate(userId);
+        }
+        return snapshot.orElseThrow(() -> new NoSuchElementException("User not found with ID: " + userId));
+    }
+
+    private double debitsAfter(BalanceSnapshot snapshot) {
+        if (snapshot.getDebitsAfter() == null) {
+            snapshot.setDebitsAfter(entryRepository.sumDebitsAfter(snapshot.getUserId(), snapshot.getLastEntryId()));
+        }
+        return snapshot.getDebitsAfter();
+    }
+
+    // caller holds the snapshot lock and read debitsAfter before appending the entry
+    private void recordDebit(BalanceSnapshot snapshot, double amount) {
+        snapshot.setDebitsAfter(snapshot.getDebitsAfter() + amount);
+        snapshot.setUpdatedAt(LocalDateTime.now());
+        snapshotRepository.save(snapshot);
+    }
+
+    private void openWallet(long userId) {
+        if (openWallets.contains(userId)) {
+            return;
+        }
+        if (snapshotRepository.openIfAbsent(userId) > 0) {
+            // opened by this transaction; only remember it once it is known to be committed
+            return;
+        }
+        if (!snapshotRepository.existsById(userId)) {
+            throw new NoSuchElementException("User not found with ID: " + userId);
+        }
+        openWallets.add(userId);
+    }
+
+    // false when the reference is already in the ledger and nothing was written
+    private boolean append(long userId, double amount, String reference) {
+        if (reference != null) {
+            // not save() + catching the constraint violation: the failed insert would leave the
+            // transaction rollback-only and take the caller's other writes down with it
+            return entryRepository.insertIfAbsent(userId, amount, reference, LocalDateTime.now()) > 0;
+        }
+        entryRepository.save(LedgerEntry.builder()
+                .userId(userId)
+                .amount(amount)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return true;
+    }
+}
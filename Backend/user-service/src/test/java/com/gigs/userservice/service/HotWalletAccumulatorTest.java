@@ -0,0 +1,269 @@
+package com.gigs.userservice.service;
+
+import com.gigs.userservice.model.User;
+import com.gigs.userservice.repository.BalanceSnapshotRepository;
+import com.gigs.userservice.repository.LedgerEntryRepository;
+import com.gigs.userservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stress test for hot wallets: many threads debit one account, the account never
+ * overdraws, the flushed ledger agrees with the in-memory balance and a crash between
+ * acknowledging and flushing loses nothing. Also prints debit throughput of the plain
+ * ledger against the accumulator for the same load.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hotwallet;MODE=MySQL;NON_KEYWORDS=USER;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "eureka.client.enabled=false",
+        "wallet.hot.wal-path=${java.io.tmpdir}/hot-wallet-test-${random.uuid}.wal",
+        "wallet.hot.wal.fsync=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserService.class, WalletLedgerService.class, HotWalletAccumulator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotWalletAccumulatorTest {
+
+    private static final int THREADS = 64;
+    private static final int OPS_PER_THREAD = 200;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletLedgerService ledger;
+
+    @Autowired
+    private HotWalletAccumulator hotWallets;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void cleanUp() {
+        hotWallets.flush();
+        entryRepository.deleteAll();
+        snapshotRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentDebitsNeverOverdrawAndFlushMatches() throws Exception {
+        int funds = 5000;
+        long id = newUser("organiser", funds);
+        hotWallets.markHot(id);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                userService.deductAmount(id, 1.0);
+                succeeded.incrementAndGet();
+            } catch (IllegalStateException e) {
+                // insufficient balance
+            }
+        });
+
+        assertEquals(funds, succeeded.get());
+        assertEquals(0.0, userService.getBalance(id), 0.0001);
+
+        hotWallets.flush();
+        assertEquals(0.0, ledger.balanceOf(id).orElseThrow(), 0.0001);
+        assertEquals(funds, entryRepository.count());
+    }
+
+    @Test
+    void testRepeatedReferenceIsIgnoredBeforeAndAfterFlush() {
+        long id = newUser("fees", 0);
+        hotWallets.markHot(id);
+
+        userService.addAmount(id, 25, "payment-9");
+        userService.addAmount(id, 25, "payment-9");
+        hotWallets.flush();
+        userService.addAmount(id, 25, "payment-9");
+
+        assertEquals(25.0, userService.getBalance(id), 0.0001);
+        assertEquals(25.0, userService.getUserById(id).getBalance(), 0.0001);
+    }
+
+    @Test
+    void testRetriedBatchCreditsHotAndRegularWalletsOnce() {
+        long hot = newUser("organiser-fees", 0);
+        long runner = newUser("runner", 0);
+        hotWallets.markHot(hot);
+
+        userService.addAmounts(Map.of(hot, 10.0, runner, 40.0), "event-3");
+        hotWallets.flush();
+        userService.addAmounts(Map.of(hot, 10.0, runner, 40.0), "event-3");
+
+        assertEquals(10.0, userService.getBalance(hot), 0.0001);
+        assertEquals(40.0, userService.getBalance(runner), 0.0001);
+    }
+
+    @Test
+    void testUnflushedOperationsAreReplayedOnce() {
+        long id = newUser("crashy", 100);
+        Path wal = tempDir.resolve("crash.wal");
+
+        HotWalletAccumulator crashed = accumulator(id, wal);
+        crashed.debit(id, 30, null);
+        crashed.credit(id, 5, "refund-1");
+        // no flush: the process "dies" here
+
+        accumulator(id, wal).recover();
+        assertEquals(75.0, ledger.balanceOf(id).orElseThrow(), 0.0001);
+
+        // the log was emptied, a second restart changes nothing
+        HotWalletAccumulator restarted = accumulator(id, wal);
+        restarted.recover();
+        assertEquals(75.0, restarted.balanceOf(id), 0.0001);
+        assertEquals(2, entryRepository.count());
+    }
+
+    @Test
+    void testFailingOperationHoldsBackOnlyItself() {
+        WalletLedgerService failing = mock(WalletLedgerService.class);
+        when(failing.openAndGetBalance(anyLong())).thenReturn(100.0);
+        when(failing.appendChecked(eq(1L), anyDouble(), eq("poison"))).thenThrow(new IllegalStateException("rejected"));
+        HotWalletAccumulator accumulator = new HotWalletAccumulator(failing, transactionTemplate, "1,2", 4,
+                tempDir.resolve("poison.wal").toString(), false, 1L << 20);
+
+        accumulator.credit(1L, 5, "poison");
+        accumulator.credit(1L, 5, "fine-1");
+        accumulator.credit(2L, 5, "fine-2");
+        accumulator.flush();
+        accumulator.flush();
+
+        verify(failing, atLeastOnce()).appendChecked(1L, 5.0, "fine-1");
+        verify(failing, atLeastOnce()).appendChecked(2L, 5.0, "fine-2");
+        // retried on every flush, still recognised as pending in between
+        verify(failing, atLeast(2)).appendChecked(1L, 5.0, "poison");
+        accumulator.credit(1L, 5, "poison");
+        assertEquals(110.0, accumulator.balanceOf(1L), 0.0001);
+    }
+
+    @Test
+    void testLogIsRotatedWhileAnEntryKeepsFailing() throws Exception {
+        WalletLedgerService failing = mock(WalletLedgerService.class);
+        when(failing.openAndGetBalance(anyLong())).thenReturn(1000.0);
+        when(failing.appendChecked(eq(1L), anyDouble(), eq("poison"))).thenThrow(new IllegalStateException("rejected"));
+        Path wal = tempDir.resolve("rotate.wal");
+        HotWalletAccumulator accumulator = new HotWalletAccumulator(failing, transactionTemplate, "1", 4,
+                wal.toString(), false, 256);
+
+        accumulator.credit(1L, 1, "poison");
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                accumulator.credit(1L, 1, "round-" + round + "-" + i);
+            }
+            accumulator.flush();
+        }
+        accumulator.flush();
+
+        long logBytes;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            logBytes = files.filter(f -> f.getFileName().toString().startsWith("rotate.wal"))
+                    .mapToLong(f -> f.toFile().length())
+                    .sum();
+        }
+        assertTrue(logBytes < 1024, "log kept " + logBytes + " bytes");
+        // the failing entry survived every rotation
+        assertTrue(new HotWalletLog(wal, false, 256).readAll().stream()
+                .anyMatch(e -> e.reference().equals("poison")));
+    }
+
+    @Test
+    void testHotDebitThroughputAgainstLedger() throws Exception {
+        double funds = THREADS * OPS_PER_THREAD;
+        long ledgerId = newUser("ledger-payer", funds);
+        long hotId = newUser("hot-payer", funds);
+        hotWallets.markHot(hotId);
+
+        long ledgerNanos = runConcurrently(() -> userService.deductAmount(ledgerId, 1.0));
+        long hotNanos = runConcurrently(() -> userService.deductAmount(hotId, 1.0));
+        long flushStart = System.nanoTime();
+        hotWallets.flush();
+        long flushNanos = System.nanoTime() - flushStart;
+
+        int ops = THREADS * OPS_PER_THREAD;
+        System.out.printf("%d debits on one wallet: ledger %.0f ops/s, hot %.0f ops/s (+%d ms flush)%n",
+                ops, ops / (ledgerNanos / 1e9), ops / (hotNanos / 1e9), flushNanos / 1_000_000);
+
+        assertEquals(0.0, userService.getBalance(ledgerId), 0.0001);
+        assertEquals(0.0, ledger.balanceOf(hotId).orElseThrow(), 0.0001);
+    }
+
+    private HotWalletAccumulator accumulator(long id, Path wal) {
+        return new HotWalletAccumulator(ledger, transactionTemplate, Long.toString(id), 4, wal.toString(), true, 1L << 20);
+    }
+
+    private long newUser(String name, double balance) {
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@test.com")
+                .balance(balance)
+                .build()).getId();
+    }
+
+    // returns the wall-clock time all threads took
+    private long runConcurrently(Runnable op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.run();
+                    }
+                    return null;
+                }));
+            }
+            long start = System.nanoTime();
+            go.countDown();
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.gigs.userservice.service;
+
+import com.gigs.userservice.model.User;
+import com.gigs.userservice.repository.ProcessedReferenceRepository;
+import com.gigs.userservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Hammers addAmount/deductAmount from 64 threads against a real (H2) database and checks
+ * that no update is lost and the balance never goes negative.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:users;MODE=MySQL;NON_KEYWORDS=USER;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "eureka.client.enabled=false",
+        "wallet.ledger.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserService.class, WalletLedgerService.class, HotWalletAccumulator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every call commits on its own, like in production
+class UserBalanceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int OPS_PER_THREAD = 200;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProcessedReferenceRepository processedReferences;
+
+    @AfterEach
+    void cleanUp() {
+        processedReferences.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentAddsLoseNoUpdates() throws Exception {
+        long id = newUser("poster", 0);
+
+        long start = System.nanoTime();
+        runConcurrently(() -> userService.addAmount(id, 1.0));
+        report("addAmount", start);
+
+        assertEquals(THREADS * OPS_PER_THREAD, balanceOf(id), 0.0001);
+    }
+
+    @Test
+    void testConcurrentDeductsNeverOverdraw() throws Exception {
+        int funds = 1000; // fewer than THREADS * OPS_PER_THREAD attempts
+        long id = newUser("payer", funds);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        long start = System.nanoTime();
+        runConcurrently(() -> {
+            try {
+                userService.deductAmount(id, 1.0);
+                succeeded.incrementAndGet();
+            } catch (IllegalStateException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        report("deductAmount", start);
+
+        assertEquals(funds, succeeded.get());
+        assertEquals(THREADS * OPS_PER_THREAD - funds, rejected.get());
+        assertEquals(0.0, balanceOf(id), 0.0001);
+    }
+
+    @Test
+    void testMissingUserAndInsufficientFundsAreTold() {
+        long id = newUser("poor", 5);
+
+        assertThrows(IllegalStateException.class, () -> userService.deductAmount(id, 10));
+        assertThrows(RuntimeException.class, () -> userService.deductAmount(id + 1000, 1));
+        assertThrows(RuntimeException.class, () -> userService.addAmount(id + 1000, 1));
+        assertEquals(5.0, balanceOf(id), 0.0001);
+    }
+
+    @Test
+    void testRepeatedReferenceIsIgnoredWithoutTheLedger() {
+        long id = newUser("paid", 10);
+
+        userService.addAmount(id, 25, "payment-7");
+        userService.addAmount(id, 25, "payment-7");
+        userService.addAmounts(Map.of(id, 10.0), "batch-1");
+        userService.addAmounts(Map.of(id, 10.0), "batch-1");
+        userService.deductAmount(id, 5, "fee-1");
+        userService.deductAmount(id, 5, "fee-1");
+
+        assertEquals(40.0, balanceOf(id), 0.0001);
+    }
+
+    @Test
+    void testRejectedDebitDoesNotUseUpItsReference() {
+        long id = newUser("short", 5);
+
+        assertThrows(IllegalStateException.class, () -> userService.deductAmount(id, 10, "fee-2"));
+        userService.addAmount(id, 5);
+        userService.deductAmount(id, 10, "fee-2");
+
+        assertEquals(0.0, balanceOf(id), 0.0001);
+    }
+
+    private long newUser(String name, double balance) {
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@test.com")
+                .balance(balance)
+                .build()).getId();
+    }
+
+    private double balanceOf(long id) {
+        return userRepository.findById(id).orElseThrow().getBalance();
+    }
+
+    private void runConcurrently(Runnable op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.run();
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void report(String op, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%s: %d ops on %d threads in %.2fs (%.0f ops/s)%n",
+                op, THREADS * OPS_PER_THREAD, THREADS, seconds, THREADS * OPS_PER_THREAD / seconds);
+    }
+}
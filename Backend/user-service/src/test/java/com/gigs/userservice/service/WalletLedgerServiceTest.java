@@ -0,0 +1,274 @@
+package com.gigs.userservice.service;
+
+import com.gigs.userservice.model.User;
+import com.gigs.userservice.repository.BalanceSnapshotRepository;
+import com.gigs.userservice.repository.LedgerEntryRepository;
+import com.gigs.userservice.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.transaction.TransactionDefinition.ISOLATION_REPEATABLE_READ;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs credits and debits through the ledger from many threads against H2 and checks the
+ * balance adds up, never overdraws and survives compaction.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger;MODE=MySQL;NON_KEYWORDS=USER;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "eureka.client.enabled=false",
+        "wallet.ledger.compaction.safety-lag-seconds=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserService.class, WalletLedgerService.class, HotWalletAccumulator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WalletLedgerServiceTest {
+
+    private static final int THREADS = 32;
+    private static final int OPS_PER_THREAD = 100;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletLedgerService ledger;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        entryRepository.deleteAll();
+        snapshotRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentCreditsAreAllCounted() throws Exception {
+        long id = newUser("runner", 50);
+
+        runConcurrently(() -> userService.addAmount(id, 1.0));
+
+        assertEquals(50 + THREADS * OPS_PER_THREAD, userService.getBalance(id), 0.0001);
+        assertEquals(50.0, userRepository.findById(id).orElseThrow().getBalance(), 0.0001);
+    }
+
+    @Test
+    void testConcurrentDebitsNeverOverdraw() throws Exception {
+        int funds = 500;
+        long id = newUser("payer", funds);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                userService.deductAmount(id, 1.0);
+                succeeded.incrementAndGet();
+            } catch (IllegalStateException e) {
+                // insufficient balance
+            }
+        });
+
+        assertEquals(funds, succeeded.get());
+        assertEquals(0.0, userService.getBalance(id), 0.0001);
+    }
+
+    @Test
+    void testCompactionKeepsBalance() {
+        long id = newUser("saver", 10);
+        for (int i = 0; i < 20; i++) {
+            ledger.credit(id, 5, null);
+        }
+        ledger.debit(id, 30, null);
+
+        ledger.compact();
+
+        assertEquals(80.0, userService.getBalance(id), 0.0001);
+        assertTrue(entryRepository.findAll().stream().allMatch(e -> e.isFolded()));
+        assertEquals(80.0, snapshotRepository.findById(id).orElseThrow().getBalance(), 0.0001);
+
+        ledger.credit(id, 1, null);
+        assertEquals(81.0, userService.getBalance(id), 0.0001);
+    }
+
+    @Test
+    void testCompactionLeavesAnUncommittedEntryInTheTail() throws Exception {
+        long id = newUser("slow", 10);
+        ledger.credit(id, 5, null);
+        ledger.credit(id, 5, null);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = pool.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                ledger.credit(id, 7, "slow-commit");
+                inserted.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(inserted.await(10, TimeUnit.SECONDS));
+            // a larger id that commits first; folding up to it used to swallow the slow entry
+            ledger.credit(id, 3, null);
+            ledger.compact();
+            release.countDown();
+            slow.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(30.0, userService.getBalance(id), 0.0001);
+        assertEquals(1, entryRepository.findAll().stream().filter(e -> !e.isFolded()).count());
+        ledger.compact();
+        assertEquals(30.0, userService.getBalance(id), 0.0001);
+    }
+
+    @Test
+    void testConcurrentReferencedDebitsNeverOverdraw() throws Exception {
+        int funds = 500;
+        long id = newUser("referenced", funds);
+        AtomicInteger sequence = new AtomicInteger();
+
+        runConcurrently(() -> {
+            String reference = "payment:" + sequence.incrementAndGet();
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try {
+                    userService.deductAmount(id, 1.0, reference);
+                } catch (IllegalStateException e) {
+                    // insufficient balance
+                }
+            }
+        });
+
+        assertEquals(0.0, userService.getBalance(id), 0.0001);
+        assertEquals(funds, entryRepository.count());
+    }
+
+    @Test
+    void testDebitWaitingOnTheLockSeesTheDebitItWaitedFor() throws Exception {
+        long id = newUser("raced", 10);
+        ledger.debit(id, 1, "warm-up");
+        CountDownLatch firstHoldsLock = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        TransactionTemplate repeatableRead = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        repeatableRead.setIsolationLevel(ISOLATION_REPEATABLE_READ);
+        try {
+            Future<?> first = pool.submit(() -> repeatableRead.executeWithoutResult(status -> {
+                ledger.debit(id, 9, "payment:first");
+                firstHoldsLock.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(firstHoldsLock.await(10, TimeUnit.SECONDS));
+            // the reference lookup used to open the read view before the lock was taken
+            Future<?> second = pool.submit(() -> repeatableRead.executeWithoutResult(
+                    status -> ledger.debit(id, 9, "payment:second")));
+            Thread.sleep(200);
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0.0, ledger.balanceOf(id).orElseThrow(), 0.0001);
+    }
+
+    @Test
+    void testRepeatedReferenceIsIgnored() {
+        long id = newUser("paid", 0);
+
+        userService.addAmount(id, 25, "payment-7");
+        userService.addAmount(id, 25, "payment-7");
+        userService.addAmounts(Map.of(id, 10.0), "batch-1");
+        userService.addAmounts(Map.of(id, 10.0), "batch-1");
+
+        assertEquals(35.0, userService.getBalance(id), 0.0001);
+        assertEquals(35.0, userService.getUserById(id).getBalance(), 0.0001);
+    }
+
+    @Test
+    void testConcurrentCreditsWithOneReferenceAreWrittenOnce() throws Exception {
+        long id = newUser("racer", 0);
+
+        runConcurrently(() -> userService.addAmount(id, 1.0, "payout-1"));
+
+        assertEquals(1.0, userService.getBalance(id), 0.0001);
+        assertEquals(1, entryRepository.count());
+    }
+
+    @Test
+    void testMissingUserAndInsufficientFunds() {
+        long id = newUser("poor", 5);
+
+        assertThrows(IllegalStateException.class, () -> userService.deductAmount(id, 10));
+        assertThrows(NoSuchElementException.class, () -> userService.addAmount(id + 1000, 1));
+        assertThrows(NoSuchElementException.class, () -> userService.addAmounts(Map.of(id + 1000, 1.0)));
+        assertEquals(5.0, userService.getBalance(id), 0.0001);
+    }
+
+    private long newUser(String name, double balance) {
+        return userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@test.com")
+                .balance(balance)
+                .build()).getId();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runConcurrently(Runnable op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        op.run();
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}